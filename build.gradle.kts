@@ -5,6 +5,7 @@ plugins {
     java
     id("com.gradleup.shadow") version "9.4.3"
     id("xyz.jpenilla.run-velocity") version "3.0.2"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "net.uebliche.dockbridge"
@@ -113,11 +114,37 @@ dependencies {
     implementation("com.github.docker-java:docker-java-core:3.7.1")
     implementation("com.github.docker-java:docker-java-transport:3.7.1")
     implementation("com.github.docker-java:docker-java-transport-zerodep:3.7.1")
+
+    // Velocity is provided by the proxy at runtime; benchmarks need it on their own classpath.
+    jmh("com.velocitypowered:velocity-api:3.4.0-SNAPSHOT")
+
+    testImplementation(platform("org.junit:junit-bom:5.14.2"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+// Benchmarks live in src/jmh/java and run against a stub ProxyServer, no Docker daemon needed:
+// ./gradlew jmh -Pjmh.includes=Reconcile
+jmh {
+    jmhVersion.set("1.37")
+    benchmarkMode.set(listOf("thrpt"))
+    timeUnit.set("s")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    jvmArgsAppend.set(listOf("-Djdk.net.hosts.file=" + file("src/jmh/resources/benchmark.hosts").absolutePath))
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.set(listOf(it)) }
 }
 
 tasks.withType<JavaCompile>().configureEach {
     options.encoding = "UTF-8"
-    options.release.set(17)
+    options.release.set(21)
 }
 
 tasks.jar {
@@ -131,8 +158,16 @@ tasks.shadowJar {
     relocate("org.apache.hc", "net.uebliche.dockbridge.libs.hc")
 }
 
+// Compile-only jar for plugins that use the DockBridge API (net.uebliche.dockbridge.api).
+val apiJar by tasks.registering(Jar::class) {
+    archiveClassifier.set("api")
+    from(sourceSets.main.get().output) {
+        include("net/uebliche/dockbridge/api/**")
+    }
+}
+
 tasks.build {
-    dependsOn(tasks.shadowJar)
+    dependsOn(tasks.shadowJar, apiJar)
 }
 
 tasks.runVelocity {
@@ -0,0 +1,25 @@
+package net.uebliche.dockbridge;
+
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.util.Properties;
+
+final class BenchmarkSupport {
+
+    static final Logger LOGGER = NOPLogger.NOP_LOGGER;
+
+    private BenchmarkSupport() {
+    }
+
+    static DockBridgeConfig config(String duplicateStrategy) {
+        Properties properties = new Properties();
+        properties.setProperty("docker.events.enabled", "false");
+        properties.setProperty("docker.autoregister.duplicate_strategy", duplicateStrategy);
+        properties.setProperty("logging.summary", "false");
+        properties.setProperty("logging.registered", "false");
+        properties.setProperty("logging.updated", "false");
+        properties.setProperty("logging.unregistered", "false");
+        return DockBridgeConfig.fromProperties(properties, LOGGER);
+    }
+}
@@ -0,0 +1,143 @@
+package net.uebliche.dockbridge;
+
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.zerodep.ZerodepDockerHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One scan's {@code GET /containers/json} through docker-java's zerodep transport versus
+ * {@link LeanDockerClient}, both against an in-process daemon on a Unix socket that serves a
+ * canned listing with the full Engine API field set. Run with the gc profiler to compare
+ * allocation per scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DockerClientBenchmark {
+
+    private static final String LABEL_KEY = "net.uebliche.dockbridge.autoregister";
+
+    @Param({"10", "100", "1000"})
+    public int fleetSize;
+
+    @Param({"docker-java", "lean"})
+    public String client;
+
+    private Path directory;
+    private ServerSocketChannel daemon;
+    private Thread acceptor;
+    private DiscoveryClient discovery;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("dockbridge-bench");
+        Path socket = directory.resolve("docker.sock");
+        byte[] listing = SyntheticFleet.listingJson(fleetSize, Math.max(1, fleetSize / 10), 42L);
+        daemon = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        daemon.bind(UnixDomainSocketAddress.of(socket));
+        acceptor = Thread.ofPlatform().daemon().start(() -> acceptLoop(listing));
+
+        String endpoint = "unix://" + socket;
+        if ("lean".equals(client)) {
+            discovery = new LeanDockerClient(endpoint);
+        } else {
+            DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                    .withDockerHost(endpoint)
+                    .build();
+            ZerodepDockerHttpClient http = new ZerodepDockerHttpClient.Builder()
+                    .dockerHost(config.getDockerHost())
+                    .build();
+            discovery = new DockerJavaDiscoveryClient(DockerClientImpl.getInstance(config, http));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        discovery.close();
+        daemon.close();
+        acceptor.interrupt();
+        Files.deleteIfExists(directory.resolve("docker.sock"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public int listContainers() throws Exception {
+        List<ContainerSummary> containers = discovery.listContainers(LABEL_KEY, "true", false);
+        return containers.size();
+    }
+
+    private void acceptLoop(byte[] listing) {
+        while (daemon.isOpen()) {
+            try {
+                SocketChannel connection = daemon.accept();
+                Thread.ofPlatform().daemon().start(() -> serve(connection, listing));
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Answers every request on a keep-alive connection with the listing, or OK for pings.
+     */
+    private static void serve(SocketChannel connection, byte[] listing) {
+        byte[] listHead = ("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: "
+                + listing.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] pong = "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nOK"
+                .getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+        try (connection) {
+            while (true) {
+                int headEnd;
+                while ((headEnd = headEnd(in)) < 0) {
+                    if (connection.read(in) < 0) {
+                        return;
+                    }
+                }
+                boolean ping = new String(in.array(), 0, Math.min(in.position(), 16), StandardCharsets.US_ASCII)
+                        .contains("/_ping");
+                in.flip().position(headEnd);
+                in.compact();
+                if (ping) {
+                    connection.write(ByteBuffer.wrap(pong));
+                } else {
+                    connection.write(new ByteBuffer[]{ByteBuffer.wrap(listHead), ByteBuffer.wrap(listing)});
+                }
+            }
+        } catch (IOException ignored) {
+            // Client went away.
+        }
+    }
+
+    private static int headEnd(ByteBuffer in) {
+        byte[] bytes = in.array();
+        for (int i = 3; i < in.position(); i++) {
+            if (bytes[i - 3] == '\r' && bytes[i - 2] == '\n' && bytes[i - 1] == '\r' && bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,53 @@
+package net.uebliche.dockbridge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worst case for chooseServerName and {@link NameAllocator}: every scan replaces the whole
+ * fleet, and with {@code baseNames=1} all containers collide on one base name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NamingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int fleetSize;
+
+    @Param({"1", "50"})
+    public int baseNames;
+
+    @Param({"suffix", "overwrite"})
+    public String duplicateStrategy;
+
+    private DockerService service;
+    private List<ContainerSummary> fleetA;
+    private List<ContainerSummary> fleetB;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        StubProxyServer proxy = new StubProxyServer();
+        service = new DockerService(proxy.proxy(), BenchmarkSupport.LOGGER, BenchmarkSupport.config(duplicateStrategy));
+        fleetA = SyntheticFleet.generate(fleetSize, baseNames, 42L);
+        fleetB = SyntheticFleet.churn(fleetA, 1.0, 7L);
+        service.reconcile(fleetA);
+    }
+
+    @Benchmark
+    public int renameFleet() {
+        flip = !flip;
+        service.reconcile(flip ? fleetB : fleetA);
+        return service.getLastMatchedCount();
+    }
+}
@@ -0,0 +1,54 @@
+package net.uebliche.dockbridge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state scans: every invocation alternates between two listings that differ by
+ * {@code churn} of the fleet, so each scan registers and unregisters that share.
+ * Run with the gc profiler to see allocation per scan ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReconcileBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int fleetSize;
+
+    @Param({"0.0", "0.01", "0.1", "0.5"})
+    public double churn;
+
+    @Param({"suffix", "overwrite"})
+    public String duplicateStrategy;
+
+    private DockerService service;
+    private List<ContainerSummary> fleetA;
+    private List<ContainerSummary> fleetB;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        StubProxyServer proxy = new StubProxyServer();
+        service = new DockerService(proxy.proxy(), BenchmarkSupport.LOGGER, BenchmarkSupport.config(duplicateStrategy));
+        fleetA = SyntheticFleet.generate(fleetSize, Math.max(1, fleetSize / 10), 42L);
+        fleetB = SyntheticFleet.churn(fleetA, churn, 7L);
+        service.reconcile(fleetA);
+    }
+
+    @Benchmark
+    public int reconcile() {
+        flip = !flip;
+        service.reconcile(flip ? fleetB : fleetA);
+        return service.getLastMatchedCount();
+    }
+}
@@ -0,0 +1,98 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.config.ProxyConfig;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory {@link ProxyServer} covering the registry calls DockerService makes. Built with a
+ * dynamic proxy so it keeps compiling as the Velocity interface grows.
+ */
+final class StubProxyServer {
+
+    private final Map<String, RegisteredServer> servers = new HashMap<>();
+    private final List<String> attemptConnectionOrder = new ArrayList<>();
+    private final ProxyConfig configuration = proxy(ProxyConfig.class, (self, method, args) ->
+            "getAttemptConnectionOrder".equals(method.getName()) ? attemptConnectionOrder : defaultValue(self, method, args));
+    private final ProxyServer proxyServer = proxy(ProxyServer.class, this::invoke);
+
+    ProxyServer proxy() {
+        return proxyServer;
+    }
+
+    int registeredCount() {
+        return servers.size();
+    }
+
+    private Object invoke(Object self, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "getServer" -> Optional.ofNullable(servers.get((String) args[0]));
+            case "getAllServers" -> List.copyOf(servers.values());
+            case "registerServer" -> register((ServerInfo) args[0]);
+            case "unregisterServer" -> {
+                ServerInfo info = (ServerInfo) args[0];
+                servers.remove(info.getName());
+                yield null;
+            }
+            case "getConfiguration" -> configuration;
+            default -> defaultValue(self, method, args);
+        };
+    }
+
+    private RegisteredServer register(ServerInfo info) {
+        if (servers.containsKey(info.getName())) {
+            throw new IllegalArgumentException("Server with name " + info.getName() + " already registered");
+        }
+        RegisteredServer registered = proxy(RegisteredServer.class, (self, method, args) ->
+                "getServerInfo".equals(method.getName()) ? info : defaultValue(self, method, args));
+        servers.put(info.getName(), registered);
+        return registered;
+    }
+
+    private static Object defaultValue(Object self, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(self);
+            case "equals" -> self == args[0];
+            case "toString" -> method.getDeclaringClass().getSimpleName() + "Stub";
+            default -> {
+                // A proxy unboxes the result to the declared primitive, so the zero has to be of that exact type.
+                Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                    yield false;
+                } else if (type == int.class) {
+                    yield 0;
+                } else if (type == long.class) {
+                    yield 0L;
+                } else if (type == double.class) {
+                    yield 0.0;
+                } else if (type == float.class) {
+                    yield 0.0f;
+                } else if (type == short.class) {
+                    yield (short) 0;
+                } else if (type == byte.class) {
+                    yield (byte) 0;
+                } else if (type == char.class) {
+                    yield '\0';
+                } else if (type == Optional.class) {
+                    yield Optional.empty();
+                }
+                yield null;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubProxyServer.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,141 @@
+package net.uebliche.dockbridge;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates container listings shaped like {@code /containers/json} responses.
+ */
+final class SyntheticFleet {
+
+    static final String NAME_LABEL = "net.uebliche.dockbridge.server_name";
+    static final String PORT_LABEL = "net.uebliche.dockbridge.server_port";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SyntheticFleet() {
+    }
+
+    /**
+     * @param baseNames number of distinct base names; fewer base names mean more replicas
+     *                  per name and therefore more suffix collisions.
+     */
+    static List<ContainerSummary> generate(int size, int baseNames, long seed) {
+        Random random = new Random(seed);
+        List<ContainerSummary> fleet = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            fleet.add(container(randomId(random), "limbo-" + (i % Math.max(1, baseNames)), i));
+        }
+        return fleet;
+    }
+
+    /**
+     * Returns a copy of the fleet where {@code churn} of the containers were replaced by new
+     * containers with the same base names, as after a rolling restart.
+     */
+    static List<ContainerSummary> churn(List<ContainerSummary> fleet, double churn, long seed) {
+        Random random = new Random(seed);
+        int replaced = (int) Math.round(fleet.size() * churn);
+        List<ContainerSummary> next = new ArrayList<>(fleet.size());
+        for (int i = 0; i < fleet.size(); i++) {
+            ContainerSummary original = fleet.get(i);
+            next.add(i < replaced
+                    ? container(randomId(random), original.label(NAME_LABEL), i)
+                    : original);
+        }
+        return next;
+    }
+
+    /**
+     * A full {@code /containers/json} body for the fleet, including the fields DockBridge
+     * never reads (mounts, network settings, host config), as the Engine API returns them.
+     */
+    static byte[] listingJson(int size, int baseNames, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, Object>> listing = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            listing.add(engineJson(randomId(random), "limbo-" + (i % Math.max(1, baseNames)), i));
+        }
+        try {
+            return MAPPER.writeValueAsString(listing).getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static ContainerSummary container(String id, String baseName, int index) {
+        return new ContainerSummary(
+                id,
+                List.of("/" + baseName + "-" + id.substring(0, 6) + "-" + index),
+                Map.of(
+                        "net.uebliche.dockbridge.autoregister", "true",
+                        NAME_LABEL, baseName,
+                        PORT_LABEL, "25565"),
+                List.of(new ContainerSummary.Port(25565, -1, null, "tcp")),
+                "running",
+                "Up 5 minutes",
+                Map.of("network_default", "172.18." + (index / 250) + "." + (index % 250 + 2)));
+    }
+
+    private static Map<String, Object> engineJson(String id, String baseName, int index) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Id", id);
+        json.put("Names", List.of("/" + baseName + "-" + id.substring(0, 6) + "-" + index));
+        json.put("Image", "itzg/minecraft-server:java21");
+        json.put("ImageID", "sha256:" + id);
+        json.put("Command", "/start");
+        json.put("Created", 1_760_000_000L + index);
+        json.put("Ports", List.of(Map.of("PrivatePort", 25565, "Type", "tcp")));
+        json.put("Labels", Map.of(
+                "net.uebliche.dockbridge.autoregister", "true",
+                NAME_LABEL, baseName,
+                PORT_LABEL, "25565",
+                "com.docker.compose.project", "network",
+                "com.docker.compose.service", baseName,
+                "com.docker.compose.version", "2.29.1",
+                "org.opencontainers.image.source", "https://github.com/itzg/docker-minecraft-server"));
+        json.put("State", "running");
+        json.put("Status", "Up 5 minutes (healthy)");
+        json.put("HostConfig", Map.of("NetworkMode", "network_default"));
+        Map<String, Object> network = new LinkedHashMap<>();
+        network.put("IPAMConfig", null);
+        network.put("Links", null);
+        network.put("Aliases", null);
+        network.put("MacAddress", "02:42:ac:12:00:02");
+        network.put("NetworkID", "5d1c4f3a" + id.substring(0, 56));
+        network.put("EndpointID", id);
+        network.put("Gateway", "172.18.0.1");
+        network.put("IPAddress", "172.18." + (index / 250) + "." + (index % 250 + 2));
+        network.put("IPPrefixLen", 16);
+        network.put("IPv6Gateway", "");
+        network.put("GlobalIPv6Address", "");
+        network.put("GlobalIPv6PrefixLen", 0);
+        network.put("DriverOpts", null);
+        json.put("NetworkSettings", Map.of("Networks", Map.of("network_default", network)));
+        json.put("Mounts", List.of(Map.of(
+                "Type", "volume",
+                "Name", baseName + "-data-" + index,
+                "Source", "/var/lib/docker/volumes/" + baseName + "-data-" + index + "/_data",
+                "Destination", "/data",
+                "Driver", "local",
+                "Mode", "z",
+                "RW", true,
+                "Propagation", "")));
+        return json;
+    }
+
+    private static String randomId(Random random) {
+        StringBuilder builder = new StringBuilder(64);
+        for (int i = 0; i < 4; i++) {
+            builder.append(String.format("%016x", random.nextLong()));
+        }
+        return builder.toString();
+    }
+}
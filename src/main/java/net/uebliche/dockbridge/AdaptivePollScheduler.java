@@ -0,0 +1,182 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Schedules safety-net scans with an interval that follows fleet churn. A tick whose previous
+ * scan registered, updated or unregistered servers halves the interval toward
+ * {@code docker.poll.floor_seconds}; a quiet tick stretches it by half toward
+ * {@code docker.poll.ceiling_seconds}. Only changes the polled scans found count: while the
+ * event stream delivers every change, polls find nothing and the interval backs off. Each
+ * delay gets up to {@code docker.poll.jitter_percent} of random spread so proxy replicas
+ * sharing a daemon drift apart.
+ */
+public final class AdaptivePollScheduler {
+
+    private static final double SPEED_UP = 0.5;
+    private static final double BACK_OFF = 1.5;
+
+    private final ProxyServer server;
+    private final Object plugin;
+    private final Logger logger;
+    private final DockerService dockerService;
+    private volatile long floorMillis;
+    private volatile long ceilingMillis;
+    private volatile int jitterPercent;
+    private volatile long intervalMillis;
+    private volatile long nextDelayMillis;
+    private volatile String reason = "initial interval";
+    private volatile int quietTicks = 0;
+    private volatile ScheduledTask task;
+    private volatile boolean running = false;
+    private long lastChangeCount;
+
+    public AdaptivePollScheduler(ProxyServer server, Object plugin, Logger logger, DockBridgeConfig config, DockerService dockerService) {
+        this.server = server;
+        this.plugin = plugin;
+        this.logger = logger;
+        this.dockerService = dockerService;
+        applyConfig(config);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        lastChangeCount = changeCount();
+        logger.info("Scheduled Docker refresh every {}s, adapting between {}s and {}s with {}% jitter.",
+                intervalMillis / 1000L, floorMillis / 1000L, ceilingMillis / 1000L, jitterPercent);
+        schedule();
+    }
+
+    /**
+     * Starts over from the interval of a reloaded configuration and reschedules the next tick
+     * with it.
+     */
+    public synchronized void reconfigure(DockBridgeConfig next) {
+        applyConfig(next);
+        quietTicks = 0;
+        reason = "configuration reloaded";
+        if (!running) {
+            return;
+        }
+        ScheduledTask current = task;
+        if (current != null) {
+            current.cancel();
+        }
+        logger.info("Rescheduled Docker refresh every {}s, adapting between {}s and {}s with {}% jitter.",
+                intervalMillis / 1000L, floorMillis / 1000L, ceilingMillis / 1000L, jitterPercent);
+        schedule();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        ScheduledTask current = task;
+        if (current != null) {
+            current.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Base interval before jitter.
+     */
+    public Duration interval() {
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    /**
+     * Delay actually used for the next tick, jitter included.
+     */
+    public Duration nextDelay() {
+        return Duration.ofMillis(nextDelayMillis);
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    private void tick() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            adapt();
+        }
+        dockerService.pollContainers();
+        synchronized (this) {
+            if (running) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Looks at the registration changes polled scans made since the previous tick; those of
+     * event-driven scans and re-lists do not count.
+     */
+    private void adapt() {
+        long changes = changeCount();
+        long delta = changes - lastChangeCount;
+        lastChangeCount = changes;
+        long previous = intervalMillis;
+        if (delta > 0) {
+            quietTicks = 0;
+            intervalMillis = clamp((long) (previous * SPEED_UP));
+            reason = "churn: " + delta + " change(s) found by the previous poll";
+        } else {
+            quietTicks++;
+            intervalMillis = clamp((long) (previous * BACK_OFF));
+            reason = intervalMillis == ceilingMillis
+                    ? "stable for " + quietTicks + " scan(s), at ceiling"
+                    : "stable for " + quietTicks + " scan(s)";
+        }
+        if (intervalMillis != previous && dockerService.getConfig().logScan()) {
+            logger.info("Docker refresh interval {}s -> {}s ({}).", previous / 1000L, intervalMillis / 1000L, reason);
+        }
+    }
+
+    private void schedule() {
+        long delay = withJitter(intervalMillis);
+        nextDelayMillis = delay;
+        task = server.getScheduler()
+                .buildTask(plugin, this::tick)
+                .delay(Duration.ofMillis(delay))
+                .schedule();
+    }
+
+    private void applyConfig(DockBridgeConfig config) {
+        long floor = Math.max(1, config.dockerPollFloorSeconds()) * 1000L;
+        long ceiling = Math.max(1, config.dockerPollCeilingSeconds()) * 1000L;
+        floorMillis = Math.min(floor, ceiling);
+        ceilingMillis = Math.max(floor, ceiling);
+        jitterPercent = Math.max(0, Math.min(50, config.dockerPollJitterPercent()));
+        int initialSeconds = config.dockerEventsEnabled()
+                ? config.dockerEventsReconcileIntervalSeconds()
+                : config.dockerPollIntervalSeconds();
+        intervalMillis = clamp(initialSeconds * 1000L);
+        nextDelayMillis = intervalMillis;
+    }
+
+    private long withJitter(long base) {
+        if (jitterPercent == 0) {
+            return base;
+        }
+        long spread = base * jitterPercent / 100L;
+        return Math.max(floorMillis / 2, base + ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+    }
+
+    private long clamp(long millis) {
+        return Math.max(floorMillis, Math.min(ceilingMillis, millis));
+    }
+
+    private long changeCount() {
+        return dockerService.getPolledChangeCount();
+    }
+}
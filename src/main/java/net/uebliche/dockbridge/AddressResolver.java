@@ -0,0 +1,261 @@
+package net.uebliche.dockbridge;
+
+import org.slf4j.Logger;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds the address a container's server is registered with, following
+ * {@code docker.address.strategy}:
+ * <ul>
+ *     <li>{@code dns}: the container name, resolved through a cache that keeps each lookup for
+ *     {@code docker.address.dns_ttl_seconds}. The names a scan needs are looked up together
+ *     and concurrently before it is planned, instead of one blocking lookup per container.</li>
+ *     <li>{@code network}: the container's IP on {@code docker.address.network}, read from the
+ *     listing, so nothing is looked up. Containers not attached to it fall back to dns.</li>
+ *     <li>{@code unresolved}: the container name as an unresolved address; Velocity resolves
+ *     it when a player connects.</li>
+ * </ul>
+ * A name that does not resolve in time is registered unresolved, as Velocity would do anyway.
+ */
+final class AddressResolver {
+
+    private final Logger logger;
+    private final Strategy strategy;
+    private final String network;
+    private final long ttlNanos;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    private final Map<String, Lookup> cache = new ConcurrentHashMap<>();
+
+    AddressResolver(Logger logger, DockBridgeConfig config, ExecutorService executor) {
+        this.logger = logger;
+        this.strategy = Strategy.from(config.dockerAddressStrategy(), logger);
+        this.network = config.dockerAddressNetwork();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, config.dockerAddressDnsTtlSeconds()));
+        this.timeoutMillis = Math.max(1, config.dockerCallTimeoutMillis());
+        this.executor = executor;
+    }
+
+    Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * The host a container is registered under: its IP with the network strategy, otherwise
+     * the given container name.
+     */
+    String host(ContainerSummary container, String name) {
+        if (strategy == Strategy.NETWORK) {
+            String ip = container.networkAddress(network);
+            if (ip != null) {
+                return ip;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Value the container fingerprint has to cover so an address change replans the
+     * container; null when the address only depends on the container name.
+     */
+    String fingerprintPart(ContainerSummary container) {
+        return strategy == Strategy.NETWORK ? container.networkAddress(network) : null;
+    }
+
+    /**
+     * Whether {@link #prefetch} has anything to look up or wait for among these hosts.
+     * Never blocks.
+     */
+    boolean needsLookup(Collection<String> hosts) {
+        if (strategy == Strategy.UNRESOLVED) {
+            return false;
+        }
+        long now = System.nanoTime();
+        for (String host : hosts) {
+            if (isLiteral(host)) {
+                continue;
+            }
+            Lookup lookup = cache.get(host);
+            if (lookup == null || lookup.expired(now) || !lookup.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks up every host that is not cached yet, concurrently on virtual threads, and waits
+     * at most {@code docker.call_timeout_millis} for all of them. Lookups still running after
+     * that finish in the background and serve the next scan. Blocks, so callers must not hold
+     * a monitor.
+     */
+    void prefetch(Collection<String> hosts) {
+        if (strategy == Strategy.UNRESOLVED || hosts.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        cache.values().removeIf(lookup -> lookup.isDone() && lookup.expired(now));
+        List<Lookup> pending = null;
+        for (String host : hosts) {
+            if (isLiteral(host)) {
+                continue;
+            }
+            Lookup lookup = cache.get(host);
+            if (lookup != null && !lookup.expired(now)) {
+                if (!lookup.isDone()) {
+                    pending = add(pending, lookup);
+                }
+                continue;
+            }
+            Lookup fresh = new Lookup(now + ttlNanos);
+            if (lookup == null ? cache.putIfAbsent(host, fresh) != null : !cache.replace(host, lookup, fresh)) {
+                continue;
+            }
+            try {
+                fresh.future = executor.submit(() -> resolve(host));
+            } catch (RejectedExecutionException ex) {
+                cache.remove(host, fresh);
+                return;
+            }
+            pending = add(pending, fresh);
+        }
+        if (pending == null) {
+            return;
+        }
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        int late = 0;
+        for (Lookup lookup : pending) {
+            Future<InetAddress> future = lookup.future;
+            if (future == null) {
+                continue;
+            }
+            try {
+                future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                late++;
+            } catch (ExecutionException ex) {
+                // resolve() reports failures as a null address.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (late > 0) {
+            logger.warn("{} of {} DNS lookup(s) did not finish within {}ms; registering those servers unresolved for now.",
+                    late, pending.size(), timeoutMillis);
+        }
+    }
+
+    /**
+     * The address to register. Never blocks: DNS results come from {@link #prefetch}.
+     *
+     * @throws IllegalArgumentException if the port is out of range.
+     */
+    InetSocketAddress address(String host, int port) {
+        if (strategy == Strategy.UNRESOLVED) {
+            return InetSocketAddress.createUnresolved(host, port);
+        }
+        if (isLiteral(host)) {
+            return new InetSocketAddress(host, port);
+        }
+        Lookup lookup = cache.get(host);
+        InetAddress resolved = lookup == null ? null : lookup.resolved();
+        return resolved == null ? InetSocketAddress.createUnresolved(host, port) : new InetSocketAddress(resolved, port);
+    }
+
+    private static InetAddress resolve(String host) {
+        try {
+            return InetAddress.getByName(host);
+        } catch (UnknownHostException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    private static List<Lookup> add(List<Lookup> list, Lookup lookup) {
+        List<Lookup> target = list == null ? new ArrayList<>() : list;
+        target.add(lookup);
+        return target;
+    }
+
+    /**
+     * IPv4 or IPv6 literals need no lookup.
+     */
+    private static boolean isLiteral(String host) {
+        if (host.indexOf(':') >= 0) {
+            return true;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return !host.isEmpty();
+    }
+
+    private static final class Lookup {
+
+        private final long expiresAt;
+        private volatile Future<InetAddress> future;
+
+        private Lookup(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        private boolean isDone() {
+            Future<InetAddress> current = future;
+            return current != null && current.isDone();
+        }
+
+        private InetAddress resolved() {
+            Future<InetAddress> current = future;
+            if (current == null || !current.isDone() || current.isCancelled()) {
+                return null;
+            }
+            try {
+                return current.get();
+            } catch (InterruptedException | ExecutionException ex) {
+                return null;
+            }
+        }
+    }
+
+    enum Strategy {
+        DNS,
+        NETWORK,
+        UNRESOLVED;
+
+        static Strategy from(String raw, Logger logger) {
+            if (raw == null) {
+                return DNS;
+            }
+            return switch (raw.trim().toLowerCase()) {
+                case "dns" -> DNS;
+                case "network" -> NETWORK;
+                case "unresolved" -> UNRESOLVED;
+                default -> {
+                    logger.warn("Unknown address strategy '{}', defaulting to 'dns'.", raw);
+                    yield DNS;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sizes replica groups to their players. A group is the servers sharing a base name with a
+ * template container, one carrying the min, max and target players labels. Every
+ * {@code autoscale.check_interval_seconds} a group gets enough replicas that they hold at most
+ * the target on average, within min and max. New replicas are copies of the template, named
+ * after it through its name label, and are registered by the next scan like any other
+ * container.
+ * <p>
+ * A replica is removed only when the rest would stay {@code autoscale.hysteresis_percent}
+ * below the target, one per {@code autoscale.scale_in_cooldown_seconds}, and only replicas
+ * DockBridge created: the emptiest is drained if it still has players, then stopped and
+ * removed once empty. With {@code drain.enabled=false} its players cannot be moved, so it is
+ * stopped with them after {@code drain.timeout_seconds}. Only players on this proxy are
+ * counted, so a group should be scaled by one proxy.
+ */
+public final class Autoscaler {
+
+    /**
+     * How long a created replica counts towards its group before the scan registers it, which
+     * can take a while behind the health gate.
+     */
+    private static final long PENDING_TIMEOUT_MINUTES = 5L;
+
+    private final ProxyServer server;
+    private final Object plugin;
+    private final Logger logger;
+    private volatile DockBridgeConfig config;
+    private final DockerService dockerService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Group> groups = new ConcurrentHashMap<>();
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+    private ScheduledTask task;
+
+    public Autoscaler(ProxyServer server, Object plugin, Logger logger, DockBridgeConfig config, DockerService dockerService) {
+        this.server = server;
+        this.plugin = plugin;
+        this.logger = logger;
+        this.config = config;
+        this.dockerService = dockerService;
+    }
+
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        int interval = Math.max(1, config.autoscaleCheckIntervalSeconds());
+        task = server.getScheduler()
+                .buildTask(plugin, this::check)
+                .delay(Duration.ofSeconds(interval))
+                .repeat(Duration.ofSeconds(interval))
+                .schedule();
+    }
+
+    /**
+     * Switches to a reloaded configuration, rescheduling the check if its interval changed.
+     */
+    public synchronized void reconfigure(DockBridgeConfig next) {
+        DockBridgeConfig previous = config;
+        config = next;
+        if (task != null && previous.autoscaleCheckIntervalSeconds() != next.autoscaleCheckIntervalSeconds()) {
+            task.cancel();
+            task = null;
+            start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        executor.shutdownNow();
+    }
+
+    private void check() {
+        Map<String, DockerService.Registration> templates = new HashMap<>();
+        Map<String, List<DockerService.Registration>> members = new HashMap<>();
+        for (DockerService.Registration registration : dockerService.getState().registrations()) {
+            if (dockerService.isUnverified(registration.serverName())) {
+                continue;
+            }
+            members.computeIfAbsent(registration.baseName(), ignored -> new ArrayList<>()).add(registration);
+            if (parseLimits(registration) != null) {
+                // Several templates in one group: the lowest container id wins, so the choice is stable.
+                templates.merge(registration.baseName(), registration,
+                        (a, b) -> a.containerId().compareTo(b.containerId()) <= 0 ? a : b);
+            }
+        }
+        groups.keySet().retainAll(templates.keySet());
+        long now = System.nanoTime();
+        templates.forEach((baseName, template) -> evaluate(baseName, template, members.get(baseName), now));
+    }
+
+    private void evaluate(String baseName, DockerService.Registration template, List<DockerService.Registration> members, long now) {
+        Limits limits = parseLimits(template);
+        Group group = groups.computeIfAbsent(baseName, ignored -> new Group(now));
+        if (group.busy.get()) {
+            return;
+        }
+        group.pending.entrySet().removeIf(pending -> now - pending.getValue() >= TimeUnit.MINUTES.toNanos(PENDING_TIMEOUT_MINUTES)
+                || members.stream().anyMatch(member -> member.containerId().equals(pending.getKey())));
+
+        List<DockerService.Registration> live = new ArrayList<>();
+        for (DockerService.Registration member : members) {
+            String name = member.serverName();
+            if (!member.cold() && !dockerService.isSuspending(name) && !dockerService.isRetiring(name)) {
+                live.add(member);
+            }
+        }
+        int players = live.stream().mapToInt(member -> playersOn(member.serverName())).sum();
+        int replicas = live.size() + group.pending.size();
+        int desired = Math.min(limits.max(), Math.max(limits.min(), (players + limits.target() - 1) / limits.target()));
+
+        if (desired > replicas) {
+            group.undrained = null;
+            if (now - group.lastScaleOut >= TimeUnit.SECONDS.toNanos(Math.max(0, config.autoscaleScaleOutCooldownSeconds()))) {
+                submit(group, () -> scaleOut(baseName, template, group, desired - replicas, desired, players));
+            }
+            return;
+        }
+        int hysteresis = Math.min(100, Math.max(0, config.autoscaleHysteresisPercent()));
+        boolean surplus = (long) players * 100 <= (long) (replicas - 1) * limits.target() * (100 - hysteresis);
+        boolean cooledDown = now - group.lastChange >= TimeUnit.SECONDS.toNanos(Math.max(0, config.autoscaleScaleInCooldownSeconds()));
+        if (replicas > limits.min() && group.pending.isEmpty() && cooledDown && (replicas > limits.max() || surplus)) {
+            scaleIn(baseName, group, live, players, now);
+        } else {
+            group.undrained = null;
+        }
+    }
+
+    private void scaleOut(String baseName, DockerService.Registration template, Group group, int count, int desired, int players)
+            throws Exception {
+        long now = System.nanoTime();
+        group.lastScaleOut = now;
+        group.lastChange = now;
+        for (int i = 0; i < count; i++) {
+            String containerName = containerName(baseName);
+            String containerId = dockerService.scaleOut(template, containerName, replicaLabels(template));
+            group.pending.put(containerId, System.nanoTime());
+            logger.info("Scaling {} out to {} replica(s) for {} player(s): created container {} ({}) from template {}.",
+                    baseName, desired, players, containerName, containerId, template.containerId());
+        }
+    }
+
+    /**
+     * Removes the emptiest replica DockBridge created, or starts draining it if it still has
+     * players; the next check removes it once the drain has moved them. Without a drainer the
+     * replica is removed with its players once it has been the emptiest for the drain timeout.
+     */
+    private void scaleIn(String baseName, Group group, List<DockerService.Registration> live, int players, long now) {
+        String scaledFromLabel = config.autoRegisterScaledFromLabel();
+        Undrained undrained = group.undrained;
+        DockerService.Registration emptiest = null;
+        int fewest = Integer.MAX_VALUE;
+        for (DockerService.Registration member : live) {
+            if (member.labels().get(scaledFromLabel) == null) {
+                continue;
+            }
+            int count = playersOn(member.serverName());
+            // On a tie, stay with the replica already waiting out the drain timeout.
+            if (count < fewest || count == fewest && undrained != null && undrained.serverName().equals(member.serverName())) {
+                emptiest = member;
+                fewest = count;
+            }
+        }
+        if (emptiest == null) {
+            group.undrained = null;
+            return;
+        }
+        DockerService.Registration replica = emptiest;
+        String name = replica.serverName();
+        if (fewest > 0) {
+            Optional<ServerDrainer> drainer = dockerService.getDrainer();
+            if (drainer.isPresent()) {
+                if (!dockerService.isDraining(name)) {
+                    server.getServer(name).ifPresent(registered -> drainer.get().drain(registered, baseName, "scaling in"));
+                }
+                return;
+            }
+            long timeout = Math.max(1, config.drainTimeoutSeconds());
+            if (undrained == null || !undrained.serverName().equals(name)) {
+                group.undrained = new Undrained(name, now);
+                logger.info("Scaling {} in: drain is disabled, so server {} is stopped in {}s with the {} player(s) still on it.",
+                        baseName, name, timeout, fewest);
+                return;
+            }
+            if (now - undrained.since() < TimeUnit.SECONDS.toNanos(timeout)) {
+                return;
+            }
+        }
+        boolean withPlayers = fewest > 0;
+        submit(group, () -> {
+            if (dockerService.scaleIn(replica, () -> withPlayers || playersOn(name) == 0)) {
+                group.undrained = null;
+                group.lastChange = System.nanoTime();
+                logger.info("Scaling {} in to {} replica(s) for {} player(s): removed container {} of server {}.",
+                        baseName, live.size() - 1, players, replica.containerId(), name);
+            }
+        });
+    }
+
+    private void submit(Group group, ScalingAction action) {
+        if (!group.busy.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    action.run();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ex) {
+                    logger.warn("Autoscaling failed: {}", DockerService.summarizeException(ex));
+                } finally {
+                    group.busy.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            group.busy.set(false);
+        }
+    }
+
+    /**
+     * The template's labels with its name label pinned to the group's base name, so the copy
+     * joins the group, and the scaling labels swapped for the scaled-from label, so it is not a
+     * template itself. Compose labels are dropped; Compose would otherwise adopt the copy.
+     */
+    private Map<String, String> replicaLabels(DockerService.Registration template) {
+        Map<String, String> labels = new HashMap<>(template.labels());
+        labels.remove(config.autoRegisterScaleMinLabel());
+        labels.remove(config.autoRegisterScaleMaxLabel());
+        labels.remove(config.autoRegisterScaleTargetLabel());
+        labels.keySet().removeIf(key -> key.startsWith("com.docker.compose."));
+        labels.put(config.autoRegisterNameLabel(), template.baseName());
+        labels.put(config.autoRegisterScaledFromLabel(), template.containerId());
+        return labels;
+    }
+
+    private static String containerName(String baseName) {
+        String stem = baseName.replaceAll("[^a-zA-Z0-9_.-]", "-");
+        if (stem.isEmpty() || !Character.isLetterOrDigit(stem.charAt(0))) {
+            stem = "replica" + stem;
+        }
+        return stem + "-" + String.format(Locale.ROOT, "%06x", ThreadLocalRandom.current().nextInt(1 << 24));
+    }
+
+    private int playersOn(String serverName) {
+        return server.getServer(serverName)
+                .map(registered -> registered.getPlayersConnected().size())
+                .orElse(0);
+    }
+
+    private Limits parseLimits(DockerService.Registration registration) {
+        Map<String, String> labels = registration.labels();
+        String min = labels.get(config.autoRegisterScaleMinLabel());
+        String max = labels.get(config.autoRegisterScaleMaxLabel());
+        String target = labels.get(config.autoRegisterScaleTargetLabel());
+        if (min == null && max == null && target == null) {
+            return null;
+        }
+        try {
+            if (min != null && max != null && target != null) {
+                Limits limits = new Limits(Integer.parseInt(min.trim()), Integer.parseInt(max.trim()), Integer.parseInt(target.trim()));
+                if (limits.min() >= 0 && limits.max() >= Math.max(1, limits.min()) && limits.target() >= 1) {
+                    return limits;
+                }
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below.
+        }
+        if (warned.add(registration.containerId() + " " + min + " " + max + " " + target)) {
+            logger.warn("Invalid scaling labels on container {} (min={}, max={}, target={}); it needs all three with "
+                    + "0 <= min <= max, max >= 1 and target >= 1. Not scaling its group.", registration.containerId(), min, max, target);
+        }
+        return null;
+    }
+
+    /**
+     * Replica bounds and players per replica a template asks for.
+     */
+    private record Limits(int min, int max, int target) {
+    }
+
+    /**
+     * A replica chosen for removal while it still had players and no drainer could move them.
+     */
+    private record Undrained(String serverName, long since) {
+    }
+
+    @FunctionalInterface
+    private interface ScalingAction {
+        void run() throws Exception;
+    }
+
+    private static final class Group {
+
+        private final AtomicBoolean busy = new AtomicBoolean(false);
+        private final Map<String, Long> pending = new ConcurrentHashMap<>();
+        private volatile long lastScaleOut;
+        private volatile long lastChange;
+        private volatile Undrained undrained;
+
+        private Group(long now) {
+            // Scale out right away, but give players a full cooldown to reconnect after a restart
+            // before removing replicas.
+            this.lastScaleOut = now - TimeUnit.DAYS.toNanos(1);
+            this.lastChange = now;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package net.uebliche.dockbridge;
+
+import org.slf4j.Logger;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Probes every registered backend with a Minecraft status ping on virtual threads. A backend
+ * only joins the attempt-connection order after its first successful probe and leaves it
+ * again after {@code health.max_failures} consecutive failures. Concurrency is capped by
+ * {@code health.probe.max_concurrent} and each backend has at most one probe in flight.
+ */
+public final class BackendProber {
+
+    private final Logger logger;
+    private final DockBridgeConfig config;
+    private final DockerService dockerService;
+    private final Map<String, BackendHealth> backends = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public BackendProber(Logger logger, DockBridgeConfig config, DockerService dockerService) {
+        this.logger = logger;
+        this.config = config;
+        this.dockerService = dockerService;
+        this.permits = new Semaphore(Math.max(1, config.healthProbeMaxConcurrent()));
+    }
+
+    /**
+     * Starts tracking a registration. New backends and backends whose address changed are
+     * held back from routing until a probe succeeds.
+     */
+    void track(DockerService.Registration registration) {
+        BackendHealth previous = backends.get(registration.serverName());
+        if (previous != null && previous.sameAddress(registration)) {
+            previous.registration = registration;
+            if (previous.state == ProbeState.HEALTHY) {
+                dockerService.setRoutable(registration.serverName(), true);
+            }
+            return;
+        }
+        BackendHealth health = new BackendHealth(registration);
+        backends.put(registration.serverName(), health);
+        if (previous != null) {
+            dockerService.setRoutable(registration.serverName(), false);
+        }
+        submit(health);
+    }
+
+    void forget(String serverName) {
+        if (backends.remove(serverName) != null) {
+            dockerService.setRoutable(serverName, false);
+        }
+    }
+
+    /**
+     * Schedules one probe for every tracked backend that has none in flight.
+     */
+    public void probeAll() {
+        for (BackendHealth health : backends.values()) {
+            submit(health);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Optional<BackendHealth> health(String serverName) {
+        return Optional.ofNullable(backends.get(serverName));
+    }
+
+    private void submit(BackendHealth health) {
+        if (!health.inFlight.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> probe(health));
+        } catch (RejectedExecutionException ex) {
+            health.inFlight.set(false);
+        }
+    }
+
+    private void probe(BackendHealth health) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            health.inFlight.set(false);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            DockerService.Registration registration = health.registration;
+            try {
+                long micros = MinecraftStatusPing.ping(registration.host(), registration.port(), config.healthProbeTimeoutMillis());
+                onSuccess(health, micros);
+            } catch (Exception ex) {
+                onFailure(health, DockerService.summarizeException(ex));
+            }
+        } finally {
+            permits.release();
+            health.inFlight.set(false);
+        }
+    }
+
+    private void onSuccess(BackendHealth health, long micros) {
+        health.histogram.recordMicros(micros);
+        health.recentMicros = health.recentMicros < 0 ? micros : (health.recentMicros * 7 + micros) / 8;
+        health.failureStreak = 0;
+        health.lastError = null;
+        health.lastProbe = Instant.now();
+        if (health.state != ProbeState.HEALTHY && backends.get(health.registration.serverName()) == health) {
+            ProbeState previous = health.state;
+            health.state = ProbeState.HEALTHY;
+            dockerService.setRoutable(health.registration.serverName(), true);
+            if (previous == ProbeState.UNHEALTHY) {
+                logger.info("Backend {} answers status pings again; routing players to it.", health.registration.serverName());
+            }
+        }
+    }
+
+    private void onFailure(BackendHealth health, String reason) {
+        health.failureStreak++;
+        health.lastError = reason;
+        health.lastProbe = Instant.now();
+        if (health.failureStreak < Math.max(1, config.healthMaxFailures()) || health.state == ProbeState.UNHEALTHY) {
+            return;
+        }
+        boolean wasHealthy = health.state == ProbeState.HEALTHY;
+        health.state = ProbeState.UNHEALTHY;
+        if (backends.get(health.registration.serverName()) != health) {
+            return;
+        }
+        dockerService.setRoutable(health.registration.serverName(), false);
+        if (wasHealthy) {
+            logger.warn("Backend {} failed {} status ping(s) in a row ({}); removed from connection order.",
+                    health.registration.serverName(), health.failureStreak, reason);
+        }
+    }
+
+    public enum ProbeState {
+        PENDING,
+        HEALTHY,
+        UNHEALTHY
+    }
+
+    /**
+     * Probe results for one backend. Fields are written by the probing virtual thread and
+     * read by commands; visibility is per field, which is all the status output needs.
+     */
+    public static final class BackendHealth {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+        private volatile DockerService.Registration registration;
+        private volatile ProbeState state = ProbeState.PENDING;
+        private volatile int failureStreak = 0;
+        private volatile long recentMicros = -1L;
+        private volatile String lastError;
+        private volatile Instant lastProbe;
+
+        private BackendHealth(DockerService.Registration registration) {
+            this.registration = registration;
+        }
+
+        private boolean sameAddress(DockerService.Registration other) {
+            return registration.port() == other.port() && registration.host().equalsIgnoreCase(other.host());
+        }
+
+        public ProbeState state() {
+            return state;
+        }
+
+        public int failureStreak() {
+            return failureStreak;
+        }
+
+        public long p50Micros() {
+            return histogram.percentileMicros(50.0);
+        }
+
+        public long p99Micros() {
+            return histogram.percentileMicros(99.0);
+        }
+
+        /**
+         * @return exponentially weighted recent probe latency, or -1 before the first success.
+         */
+        public long recentMicros() {
+            return recentMicros;
+        }
+
+        public Optional<String> lastError() {
+            return Optional.ofNullable(lastError);
+        }
+
+        public Optional<Instant> lastProbe() {
+            return Optional.ofNullable(lastProbe);
+        }
+    }
+}
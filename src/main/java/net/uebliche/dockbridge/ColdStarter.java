@@ -0,0 +1,209 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.event.EventTask;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.player.ServerPreConnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts cold servers on demand. A connection to a server whose container is stopped or
+ * paused, or is being suspended for idling, is held while the container is started or
+ * unpaused, until the next scan lists it as running and the backend answers a status ping;
+ * then it proceeds to that server. Connections to the same cold server share one wake. If the
+ * server is not up within {@code cold.start_timeout_seconds}, the player is sent to a running
+ * replica with the same base name or to {@code cold.fallback_server}, and denied if neither
+ * exists.
+ */
+public final class ColdStarter {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 2_000L;
+
+    private final ProxyServer server;
+    private final Logger logger;
+    private final DockBridgeConfig config;
+    private final DockerService dockerService;
+    private final ReplicaBalancer balancer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, CompletableFuture<Boolean>> wakes = new ConcurrentHashMap<>();
+
+    public ColdStarter(ProxyServer server, Logger logger, DockBridgeConfig config, DockerService dockerService, ReplicaBalancer balancer) {
+        this.server = server;
+        this.logger = logger;
+        this.config = config;
+        this.dockerService = dockerService;
+        this.balancer = balancer;
+    }
+
+    /**
+     * Servers currently being woken.
+     */
+    public int waking() {
+        return wakes.size();
+    }
+
+    /**
+     * Whether a connection is waiting for this server to wake.
+     */
+    public boolean isWaking(String serverName) {
+        return wakes.containsKey(serverName);
+    }
+
+    @Subscribe
+    public EventTask onServerPreConnect(ServerPreConnectEvent event) {
+        ServerPreConnectEvent.ServerResult result = event.getResult();
+        Optional<RegisteredServer> target = result.getServer();
+        if (!result.isAllowed() || target.isEmpty()) {
+            return null;
+        }
+        String name = target.get().getServerInfo().getName();
+        Optional<DockerService.Registration> registration = dockerService.getState().registration(name);
+        if (registration.isEmpty() || !(registration.get().cold() || dockerService.isSuspending(name))) {
+            return null;
+        }
+        DockerService.Registration cold = registration.get();
+        tell(event.getPlayer(), Component.text("Starting " + name + ", this can take a moment...", NamedTextColor.GRAY));
+        return EventTask.resumeWhenComplete(wake(cold).thenAccept(ready -> {
+            Optional<RegisteredServer> woken = ready ? server.getServer(name) : Optional.empty();
+            if (woken.isPresent()) {
+                event.setResult(ServerPreConnectEvent.ServerResult.allowed(woken.get()));
+            } else {
+                fallBack(event, cold);
+            }
+        }));
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletableFuture<Boolean> wake(DockerService.Registration cold) {
+        String name = cold.serverName();
+        CompletableFuture<Boolean> created = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = wakes.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                boolean ready = false;
+                try {
+                    ready = awaitReady(cold);
+                } finally {
+                    wakes.remove(name, created);
+                    created.complete(ready);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            wakes.remove(name, created);
+            created.complete(false);
+        }
+        return created;
+    }
+
+    /**
+     * Wakes the container, then waits until the server is registered as running and answers
+     * a status ping. Asks for another scan every couple of seconds while the server is still
+     * listed as cold, in case the start event was missed or events are disabled.
+     */
+    private boolean awaitReady(DockerService.Registration cold) {
+        String name = cold.serverName();
+        int timeoutSeconds = Math.max(1, config.coldStartTimeoutSeconds());
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        // A server caught mid-suspension is woken once the scan after the pause or stop lists it.
+        while (dockerService.isSuspending(name) && System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(Math.max(50L, config.coldPingIntervalMillis()));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        logger.info("Player connecting to cold server {}; waking container {}.", name, cold.containerId());
+        try {
+            dockerService.wake(dockerService.getState().registration(name).orElse(cold));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception ex) {
+            logger.warn("Could not wake cold server {}: {}", name, DockerService.summarizeException(ex));
+            return false;
+        }
+        long interval = Math.max(50L, config.coldPingIntervalMillis());
+        long nextRefresh = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REFRESH_INTERVAL_MILLIS);
+        String lastError = "still listed as stopped";
+        while (System.nanoTime() - deadline < 0) {
+            Optional<DockerService.Registration> current = dockerService.getState().registration(name);
+            if (current.isEmpty()) {
+                logger.warn("Cold server {} was unregistered while starting.", name);
+                return false;
+            }
+            if (current.get().cold()) {
+                if (System.nanoTime() - nextRefresh >= 0) {
+                    dockerService.refreshContainers();
+                    nextRefresh = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REFRESH_INTERVAL_MILLIS);
+                }
+            } else {
+                try {
+                    MinecraftStatusPing.ping(current.get().host(), current.get().port(), config.healthProbeTimeoutMillis());
+                    logger.info("Cold server {} is up after {}ms.", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                    return true;
+                } catch (IOException | IllegalArgumentException ex) {
+                    lastError = DockerService.summarizeException(ex);
+                }
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        logger.warn("Cold server {} did not come up within {}s ({}).", name, timeoutSeconds, lastError);
+        return false;
+    }
+
+    private void fallBack(ServerPreConnectEvent event, DockerService.Registration cold) {
+        Optional<RegisteredServer> fallback = balancer.chooseReplica(cold.baseName());
+        if (fallback.isEmpty() && !config.coldFallbackServer().isEmpty()) {
+            fallback = server.getServer(config.coldFallbackServer())
+                    .filter(candidate -> dockerService.getState().registration(candidate.getServerInfo().getName())
+                            .map(registration -> !registration.cold())
+                            .orElse(true));
+        }
+        Player player = event.getPlayer();
+        if (fallback.isPresent() && !fallback.get().getServerInfo().getName().equals(cold.serverName())) {
+            tell(player, Component.text(cold.serverName() + " is not ready yet; sending you to "
+                    + fallback.get().getServerInfo().getName() + ".", NamedTextColor.YELLOW));
+            event.setResult(ServerPreConnectEvent.ServerResult.allowed(fallback.get()));
+            return;
+        }
+        tell(player, Component.text(cold.serverName() + " is not ready yet. Please try again in a moment.", NamedTextColor.RED));
+        event.setResult(ServerPreConnectEvent.ServerResult.denied());
+    }
+
+    /**
+     * Chat only reaches players already on a backend; a joining player sees Velocity's own
+     * messages instead.
+     */
+    private static void tell(Player player, Component message) {
+        if (player.getCurrentServer().isPresent()) {
+            player.sendMessage(message);
+        }
+    }
+}
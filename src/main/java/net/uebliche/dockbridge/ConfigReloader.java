@@ -0,0 +1,220 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Applies edits to {@code dockbridge.conf} without a restart, on {@code /dockbridge reload}
+ * or, with {@code reload.watch_file}, as soon as the file is saved. Only what the changed
+ * keys touch is rebuilt: Docker clients for new endpoints, event watchers for new endpoints,
+ * {@code docker.events.enabled} or label filter (they read everything else live), a re-plan
+ * of every container for new labels, filters or strategies, and the schedules of new
+ * intervals. Servers whose name and address come out the same stay registered throughout.
+ * <p>
+ * Sections read once at startup (balancing, drain, cold, health, snapshot, coordination,
+ * metrics, reload and {@code autoscale.enabled}) keep their running values until a restart
+ * and are reported instead. With coordination on, the scanning proxy's endpoints and event
+ * watchers are owned by the lease, so their settings need a restart as well.
+ */
+public final class ConfigReloader {
+
+    /**
+     * Editors save in several writes, or write a temporary file and move it over; one reload
+     * after the last of them is enough.
+     */
+    private static final long DEBOUNCE_MILLIS = 500L;
+    private static final List<String> RESTART_PREFIXES = List.of("balancing.", "drain.", "cold.", "health.", "snapshot.",
+            "coordination.", "metrics.", "reload.");
+    private static final Set<String> RELOADABLE_KEYS = Set.of("health.enable_ping");
+    private static final Set<String> RESTART_KEYS = Set.of("autoscale.enabled");
+    private static final Set<String> COORDINATED_RESTART_KEYS = Set.of("docker.endpoint", "docker.client",
+            "docker.call_timeout_millis", "docker.autoregister.label_key", "docker.autoregister.label_value");
+
+    private final ProxyServer server;
+    private final Object plugin;
+    private final Logger logger;
+    private final Path dataDirectory;
+    private final DockerService dockerService;
+    private final List<DockerEventWatcher> eventWatchers;
+    private final AdaptivePollScheduler pollScheduler;
+    private final IdleSuspender idleSuspender;
+    private final Autoscaler autoscaler;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private DockBridgeConfig config;
+    private volatile WatchService watchService;
+
+    /**
+     * @param eventWatchers the live list of watchers, updated in place when they are rebuilt.
+     * @param idleSuspender null unless cold servers are enabled.
+     * @param autoscaler    null unless autoscaling is enabled.
+     */
+    public ConfigReloader(ProxyServer server, Object plugin, Logger logger, Path dataDirectory, DockBridgeConfig config,
+                          DockerService dockerService, List<DockerEventWatcher> eventWatchers, AdaptivePollScheduler pollScheduler,
+                          IdleSuspender idleSuspender, Autoscaler autoscaler) {
+        this.server = server;
+        this.plugin = plugin;
+        this.logger = logger;
+        this.dataDirectory = dataDirectory;
+        this.config = config;
+        this.dockerService = dockerService;
+        this.eventWatchers = eventWatchers;
+        this.pollScheduler = pollScheduler;
+        this.idleSuspender = idleSuspender;
+        this.autoscaler = autoscaler;
+    }
+
+    /**
+     * Reads the configuration file and applies what changed.
+     *
+     * @throws IOException if the file cannot be read; the running configuration is kept.
+     */
+    public synchronized Result reload() throws IOException {
+        DockBridgeConfig loaded = DockBridgeConfig.reload(dataDirectory, logger);
+        boolean coordinated = dockerService.getCoordinator().isPresent();
+        Set<String> applied = new TreeSet<>();
+        Set<String> restartRequired = new TreeSet<>();
+        for (String key : config.changedKeys(loaded)) {
+            (needsRestart(key, coordinated) ? restartRequired : applied).add(key);
+        }
+        if (!restartRequired.isEmpty()) {
+            logger.warn("Changed setting(s) {} only take effect after a restart; keeping their running values.",
+                    String.join(", ", restartRequired));
+        }
+        if (applied.isEmpty()) {
+            return new Result(applied, restartRequired);
+        }
+        DockBridgeConfig next = restartRequired.isEmpty() ? loaded : loaded.withSettingsFrom(config, restartRequired, logger);
+
+        boolean endpointsRebuilt = dockerService.reconfigure(next, applied);
+        if (!coordinated && (endpointsRebuilt || applied.contains("docker.events.enabled")
+                || applied.contains("docker.autoregister.label_key") || applied.contains("docker.autoregister.label_value"))) {
+            replaceEventWatchers(next);
+        }
+        if (applied.stream().anyMatch(key -> key.startsWith("docker.poll") || key.startsWith("docker.events."))) {
+            pollScheduler.reconfigure(next);
+        }
+        if (idleSuspender != null) {
+            idleSuspender.reconfigure(next);
+        }
+        if (autoscaler != null) {
+            autoscaler.reconfigure(next);
+        }
+        config = next;
+        dockerService.refreshContainers();
+        logger.info("Reloaded {}: {}.", DockBridgeConfig.fileName(), String.join(", ", applied));
+        return new Result(applied, restartRequired);
+    }
+
+    /**
+     * Reloads whenever the configuration file is saved, if {@code reload.watch_file} is set.
+     */
+    public void startWatching() {
+        if (!config.reloadWatchFile()) {
+            return;
+        }
+        try {
+            WatchService service = dataDirectory.getFileSystem().newWatchService();
+            dataDirectory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+            executor.execute(() -> watch(service));
+        } catch (IOException ex) {
+            logger.warn("Could not watch {} for changes: {}. Use /dockbridge reload instead.",
+                    dataDirectory.resolve(DockBridgeConfig.fileName()), ex.getMessage());
+        }
+    }
+
+    public void stopWatching() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ignored) {
+                // Shutting down anyway.
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                if (!touchesConfig(service.take())) {
+                    continue;
+                }
+                Thread.sleep(DEBOUNCE_MILLIS);
+                WatchKey more;
+                while ((more = service.poll()) != null) {
+                    touchesConfig(more);
+                }
+                try {
+                    reload();
+                } catch (IOException | RuntimeException ex) {
+                    logger.warn("Could not reload {}: {}", DockBridgeConfig.fileName(), DockerService.summarizeException(ex));
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // Stopped.
+        }
+    }
+
+    private static boolean touchesConfig(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path && path.toString().equals(DockBridgeConfig.fileName())) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    /**
+     * Starts watchers for the current endpoints before stopping the old ones, so no event is
+     * missed in between; the scan after the reload catches up on anything else.
+     */
+    private void replaceEventWatchers(DockBridgeConfig next) {
+        List<DockerEventWatcher> previous = List.copyOf(eventWatchers);
+        List<DockerEventWatcher> fresh = new ArrayList<>();
+        for (DockerEndpoint endpoint : dockerService.getEndpoints()) {
+            DockerEventWatcher watcher = new DockerEventWatcher(server, plugin, logger, dockerService, endpoint);
+            if (next.dockerEventsEnabled()) {
+                watcher.start();
+            }
+            fresh.add(watcher);
+        }
+        eventWatchers.addAll(fresh);
+        eventWatchers.removeAll(previous);
+        previous.forEach(DockerEventWatcher::stop);
+    }
+
+    private static boolean needsRestart(String key, boolean coordinated) {
+        if (RELOADABLE_KEYS.contains(key)) {
+            return false;
+        }
+        if (RESTART_KEYS.contains(key) || RESTART_PREFIXES.stream().anyMatch(key::startsWith)) {
+            return true;
+        }
+        return coordinated && (COORDINATED_RESTART_KEYS.contains(key) || key.startsWith("docker.events."));
+    }
+
+    /**
+     * Keys a reload applied, and changed keys kept at their running value until a restart.
+     */
+    public record Result(Set<String> applied, Set<String> restartRequired) {
+    }
+}
@@ -0,0 +1,53 @@
+package net.uebliche.dockbridge;
+
+import java.util.List;
+
+/**
+ * Computes a 64-bit fingerprint over the container fields that influence registration
+ * (id, names, naming/port/weight labels, ports, state and, where the address strategy reads
+ * it, the network address). Equal fingerprints mean a scan can skip the container entirely.
+ * Hashing reuses the cached {@link String#hashCode()} so fingerprinting an unchanged fleet
+ * does not allocate.
+ */
+final class ContainerFingerprint {
+
+    private static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final int NULL_HASH = 0x9e3779b9;
+
+    private ContainerFingerprint() {
+    }
+
+    static long of(ContainerSummary container, DockBridgeConfig config, String addressPart) {
+        long hash = SEED;
+        hash = mix(hash, container.id());
+        List<String> names = container.names();
+        hash = mix(hash, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            hash = mix(hash, names.get(i));
+        }
+        hash = mix(hash, container.label(config.autoRegisterNameLabel()));
+        hash = mix(hash, container.label(config.autoRegisterPortLabel()));
+        hash = mix(hash, container.label(config.autoRegisterWeightLabel()));
+        List<ContainerSummary.Port> ports = container.ports();
+        hash = mix(hash, ports.size());
+        for (int i = 0; i < ports.size(); i++) {
+            ContainerSummary.Port port = ports.get(i);
+            hash = mix(hash, port.privatePort());
+            hash = mix(hash, port.publicPort());
+            hash = mix(hash, port.ip());
+            hash = mix(hash, port.type());
+        }
+        hash = mix(hash, addressPart);
+        return mix(hash, container.state());
+    }
+
+    private static long mix(long hash, String value) {
+        return mix(hash, value == null ? NULL_HASH : value.hashCode());
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ (value & 0xffffffffL)) * PRIME;
+        return hash ^ (hash >>> 29);
+    }
+}
@@ -0,0 +1,36 @@
+package net.uebliche.dockbridge;
+
+import java.util.Locale;
+
+/**
+ * Docker health check state of a container, read from the status text of a container
+ * listing ({@code Up 2 minutes (healthy)}), so no per-container inspect call is needed.
+ */
+enum ContainerHealth {
+    /**
+     * The container has no health check.
+     */
+    NONE,
+    STARTING,
+    HEALTHY,
+    UNHEALTHY;
+
+    static ContainerHealth of(ContainerSummary container) {
+        String status = container.status();
+        if (status == null) {
+            return NONE;
+        }
+        int open = status.lastIndexOf('(');
+        int close = status.lastIndexOf(')');
+        if (open < 0 || close < open) {
+            return NONE;
+        }
+        String value = status.substring(open + 1, close).trim().toLowerCase(Locale.ROOT);
+        return switch (value) {
+            case "healthy" -> HEALTHY;
+            case "unhealthy" -> UNHEALTHY;
+            case "health: starting" -> STARTING;
+            default -> NONE;
+        };
+    }
+}
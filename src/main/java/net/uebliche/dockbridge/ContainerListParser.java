@@ -0,0 +1,449 @@
+package net.uebliche.dockbridge;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull parser for {@code /containers/json} responses. It walks the raw UTF-8 bytes once,
+ * matches object keys byte-wise without decoding them, and skips every value DockBridge does
+ * not read (mounts, host config, most network settings, ...) without allocating.
+ * Not thread-safe; one instance per client.
+ */
+final class ContainerListParser {
+
+    private static final byte[] ID = ascii("Id");
+    private static final byte[] NAMES = ascii("Names");
+    private static final byte[] LABELS = ascii("Labels");
+    private static final byte[] PORTS = ascii("Ports");
+    private static final byte[] STATE = ascii("State");
+    private static final byte[] STATUS = ascii("Status");
+    private static final byte[] PRIVATE_PORT = ascii("PrivatePort");
+    private static final byte[] PUBLIC_PORT = ascii("PublicPort");
+    private static final byte[] IP = ascii("IP");
+    private static final byte[] TYPE = ascii("Type");
+    private static final byte[] NETWORK_SETTINGS = ascii("NetworkSettings");
+    private static final byte[] NETWORKS = ascii("Networks");
+    private static final byte[] IP_ADDRESS = ascii("IPAddress");
+
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private int keyStart;
+    private int keyEnd;
+
+    List<ContainerSummary> parse(byte[] bytes, int length) throws IOException {
+        this.buf = bytes;
+        this.pos = 0;
+        this.limit = length;
+        try {
+            List<ContainerSummary> containers = new ArrayList<>();
+            expect('[');
+            if (consumeIf(']')) {
+                return containers;
+            }
+            do {
+                containers.add(readContainer());
+            } while (nextElement(']'));
+            if (pos > limit) {
+                // Reads run unchecked inside the reused buffer; catch truncated input here.
+                throw malformed("unexpected end of input");
+            }
+            return containers;
+        } catch (IndexOutOfBoundsException ex) {
+            throw malformed("unexpected end of input");
+        } finally {
+            this.buf = null;
+        }
+    }
+
+    private ContainerSummary readContainer() throws IOException {
+        String id = null;
+        List<String> names = List.of();
+        Map<String, String> labels = Map.of();
+        List<ContainerSummary.Port> ports = List.of();
+        String state = null;
+        String status = null;
+        Map<String, String> networks = Map.of();
+        expect('{');
+        if (!consumeIf('}')) {
+            do {
+                readKey();
+                if (keyIs(ID)) {
+                    id = readString();
+                } else if (keyIs(NAMES)) {
+                    names = readStringArray();
+                } else if (keyIs(LABELS)) {
+                    labels = readStringMap();
+                } else if (keyIs(PORTS)) {
+                    ports = readPorts();
+                } else if (keyIs(STATE)) {
+                    state = readString();
+                } else if (keyIs(STATUS)) {
+                    status = readString();
+                } else if (keyIs(NETWORK_SETTINGS)) {
+                    networks = readNetworkSettings();
+                } else {
+                    skipValue();
+                }
+            } while (nextElement('}'));
+        }
+        return new ContainerSummary(id, names, labels, ports, state, status, networks);
+    }
+
+    /**
+     * Reads {@code NetworkSettings.Networks} into network name to IP address, keeping only
+     * networks with an address.
+     */
+    private Map<String, String> readNetworkSettings() throws IOException {
+        Map<String, String> networks = Map.of();
+        if (consumeNull()) {
+            return networks;
+        }
+        expect('{');
+        if (consumeIf('}')) {
+            return networks;
+        }
+        do {
+            readKey();
+            if (!keyIs(NETWORKS)) {
+                skipValue();
+                continue;
+            }
+            if (consumeNull()) {
+                continue;
+            }
+            expect('{');
+            if (consumeIf('}')) {
+                continue;
+            }
+            do {
+                String name = readString();
+                expect(':');
+                String ip = readNetworkAddress();
+                if (ip != null && !ip.isEmpty()) {
+                    if (networks.isEmpty()) {
+                        networks = new HashMap<>(2);
+                    }
+                    networks.put(name, ip);
+                }
+            } while (nextElement('}'));
+        } while (nextElement('}'));
+        return networks;
+    }
+
+    private String readNetworkAddress() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        String ip = null;
+        expect('{');
+        if (!consumeIf('}')) {
+            do {
+                readKey();
+                if (keyIs(IP_ADDRESS)) {
+                    ip = readString();
+                } else {
+                    skipValue();
+                }
+            } while (nextElement('}'));
+        }
+        return ip;
+    }
+
+    /**
+     * Reads an array of strings, leaving out null and blank entries.
+     */
+    private List<String> readStringArray() throws IOException {
+        if (consumeNull()) {
+            return List.of();
+        }
+        expect('[');
+        if (consumeIf(']')) {
+            return List.of();
+        }
+        List<String> values = new ArrayList<>(2);
+        do {
+            String value = readString();
+            if (value != null && !value.isBlank()) {
+                values.add(value);
+            }
+        } while (nextElement(']'));
+        return values;
+    }
+
+    /**
+     * Reads a string-to-string object; entries with a null value are left out, as Docker
+     * itself treats them as absent.
+     */
+    private Map<String, String> readStringMap() throws IOException {
+        if (consumeNull()) {
+            return Map.of();
+        }
+        expect('{');
+        if (consumeIf('}')) {
+            return Map.of();
+        }
+        Map<String, String> values = new HashMap<>();
+        do {
+            String key = readString();
+            expect(':');
+            String value = readString();
+            if (value != null) {
+                values.put(key, value);
+            }
+        } while (nextElement('}'));
+        return values;
+    }
+
+    private List<ContainerSummary.Port> readPorts() throws IOException {
+        if (consumeNull()) {
+            return List.of();
+        }
+        expect('[');
+        if (consumeIf(']')) {
+            return List.of();
+        }
+        List<ContainerSummary.Port> ports = new ArrayList<>(2);
+        do {
+            int privatePort = -1;
+            int publicPort = -1;
+            String ip = null;
+            String type = null;
+            expect('{');
+            if (!consumeIf('}')) {
+                do {
+                    readKey();
+                    if (keyIs(PRIVATE_PORT)) {
+                        privatePort = readInt();
+                    } else if (keyIs(PUBLIC_PORT)) {
+                        publicPort = readInt();
+                    } else if (keyIs(IP)) {
+                        ip = readString();
+                    } else if (keyIs(TYPE)) {
+                        type = readString();
+                    } else {
+                        skipValue();
+                    }
+                } while (nextElement('}'));
+            }
+            ports.add(new ContainerSummary.Port(privatePort, publicPort, ip, type));
+        } while (nextElement(']'));
+        return ports;
+    }
+
+    /**
+     * Records the span of the next object key and consumes the following colon.
+     */
+    private void readKey() throws IOException {
+        expect('"');
+        keyStart = pos;
+        skipStringBody();
+        keyEnd = pos - 1;
+        expect(':');
+    }
+
+    private boolean keyIs(byte[] key) {
+        return keyEnd - keyStart == key.length && Arrays.equals(buf, keyStart, keyEnd, key, 0, key.length);
+    }
+
+    private String readString() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        expect('"');
+        int start = pos;
+        while (true) {
+            byte b = buf[pos];
+            if (b == '"') {
+                String value = new String(buf, start, pos - start, StandardCharsets.UTF_8);
+                pos++;
+                return value;
+            }
+            if (b == '\\') {
+                return readEscapedString(start);
+            }
+            pos++;
+        }
+    }
+
+    private String readEscapedString(int start) throws IOException {
+        StringBuilder out = new StringBuilder(pos - start + 16);
+        int runStart = start;
+        while (true) {
+            byte b = buf[pos];
+            if (b == '"') {
+                out.append(new String(buf, runStart, pos - runStart, StandardCharsets.UTF_8));
+                pos++;
+                return out.toString();
+            }
+            if (b != '\\') {
+                pos++;
+                continue;
+            }
+            out.append(new String(buf, runStart, pos - runStart, StandardCharsets.UTF_8));
+            byte escape = buf[pos + 1];
+            pos += 2;
+            switch (escape) {
+                case '"' -> out.append('"');
+                case '\\' -> out.append('\\');
+                case '/' -> out.append('/');
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    try {
+                        out.append((char) Integer.parseInt(new String(buf, pos, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException ex) {
+                        throw malformed("invalid unicode escape");
+                    }
+                    pos += 4;
+                }
+                default -> throw malformed("invalid escape");
+            }
+            runStart = pos;
+        }
+    }
+
+    private int readInt() throws IOException {
+        if (consumeNull()) {
+            return -1;
+        }
+        skipWhitespace();
+        boolean negative = buf[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < limit && buf[pos] >= '0' && buf[pos] <= '9') {
+            value = value * 10 + (buf[pos++] - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            throw malformed("expected a number");
+        }
+        // Fractions and exponents do not occur in port numbers; skip them if they do.
+        while (pos < limit && isNumberPart(buf[pos])) {
+            pos++;
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private void skipValue() throws IOException {
+        skipWhitespace();
+        byte b = buf[pos];
+        switch (b) {
+            case '"' -> {
+                pos++;
+                skipStringBody();
+            }
+            case '{', '[' -> {
+                int depth = 0;
+                do {
+                    byte c = buf[pos++];
+                    if (c == '"') {
+                        skipStringBody();
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                } while (depth > 0);
+            }
+            case 't', 'f', 'n' -> {
+                while (pos < limit && buf[pos] >= 'a' && buf[pos] <= 'z') {
+                    pos++;
+                }
+            }
+            default -> {
+                if (!isNumberPart(b)) {
+                    throw malformed("unexpected value");
+                }
+                while (pos < limit && isNumberPart(buf[pos])) {
+                    pos++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances past the closing quote of a string whose opening quote was consumed.
+     */
+    private void skipStringBody() {
+        while (true) {
+            byte b = buf[pos++];
+            if (b == '\\') {
+                pos++;
+            } else if (b == '"') {
+                return;
+            }
+        }
+    }
+
+    private boolean nextElement(char close) throws IOException {
+        skipWhitespace();
+        byte b = buf[pos++];
+        if (b == ',') {
+            return true;
+        }
+        if (b == close) {
+            return false;
+        }
+        throw malformed("expected ',' or '" + close + "'");
+    }
+
+    private boolean consumeNull() {
+        skipWhitespace();
+        if (buf[pos] == 'n') {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consumeIf(char c) {
+        skipWhitespace();
+        if (buf[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws IOException {
+        skipWhitespace();
+        if (buf[pos] != c) {
+            throw malformed("expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private static boolean isNumberPart(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private IOException malformed(String problem) {
+        return new IOException("malformed container list at byte " + pos + ": " + problem);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,116 @@
+package net.uebliche.dockbridge;
+
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerNetwork;
+import com.github.dockerjava.api.model.ContainerNetworkSettings;
+import com.github.dockerjava.api.model.ContainerPort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a {@code /containers/json} entry DockBridge reads. Built from a docker-java
+ * {@link Container} or directly by {@link LeanDockerClient}, which skips every other field.
+ * Collections are never null; {@code networks} maps network names to the container's IPv4
+ * address on them.
+ */
+record ContainerSummary(
+        String id,
+        List<String> names,
+        Map<String, String> labels,
+        List<Port> ports,
+        String state,
+        String status,
+        Map<String, String> networks
+) {
+
+    static ContainerSummary from(Container container) {
+        String[] names = container.getNames();
+        Map<String, String> labels = container.getLabels();
+        ContainerPort[] ports = container.getPorts();
+        List<Port> mappedPorts = List.of();
+        if (ports != null && ports.length > 0) {
+            mappedPorts = new ArrayList<>(ports.length);
+            for (ContainerPort port : ports) {
+                mappedPorts.add(new Port(
+                        port.getPrivatePort() == null ? -1 : port.getPrivatePort(),
+                        port.getPublicPort() == null ? -1 : port.getPublicPort(),
+                        port.getIp(),
+                        port.getType()));
+            }
+        }
+        Map<String, String> networks = Map.of();
+        ContainerNetworkSettings settings = container.getNetworkSettings();
+        if (settings != null && settings.getNetworks() != null && !settings.getNetworks().isEmpty()) {
+            networks = new HashMap<>();
+            for (Map.Entry<String, ContainerNetwork> network : settings.getNetworks().entrySet()) {
+                String ip = network.getValue() == null ? null : network.getValue().getIpAddress();
+                if (ip != null && !ip.isBlank()) {
+                    networks.put(network.getKey(), ip);
+                }
+            }
+        }
+        return new ContainerSummary(
+                container.getId(),
+                names == null ? List.of() : withoutBlanks(names),
+                labels == null ? Map.of() : withoutNullValues(labels),
+                mappedPorts,
+                container.getState(),
+                container.getStatus(),
+                networks);
+    }
+
+    /**
+     * Names the way ContainerListParser reads them: null and blank entries are left out.
+     */
+    private static List<String> withoutBlanks(String[] names) {
+        List<String> present = new ArrayList<>(names.length);
+        for (String name : names) {
+            if (name != null && !name.isBlank()) {
+                present.add(name);
+            }
+        }
+        return present;
+    }
+
+    /**
+     * Docker reports labels set to null as null values; they count as absent.
+     */
+    private static Map<String, String> withoutNullValues(Map<String, String> labels) {
+        if (!labels.containsValue(null)) {
+            return labels;
+        }
+        Map<String, String> present = new HashMap<>(labels);
+        present.values().removeIf(value -> value == null);
+        return present;
+    }
+
+    String label(String key) {
+        return labels.get(key);
+    }
+
+    /**
+     * IP address on the given network. With a blank name, the address on the container's only
+     * network, or on the alphabetically first one if it has several. Null if none is known.
+     */
+    String networkAddress(String network) {
+        if (network != null && !network.isBlank()) {
+            return networks.get(network);
+        }
+        String first = null;
+        for (String name : networks.keySet()) {
+            if (first == null || name.compareTo(first) < 0) {
+                first = name;
+            }
+        }
+        return first == null ? null : networks.get(first);
+    }
+
+    /**
+     * A published or exposed port; -1 marks a missing number.
+     */
+    record Port(int privatePort, int publicPort, String ip, String type) {
+    }
+}
@@ -0,0 +1,70 @@
+package net.uebliche.dockbridge;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Docker calls a scan makes, plus the calls that wake, suspend, create and remove
+ * containers. Each endpoint runs one scan at a time, but calls may come from different
+ * threads.
+ */
+interface DiscoveryClient extends Closeable {
+
+    void ping() throws Exception;
+
+    /**
+     * @param all whether stopped and paused containers are listed too, not only running ones.
+     */
+    List<ContainerSummary> listContainers(String labelKey, String labelValue, boolean all) throws Exception;
+
+    /**
+     * Lists only the containers with the given ids, for re-listing what a Docker event named.
+     * A container that is gone, lost the label or (unless {@code all}) stopped is left out.
+     */
+    List<ContainerSummary> listContainers(String labelKey, String labelValue, boolean all, Collection<String> ids) throws Exception;
+
+    /**
+     * Starts a created or exited container. Succeeds if it is already running.
+     */
+    void startContainer(String containerId) throws Exception;
+
+    void unpauseContainer(String containerId) throws Exception;
+
+    void pauseContainer(String containerId) throws Exception;
+
+    /**
+     * Stops a container, giving it {@code timeoutSeconds} to exit before it is killed.
+     * Succeeds if it is already stopped. Blocks until the container has exited.
+     */
+    void stopContainer(String containerId, int timeoutSeconds) throws Exception;
+
+    /**
+     * Creates a container with the image and host configuration of a template container, and
+     * its environment, command, entrypoint, exposed ports, working directory, user, terminal
+     * settings and healthcheck; the rest comes from the image. The copy gets a new name and
+     * {@code labels} in place of the template's. Published host ports are left out so the copy
+     * does not clash with the template.
+     *
+     * @param allowMounts whether a template with binds, mounts or volumes from other containers
+     *                    may be copied; every copy would share them. If not, such a template
+     *                    fails with {@link #mountsRefused(String)}.
+     * @return the id of the new container, which is not started.
+     */
+    String createFromTemplate(String templateId, String name, Map<String, String> labels, boolean allowMounts) throws Exception;
+
+    static String mountsRefused(String templateId) {
+        return "template " + templateId + " has binds, mounts or volumes from other containers, which every replica "
+                + "would share; set autoscale.allow_mounts=true to copy it anyway";
+    }
+
+    /**
+     * Removes a stopped container together with its anonymous volumes. Succeeds if it is
+     * already gone.
+     */
+    void removeContainer(String containerId) throws Exception;
+
+    @Override
+    void close();
+}
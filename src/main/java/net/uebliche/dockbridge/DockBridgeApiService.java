@@ -0,0 +1,124 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import net.uebliche.dockbridge.api.DockBridgeApi;
+import net.uebliche.dockbridge.api.DockerAvailabilityChangedEvent;
+import net.uebliche.dockbridge.api.DockerServer;
+import net.uebliche.dockbridge.api.DockerServerRegisteredEvent;
+import net.uebliche.dockbridge.api.DockerServerUnregisteredEvent;
+import net.uebliche.dockbridge.api.DockerServerUpdatedEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Serves {@link DockBridgeApi} lookups from the latest {@link DockerState} and turns state
+ * changes into Velocity events by diffing each new state against the last one announced.
+ */
+final class DockBridgeApiService implements DockBridgeApi {
+
+    private final ProxyServer proxy;
+    private final DockerService dockerService;
+    private DockerState announced = DockerState.EMPTY;
+
+    DockBridgeApiService(ProxyServer proxy, DockerService dockerService) {
+        this.proxy = proxy;
+        this.dockerService = dockerService;
+    }
+
+    @Override
+    public Collection<DockerServer> servers() {
+        return dockerService.getState().index().servers();
+    }
+
+    @Override
+    public Optional<DockerServer> server(String serverName) {
+        return Optional.ofNullable(dockerService.getState().index().server(serverName));
+    }
+
+    @Override
+    public Optional<DockerServer> serverByContainerId(String containerId) {
+        return Optional.ofNullable(dockerService.getState().index().serverByContainerId(containerId));
+    }
+
+    @Override
+    public List<DockerServer> serversByBaseName(String baseName) {
+        return dockerService.getState().index().serversByBaseName(baseName);
+    }
+
+    @Override
+    public List<DockerServer> serversByLabel(String key, String value) {
+        return dockerService.getState().index().serversByLabel(key, value);
+    }
+
+    @Override
+    public boolean isDockerServer(String serverName) {
+        return dockerService.getState().index().server(serverName) != null;
+    }
+
+    @Override
+    public boolean isDockerAvailable() {
+        return dockerService.getState().isDockerAvailable();
+    }
+
+    /**
+     * State listener. Always diffs against the latest state, so states delivered late or out
+     * of order are skipped rather than announced twice.
+     */
+    void onStateChanged(DockerState ignored) {
+        List<Object> events = new ArrayList<>();
+        synchronized (this) {
+            DockerState current = dockerService.getState();
+            if (current.version() <= announced.version()) {
+                return;
+            }
+            if (current.index() != announced.index()) {
+                diffServers(announced.index(), current.index(), events);
+            }
+            if (current.endpoints() != announced.endpoints()) {
+                diffEndpoints(announced.endpoints(), current.endpoints(), events);
+            }
+            announced = current;
+        }
+        for (Object event : events) {
+            proxy.getEventManager().fireAndForget(event);
+        }
+    }
+
+    private static void diffServers(ServerIndex before, ServerIndex after, List<Object> events) {
+        for (DockerServer server : after.servers()) {
+            DockerServer previous = before.server(server.serverName());
+            if (previous == null) {
+                events.add(new DockerServerRegisteredEvent(server));
+            } else if (!previous.equals(server)) {
+                events.add(new DockerServerUpdatedEvent(previous, server));
+            }
+        }
+        for (DockerServer server : before.servers()) {
+            if (after.server(server.serverName()) == null) {
+                events.add(new DockerServerUnregisteredEvent(server));
+            }
+        }
+    }
+
+    private static void diffEndpoints(List<DockerState.EndpointStatus> before, List<DockerState.EndpointStatus> after, List<Object> events) {
+        Map<String, DockerState.EndpointStatus> previous = new HashMap<>();
+        for (DockerState.EndpointStatus status : before) {
+            previous.put(status.endpoint(), status);
+        }
+        for (DockerState.EndpointStatus status : after) {
+            DockerState.EndpointStatus old = previous.get(status.endpoint());
+            // Endpoints start out available, so only report a first status that is not.
+            boolean wasAvailable = old == null || old.available();
+            if (wasAvailable != status.available()
+                    || (!status.available() && !Objects.equals(old.unavailableReason(), status.unavailableReason()))) {
+                events.add(new DockerAvailabilityChangedEvent(status.endpoint(), status.available(), status.unavailableReason()));
+            }
+        }
+    }
+}
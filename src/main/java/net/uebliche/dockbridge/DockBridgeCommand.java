@@ -1,23 +1,56 @@
 package net.uebliche.dockbridge;
 
+import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.command.SimpleCommand;
 import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.format.NamedTextColor;
+import net.uebliche.dockbridge.api.DockerServer;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Provides a simple information dump about currently registered Docker-backed servers.
+ * {@code /dockbridge} and its subcommands. Everything but {@code refresh} and {@code plan}
+ * is rendered on a scheduler thread from one {@link DockerState} snapshot and sent as a
+ * single message, so large registries neither block the command thread nor flood chat with
+ * one message per server.
  */
 public final class DockBridgeCommand implements SimpleCommand {
 
+    private static final int PAGE_SIZE = 15;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final List<String> SUBCOMMANDS = List.of("list", "stats", "inspect", "refresh", "plan", "reload");
+    private static final List<String> SORT_KEYS = List.of("name", "base", "players", "container");
+
     private final ProxyServer server;
+    private final Object plugin;
     private final DockerService dockerService;
+    private final List<DockerEventWatcher> eventWatchers;
+    private final ReplicaBalancer balancer;
+    private final AdaptivePollScheduler pollScheduler;
+    private final ConfigReloader reloader;
 
-    public DockBridgeCommand(ProxyServer server, DockerService dockerService) {
+    public DockBridgeCommand(ProxyServer server, Object plugin, DockerService dockerService, List<DockerEventWatcher> eventWatchers,
+                             ReplicaBalancer balancer, AdaptivePollScheduler pollScheduler, ConfigReloader reloader) {
         this.server = server;
+        this.plugin = plugin;
         this.dockerService = dockerService;
+        this.eventWatchers = eventWatchers;
+        this.balancer = balancer;
+        this.pollScheduler = pollScheduler;
+        this.reloader = reloader;
     }
 
     @Override
@@ -29,41 +62,524 @@ public final class DockBridgeCommand implements SimpleCommand {
             return;
         }
 
+        String[] args = invocation.arguments();
+        String subcommand = args.length == 0 ? "" : args[0].toLowerCase(Locale.ROOT);
+        switch (subcommand) {
+            case "" -> render(source, () -> showStatus(source));
+            case "list" -> render(source, () -> showList(source, Arrays.copyOfRange(args, 1, args.length)));
+            case "stats" -> render(source, () -> showStats(source));
+            case "inspect" -> {
+                if (args.length < 2) {
+                    source.sendMessage(Component.text("[DockBridge] Usage: /dockbridge inspect <server>", NamedTextColor.RED));
+                    return;
+                }
+                render(source, () -> showInspect(source, args[1]));
+            }
+            case "refresh" -> refresh(source);
+            case "plan" -> showPlan(source);
+            case "reload" -> render(source, () -> reload(source));
+            default -> source.sendMessage(Component.text("[DockBridge] Unknown subcommand '" + args[0]
+                    + "'. Use list, stats, inspect <server>, refresh, plan or reload.", NamedTextColor.RED));
+        }
+    }
+
+    @Override
+    public List<String> suggest(Invocation invocation) {
+        String[] args = invocation.arguments();
+        if (args.length <= 1) {
+            return startingWith(SUBCOMMANDS, args.length == 0 ? "" : args[0]);
+        }
+        String last = args[args.length - 1];
+        if (args[0].equalsIgnoreCase("inspect") && args.length == 2) {
+            List<String> names = new ArrayList<>();
+            for (DockerService.Registration registration : dockerService.getState().registrations()) {
+                names.add(registration.serverName());
+            }
+            return startingWith(names, last);
+        }
+        if (args[0].equalsIgnoreCase("list")) {
+            List<String> options = new ArrayList<>();
+            for (String key : SORT_KEYS) {
+                options.add("sort=" + key);
+            }
+            options.add("name=");
+            options.add("base=");
+            return startingWith(options, last);
+        }
+        return List.of();
+    }
+
+    /**
+     * Runs a renderer on a scheduler thread; failures are reported to the sender.
+     */
+    private void render(CommandSource source, Runnable renderer) {
+        server.getScheduler().buildTask(plugin, () -> {
+            try {
+                renderer.run();
+            } catch (RuntimeException ex) {
+                source.sendMessage(Component.text("[DockBridge] Command failed: " + DockerService.summarizeException(ex), NamedTextColor.RED));
+            }
+        }).schedule();
+    }
+
+    private void showStatus(CommandSource source) {
         int totalPlugins = server.getPluginManager().getPlugins().size();
-        List<DockerService.Registration> registrations = dockerService.getCurrentRegistrations();
-        int matched = dockerService.getLastMatchedCount();
-
-        source.sendMessage(prefix("Plugins loaded: ", String.valueOf(totalPlugins)));
-        source.sendMessage(prefix("Docker status: ",
-                dockerService.isDockerAvailable()
-                        ? "available"
-                        : dockerService.getDockerUnavailableReason()
-                        .map(reason -> "unavailable - " + reason)
-                        .orElse("unavailable")));
-        source.sendMessage(prefix("Docker label filter: ",
+        DockerState state = dockerService.getState();
+        List<Component> lines = new ArrayList<>();
+
+        lines.add(prefix("Plugins loaded: ", String.valueOf(totalPlugins)));
+        for (DockerEndpoint endpoint : dockerService.getEndpoints()) {
+            lines.add(prefix("Docker " + endpoint.endpoint() + ": ", describeEndpoint(endpoint)));
+        }
+        dockerService.getCoordinator().ifPresent(coordinator -> lines.add(prefix("Coordination: ", describeCoordination(coordinator))));
+        lines.add(prefix("Refresh interval: ", describeInterval()));
+        lines.add(prefix("Docker label filter: ",
                 dockerService.getConfig().autoRegisterLabelKey() + "=" + dockerService.getConfig().autoRegisterLabelValue()));
-        source.sendMessage(prefix("Duplicate strategy: ", dockerService.getConfig().duplicateStrategy()));
-        source.sendMessage(prefix("Last scan matched ", matched + " container(s); registered " + registrations.size() + " server(s)."));
+        lines.add(prefix("Duplicate strategy: ", dockerService.getConfig().duplicateStrategy()));
+        lines.add(prefix("Address strategy: ", dockerService.getAddressStrategy()));
+        lines.add(prefix("Replica balancing: ", balancer.strategy().name().toLowerCase()));
+        String proxyGroup = "group " + dockerService.getConfig().proxyGroup()
+                + dockerService.getShard()
+                .map(shard -> ", shard " + shard.self() + " of " + shard.replicas().size() + " replicas")
+                .orElse("");
+        lines.add(prefix("Proxy " + proxyGroup + ": ", state.otherProxiesCount() + " container(s) left to other proxies."));
+        if (dockerService.getConfig().dockerHealthRequired()) {
+            lines.add(prefix("Docker health gate: ", state.healthHeldBackCount() + " container(s) waiting for a passing health check."));
+        }
+        lines.add(prefix("Last scan matched ", state.matchedCount() + " container(s); registered "
+                + state.registrations().size() + " server(s)."));
+        if (dockerService.getConfig().coldEnabled()) {
+            long cold = state.registrations().stream().filter(DockerService.Registration::cold).count();
+            lines.add(prefix("Cold servers: ", cold + " stopped or paused, started on connect."));
+        }
+        dockerService.getDrainer().ifPresent(drainer -> {
+            for (ServerDrainer.DrainStatus drain : drainer.drains()) {
+                lines.add(prefix("Draining " + drain.serverName() + ": ", drain.players() + " player(s) left, "
+                        + drain.remainingSeconds() + "s until timeout"
+                        + (drain.unregistering() ? ", then unregistered" : ", then back in rotation unless removed")));
+            }
+        });
+        if (state.registrations().isEmpty()) {
+            lines.add(Component.text("[DockBridge] No registered Docker servers.", NamedTextColor.YELLOW));
+        } else {
+            lines.add(prefix("Browse servers with ", "/dockbridge list [page] [name=<text>] [base=<name>] [sort=name|base|players|container]"));
+        }
+        send(source, lines);
+    }
+
+    /**
+     * One page of registrations, optionally filtered by a name substring or an exact base name
+     * and sorted by name (default), base name, player count (most first) or container id.
+     */
+    private void showList(CommandSource source, String[] args) {
+        int page = 1;
+        String nameFilter = null;
+        String baseFilter = null;
+        String sort = "name";
+        for (String arg : args) {
+            String lower = arg.toLowerCase(Locale.ROOT);
+            if (lower.startsWith("sort=")) {
+                sort = lower.substring(5);
+                if (!SORT_KEYS.contains(sort)) {
+                    source.sendMessage(Component.text("[DockBridge] Unknown sort '" + sort + "'. Use " + String.join(", ", SORT_KEYS) + ".", NamedTextColor.RED));
+                    return;
+                }
+            } else if (lower.startsWith("base=")) {
+                baseFilter = arg.substring(5);
+            } else if (lower.startsWith("name=")) {
+                nameFilter = lower.substring(5);
+            } else if (!arg.isEmpty() && arg.chars().allMatch(Character::isDigit)) {
+                page = Math.max(1, Integer.parseInt(arg.length() > 6 ? "999999" : arg));
+            } else {
+                nameFilter = lower;
+            }
+        }
+
+        DockerState state = dockerService.getState();
+        List<DockerService.Registration> matching;
+        if (baseFilter != null) {
+            matching = new ArrayList<>();
+            for (DockerServer server : state.index().serversByBaseName(baseFilter)) {
+                DockerService.Registration registration = state.index().registration(server.serverName());
+                if (registration != null) {
+                    matching.add(registration);
+                }
+            }
+        } else {
+            matching = new ArrayList<>(state.registrations());
+        }
+        if (nameFilter != null && !nameFilter.isEmpty()) {
+            String needle = nameFilter;
+            matching.removeIf(registration -> !registration.serverName().toLowerCase(Locale.ROOT).contains(needle));
+        }
+        if (matching.isEmpty()) {
+            source.sendMessage(Component.text("[DockBridge] No registered Docker servers match.", NamedTextColor.YELLOW));
+            return;
+        }
+
+        Map<String, Integer> players = new HashMap<>();
+        if (sort.equals("players")) {
+            for (DockerService.Registration registration : matching) {
+                players.put(registration.serverName(), balancer.connectedPlayers(registration.serverName()));
+            }
+        }
+        Comparator<DockerService.Registration> byName = Comparator.comparing(DockerService.Registration::serverName);
+        matching.sort(switch (sort) {
+            case "base" -> Comparator.comparing(DockerService.Registration::baseName).thenComparing(byName);
+            case "players" -> Comparator.comparing((DockerService.Registration registration) -> players.get(registration.serverName()))
+                    .reversed().thenComparing(byName);
+            case "container" -> Comparator.comparing(DockerService.Registration::containerId);
+            default -> byName;
+        });
+
+        int pages = (matching.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        page = Math.min(page, pages);
+        int from = (page - 1) * PAGE_SIZE;
+        List<Component> lines = new ArrayList<>(PAGE_SIZE + 2);
+        lines.add(Component.text("[DockBridge] Registered servers, page " + page + "/" + pages + " ("
+                + matching.size() + " of " + state.registrations().size() + ", sorted by " + sort + "):", NamedTextColor.GOLD));
+        for (DockerService.Registration registration : matching.subList(from, Math.min(matching.size(), from + PAGE_SIZE))) {
+            lines.add(describeRegistration(state, registration));
+        }
+        if (page < pages) {
+            StringBuilder next = new StringBuilder("/dockbridge list ").append(page + 1);
+            if (nameFilter != null && !nameFilter.isEmpty()) {
+                next.append(" name=").append(nameFilter);
+            }
+            if (baseFilter != null) {
+                next.append(" base=").append(baseFilter);
+            }
+            next.append(" sort=").append(sort);
+            lines.add(prefix("Next page: ", next.toString()));
+        }
+        send(source, lines);
+    }
+
+    private void showStats(CommandSource source) {
+        DockBridgeMetrics metrics = dockerService.getMetrics();
+        DockerState state = dockerService.getState();
+        List<Component> lines = new ArrayList<>();
+        lines.add(Component.text("[DockBridge] Scan phases (p50/p99 are bucket upper bounds):", NamedTextColor.GOLD));
+        for (DockBridgeMetrics.Phase phase : DockBridgeMetrics.Phase.values()) {
+            lines.add(describeHistogram(phase.name().toLowerCase(Locale.ROOT), metrics.phase(phase), -1L));
+        }
+        lines.add(Component.text("[DockBridge] Docker API calls:", NamedTextColor.GOLD));
+        for (DockBridgeMetrics.DockerCall call : DockBridgeMetrics.DockerCall.values()) {
+            String label = call == DockBridgeMetrics.DockerCall.EVENTS ? "events connect" : call.name().toLowerCase(Locale.ROOT);
+            lines.add(describeHistogram(label, metrics.dockerCall(call), metrics.dockerErrorCount(call)));
+        }
+        lines.add(prefix("Churn since start: ", "registered " + metrics.registrationCount(DockBridgeMetrics.RegistrationAction.REGISTERED)
+                + ", updated " + metrics.registrationCount(DockBridgeMetrics.RegistrationAction.UPDATED)
+                + ", unregistered " + metrics.registrationCount(DockBridgeMetrics.RegistrationAction.UNREGISTERED)));
+        DockerState.Changes changes = state.lastChanges();
+        if (!changes.at().equals(Instant.EPOCH)) {
+            lines.add(prefix("Last change: ", Duration.between(changes.at(), Instant.now()).toSeconds() + "s ago (+"
+                    + changes.registered() + " ~" + changes.updated() + " -" + changes.unregistered() + ")"));
+        }
+        lines.add(prefix("Last successful scan: ", state.lastScan().equals(Instant.EPOCH)
+                ? "none yet"
+                : Duration.between(state.lastScan(), Instant.now()).toSeconds() + "s ago"));
+        lines.add(prefix("Refresh interval: ", describeInterval()));
+        send(source, lines);
+    }
+
+    private void showInspect(CommandSource source, String name) {
+        DockerState state = dockerService.getState();
+        DockerService.Registration registration = state.index().registration(name);
+        if (registration == null) {
+            DockerServer byContainer = state.index().serverByContainerId(name);
+            registration = byContainer == null ? null : state.index().registration(byContainer.serverName());
+        }
+        if (registration == null) {
+            source.sendMessage(Component.text("[DockBridge] No Docker-backed server or container '" + name + "'.", NamedTextColor.RED));
+            return;
+        }
+        String serverName = registration.serverName();
+        List<Component> lines = new ArrayList<>();
+        lines.add(Component.text("[DockBridge] " + serverName + ":", NamedTextColor.GOLD));
+        lines.add(prefix("Address: ", registration.host() + ":" + registration.port()));
+        lines.add(prefix("Container: ", registration.containerId()));
+        lines.add(prefix("Base name: ", registration.baseName() + " (" + state.index().serversByBaseName(registration.baseName()).size()
+                + " replica(s), weight " + registration.weight() + ")"));
+        lines.add(prefix("Players: ", String.valueOf(balancer.connectedPlayers(serverName))));
+        boolean inTryList = server.getConfiguration().getAttemptConnectionOrder().contains(serverName);
+        lines.add(prefix("Try list: ", inTryList ? "yes" : "no"));
+        if (registration.cold()) {
+            lines.add(prefix("Cold: ", "container stopped or paused; started when a player connects"));
+        } else if (dockerService.isSuspending(serverName)) {
+            lines.add(prefix("Cold: ", "idle, container being paused or stopped"));
+        }
+        String idleMinutes = registration.labels().get(dockerService.getConfig().autoRegisterIdleMinutesLabel());
+        if (idleMinutes != null && dockerService.getConfig().coldEnabled()) {
+            lines.add(prefix("Idle policy: ", "suspend after " + idleMinutes.trim() + " minute(s) without players"));
+        }
+        DockBridgeConfig config = dockerService.getConfig();
+        String scaleTarget = registration.labels().get(config.autoRegisterScaleTargetLabel());
+        String scaledFrom = registration.labels().get(config.autoRegisterScaledFromLabel());
+        if (scaleTarget != null && config.autoscaleEnabled()) {
+            lines.add(prefix("Autoscaling: ", "template, " + registration.labels().get(config.autoRegisterScaleMinLabel()) + ".."
+                    + registration.labels().get(config.autoRegisterScaleMaxLabel()) + " replica(s), "
+                    + scaleTarget.trim() + " player(s) each"));
+        } else if (scaledFrom != null) {
+            lines.add(prefix("Autoscaling: ", "replica created from template " + scaledFrom
+                    + (dockerService.isRetiring(serverName) ? ", being removed" : "")));
+        }
+        if (state.isUnverified(serverName)) {
+            lines.add(prefix("Restored: ", "from the last snapshot, not yet confirmed by a scan"));
+        }
+        dockerService.getDrainer().ifPresent(drainer -> {
+            for (ServerDrainer.DrainStatus drain : drainer.drains()) {
+                if (drain.serverName().equals(serverName)) {
+                    lines.add(prefix("Draining: ", drain.players() + " player(s) left, " + drain.remainingSeconds() + "s until timeout"));
+                }
+            }
+        });
+        var health = dockerService.getProber().flatMap(prober -> prober.health(serverName));
+        health.ifPresent(backend -> lines.add(prefix("Probe:", "").append(probeStatus(backend))));
+        if (!registration.labels().isEmpty()) {
+            lines.add(prefix("Labels:", ""));
+            for (Map.Entry<String, String> label : new TreeMap<>(registration.labels()).entrySet()) {
+                lines.add(Component.text("   " + label.getKey() + "=", NamedTextColor.GRAY)
+                        .append(Component.text(label.getValue(), NamedTextColor.WHITE)));
+            }
+        }
+        send(source, lines);
+    }
 
-        if (registrations.isEmpty()) {
-            source.sendMessage(Component.text("[DockBridge] No registered Docker servers.", NamedTextColor.YELLOW));
+    /**
+     * Requests a scan; requests made while one is running collapse into a single follow-up.
+     */
+    private void refresh(CommandSource source) {
+        var coordinator = dockerService.getCoordinator();
+        if (coordinator.isPresent() && !coordinator.get().isLeader()) {
+            source.sendMessage(Component.text("[DockBridge] This proxy applies the listings of " + coordinator.get().leaderId()
+                    + " and does not scan Docker itself.", NamedTextColor.YELLOW));
             return;
         }
+        dockerService.refreshContainers();
+        source.sendMessage(Component.text("[DockBridge] Docker refresh requested.", NamedTextColor.GREEN));
+    }
+
+    private void reload(CommandSource source) {
+        ConfigReloader.Result result;
+        try {
+            result = reloader.reload();
+        } catch (IOException ex) {
+            source.sendMessage(Component.text("[DockBridge] Could not read the configuration, keeping the running one: "
+                    + DockerService.summarizeException(ex), NamedTextColor.RED));
+            return;
+        }
+        if (result.applied().isEmpty() && result.restartRequired().isEmpty()) {
+            source.sendMessage(Component.text("[DockBridge] Configuration unchanged.", NamedTextColor.GRAY));
+            return;
+        }
+        if (!result.applied().isEmpty()) {
+            source.sendMessage(prefix("Reloaded: ", String.join(", ", result.applied())));
+        }
+        if (!result.restartRequired().isEmpty()) {
+            source.sendMessage(Component.text("[DockBridge] Only applied after a restart: "
+                    + String.join(", ", result.restartRequired()), NamedTextColor.YELLOW));
+        }
+    }
 
-        source.sendMessage(Component.text("[DockBridge] Registered servers:", NamedTextColor.GOLD));
-        for (DockerService.Registration reg : registrations) {
-            Component line = Component.text(" - ", NamedTextColor.DARK_GRAY)
-                    .append(Component.text(reg.serverName(), NamedTextColor.AQUA))
+    /**
+     * Dry run: shows what reconciling the last listings would change, without applying it.
+     */
+    private void showPlan(CommandSource source) {
+        dockerService.planDryRun().whenComplete((plan, error) -> {
+            if (error != null) {
+                source.sendMessage(Component.text("[DockBridge] Planning failed: " + DockerService.summarizeException(error), NamedTextColor.RED));
+                return;
+            }
+            Instant lastScan = dockerService.getLastScan();
+            String age = lastScan.equals(Instant.EPOCH)
+                    ? "no listing yet"
+                    : "listings from " + Duration.between(lastScan, Instant.now()).toSeconds() + "s ago";
+            source.sendMessage(prefix("Dry run against " + age + ": ", plan.matched() + " container(s) matched, "
+                    + plan.count(ReconcilePlan.Action.REGISTER) + " to register, "
+                    + plan.count(ReconcilePlan.Action.UPDATE) + " to update, "
+                    + plan.count(ReconcilePlan.Action.UNREGISTER) + " to unregister."));
+            if (plan.steps().isEmpty() && plan.skipped().isEmpty()) {
+                source.sendMessage(Component.text("[DockBridge] Nothing to change.", NamedTextColor.GREEN));
+                return;
+            }
+            for (ReconcilePlan.Step step : plan.steps()) {
+                source.sendMessage(describeStep(step));
+            }
+            if (!plan.tryRemovals().isEmpty()) {
+                source.sendMessage(prefix("Leave try list first: ", String.join(", ", plan.tryRemovals())));
+            }
+            for (ReconcilePlan.Skipped skip : plan.skipped()) {
+                source.sendMessage(Component.text(" ! ", NamedTextColor.RED)
+                        .append(Component.text(skip.serverName(), NamedTextColor.AQUA))
+                        .append(Component.text(" skipped: " + skip.reason(), NamedTextColor.GRAY)));
+            }
+            boolean probed = dockerService.getProber().isPresent();
+            List<String> joining = new ArrayList<>();
+            for (ReconcilePlan.Step step : plan.steps()) {
+                if (step.action() != ReconcilePlan.Action.UNREGISTER) {
+                    joining.add(step.serverName());
+                }
+            }
+            if (!joining.isEmpty()) {
+                source.sendMessage(prefix(probed ? "Join try list after first probe: " : "Join try list: ", String.join(", ", joining)));
+            }
+        });
+    }
+
+    private Component describeStep(ReconcilePlan.Step step) {
+        return switch (step.action()) {
+            case REGISTER -> Component.text(" + ", NamedTextColor.GREEN)
+                    .append(Component.text(step.serverName(), NamedTextColor.AQUA))
+                    .append(Component.text(" -> ", NamedTextColor.DARK_GRAY))
+                    .append(Component.text(formatAddress(step.next()), NamedTextColor.GREEN));
+            case UPDATE -> Component.text(" ~ ", NamedTextColor.YELLOW)
+                    .append(Component.text(step.serverName(), NamedTextColor.AQUA))
+                    .append(Component.text(" " + formatAddress(step.previous()), NamedTextColor.GRAY))
                     .append(Component.text(" -> ", NamedTextColor.DARK_GRAY))
-                    .append(Component.text(reg.host() + ":" + reg.port(), NamedTextColor.GREEN))
-                    .append(Component.text(" (", NamedTextColor.DARK_GRAY))
-                    .append(Component.text("container ", NamedTextColor.GRAY))
-                    .append(Component.text(reg.containerId(), NamedTextColor.WHITE))
-                    .append(Component.text(", base ", NamedTextColor.GRAY))
-                    .append(Component.text(reg.baseName(), NamedTextColor.WHITE))
-                    .append(Component.text(")", NamedTextColor.DARK_GRAY));
-            source.sendMessage(line);
+                    .append(Component.text(formatAddress(step.next()), NamedTextColor.GREEN));
+            case UNREGISTER -> Component.text(" - ", NamedTextColor.RED)
+                    .append(Component.text(step.serverName(), NamedTextColor.AQUA))
+                    .append(Component.text(" (was " + formatAddress(step.previous()) + ")", NamedTextColor.GRAY));
+        };
+    }
+
+    private static String formatAddress(ServerInfo info) {
+        return info.getAddress().getHostString() + ":" + info.getAddress().getPort();
+    }
+
+    private String describeEndpoint(DockerEndpoint endpoint) {
+        String status = endpoint.isAvailable()
+                ? "available, " + endpoint.containers().size() + " container(s)"
+                : endpoint.unavailableReason()
+                .map(reason -> "unavailable - " + reason)
+                .orElse("unavailable");
+        if (endpoint.isScanInFlight()) {
+            status += ", scan running";
+        }
+        var coordinator = dockerService.getCoordinator();
+        if (coordinator.isPresent() && !coordinator.get().isLeader()) {
+            return status + ", listed by " + coordinator.get().leaderId();
+        }
+        for (DockerEventWatcher watcher : eventWatchers) {
+            if (watcher.endpoint().equals(endpoint.endpoint())) {
+                return status + ", events " + (!watcher.isRunning()
+                        ? "disabled (polling only)"
+                        : watcher.isConnected() ? "connected" : "reconnecting");
+            }
+        }
+        return status;
+    }
+
+    private Component describeRegistration(DockerState state, DockerService.Registration reg) {
+        Component line = Component.text(" - ", NamedTextColor.DARK_GRAY)
+                .append(Component.text(reg.serverName(), NamedTextColor.AQUA))
+                .append(Component.text(" -> ", NamedTextColor.DARK_GRAY))
+                .append(Component.text(reg.host() + ":" + reg.port(), NamedTextColor.GREEN))
+                .append(Component.text(" (", NamedTextColor.DARK_GRAY))
+                .append(Component.text("container ", NamedTextColor.GRAY))
+                .append(Component.text(reg.containerId(), NamedTextColor.WHITE))
+                .append(Component.text(", base ", NamedTextColor.GRAY))
+                .append(Component.text(reg.baseName(), NamedTextColor.WHITE))
+                .append(Component.text(", players ", NamedTextColor.GRAY))
+                .append(Component.text(String.valueOf(balancer.connectedPlayers(reg.serverName())), NamedTextColor.WHITE))
+                .append(Component.text(")", NamedTextColor.DARK_GRAY));
+        if (state.isUnverified(reg.serverName())) {
+            line = line.append(Component.text(" [restored, unverified]", NamedTextColor.YELLOW));
+        }
+        if (dockerService.isDraining(reg.serverName())) {
+            line = line.append(Component.text(" [draining]", NamedTextColor.YELLOW));
+        }
+        if (reg.cold()) {
+            line = line.append(Component.text(" [cold]", NamedTextColor.BLUE));
+        } else if (dockerService.isSuspending(reg.serverName())) {
+            line = line.append(Component.text(" [suspending]", NamedTextColor.BLUE));
+        } else if (dockerService.isRetiring(reg.serverName())) {
+            line = line.append(Component.text(" [retiring]", NamedTextColor.YELLOW));
         }
+        var health = dockerService.getProber().flatMap(prober -> prober.health(reg.serverName()));
+        if (health.isPresent()) {
+            line = line.append(probeStatus(health.get()));
+        }
+        return line;
+    }
+
+    private Component describeHistogram(String label, DockBridgeMetrics.Histogram histogram, long errors) {
+        long count = histogram.count();
+        String text = count == 0L
+                ? "no samples"
+                : count + " sample(s), mean " + formatSeconds(histogram.sumSeconds() / count)
+                + ", p50 <= " + formatSeconds(histogram.quantileUpperBound(0.5))
+                + ", p99 <= " + formatSeconds(histogram.quantileUpperBound(0.99));
+        if (errors > 0L) {
+            text += ", " + errors + " error(s)";
+        }
+        return prefix(" " + label + ": ", text);
+    }
+
+    private String describeInterval() {
+        return pollScheduler.interval().toSeconds() + "s (" + pollScheduler.reason()
+                + "; next delay with jitter " + pollScheduler.nextDelay().toSeconds() + "s)";
+    }
+
+    private static String formatSeconds(double seconds) {
+        if (Double.isInfinite(seconds)) {
+            return "more than 30s";
+        }
+        return seconds < 1.0
+                ? String.format(Locale.ROOT, "%.1fms", seconds * 1000.0)
+                : String.format(Locale.ROOT, "%.2fs", seconds);
+    }
+
+    private static List<String> startingWith(List<String> options, String typed) {
+        String lower = typed.toLowerCase(Locale.ROOT);
+        List<String> matches = new ArrayList<>();
+        for (String option : options) {
+            if (option.toLowerCase(Locale.ROOT).startsWith(lower)) {
+                matches.add(option);
+                if (matches.size() == MAX_SUGGESTIONS) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static void send(CommandSource source, List<Component> lines) {
+        source.sendMessage(Component.join(JoinConfiguration.newlines(), lines));
+    }
+
+    private static String describeCoordination(ScanCoordinator coordinator) {
+        if (coordinator.isLeader()) {
+            return "scanning Docker as " + coordinator.self() + " (lease term " + coordinator.term() + ")";
+        }
+        Duration age = coordinator.listingAge();
+        return "following " + coordinator.leaderId() + " (lease term " + coordinator.term() + "), "
+                + (age == null ? "no listing applied yet" : "listing from " + age.toSeconds() + "s ago");
+    }
+
+    private Component probeStatus(BackendProber.BackendHealth health) {
+        NamedTextColor color = switch (health.state()) {
+            case HEALTHY -> NamedTextColor.GREEN;
+            case PENDING -> NamedTextColor.YELLOW;
+            case UNHEALTHY -> NamedTextColor.RED;
+        };
+        Component status = Component.text(" [", NamedTextColor.DARK_GRAY)
+                .append(Component.text(health.state().name().toLowerCase(), color));
+        if (health.p50Micros() >= 0) {
+            status = status.append(Component.text(" p50 " + formatMillis(health.p50Micros())
+                    + " p99 " + formatMillis(health.p99Micros()), NamedTextColor.GRAY));
+        }
+        if (health.failureStreak() > 0) {
+            status = status.append(Component.text(" failures " + health.failureStreak(), NamedTextColor.RED));
+        }
+        return status.append(Component.text("]", NamedTextColor.DARK_GRAY));
+    }
+
+    private static String formatMillis(long micros) {
+        return micros < 10_000L
+                ? String.format("%.1fms", micros / 1000.0)
+                : (micros / 1000L) + "ms";
     }
 
     private Component prefix(String label, String value) {
@@ -6,8 +6,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Lightweight configuration wrapper. It keeps reading minimal so it can be
@@ -17,17 +23,77 @@ public final class DockBridgeConfig {
 
     private static final String CONFIG_FILE_NAME = "dockbridge.conf";
 
-    private final String dockerEndpoint;
+    private final List<String> dockerEndpoints;
     private final int dockerPollIntervalSeconds;
+    private final int dockerPollFloorSeconds;
+    private final int dockerPollCeilingSeconds;
+    private final int dockerPollJitterPercent;
+    private final int dockerScanTimeoutSeconds;
+    private final int dockerCallTimeoutMillis;
+    private final String dockerClient;
+    private final int dockerOperationsMaxConcurrent;
+    private final int dockerOperationsPerSecond;
+    private final String dockerAddressStrategy;
+    private final String dockerAddressNetwork;
+    private final int dockerAddressDnsTtlSeconds;
+    private final boolean dockerEventsEnabled;
+    private final int dockerEventsReconnectDelaySeconds;
+    private final int dockerEventsReconcileIntervalSeconds;
+    private final boolean dockerHealthRequired;
+    private final int dockerHealthStartingGraceSeconds;
     private final String proxyGroup;
+    private final boolean shardingEnabled;
+    private final String shardingReplicaId;
+    private final List<String> shardingReplicas;
+    private final int shardingVirtualNodes;
     private final boolean healthEnablePing;
     private final int healthPingIntervalSeconds;
     private final int healthMaxFailures;
+    private final boolean healthProbeEnabled;
+    private final int healthProbeTimeoutMillis;
+    private final int healthProbeMaxConcurrent;
     private final String autoRegisterLabelKey;
     private final String autoRegisterLabelValue;
     private final String autoRegisterNameLabel;
     private final String autoRegisterPortLabel;
+    private final String autoRegisterWeightLabel;
+    private final String autoRegisterDrainingLabel;
+    private final String autoRegisterHealthGraceLabel;
+    private final String autoRegisterProxyGroupLabel;
+    private final String autoRegisterIdleMinutesLabel;
+    private final String autoRegisterIdleActionLabel;
+    private final String autoRegisterScaleMinLabel;
+    private final String autoRegisterScaleMaxLabel;
+    private final String autoRegisterScaleTargetLabel;
+    private final String autoRegisterScaledFromLabel;
     private final String duplicateStrategy;
+    private final String balancingStrategy;
+    private final int balancingLatencyPenaltyMillis;
+    private final boolean drainEnabled;
+    private final int drainTimeoutSeconds;
+    private final int drainMaxParallelMoves;
+    private final boolean coldEnabled;
+    private final int coldStartTimeoutSeconds;
+    private final int coldPingIntervalMillis;
+    private final String coldFallbackServer;
+    private final int idleCheckIntervalSeconds;
+    private final String idleAction;
+    private final int idleStopTimeoutSeconds;
+    private final boolean autoscaleEnabled;
+    private final int autoscaleCheckIntervalSeconds;
+    private final int autoscaleHysteresisPercent;
+    private final int autoscaleScaleOutCooldownSeconds;
+    private final int autoscaleScaleInCooldownSeconds;
+    private final boolean autoscaleAllowMounts;
+    private final boolean reloadWatchFile;
+    private final boolean snapshotEnabled;
+    private final boolean coordinationEnabled;
+    private final String coordinationDirectory;
+    private final String coordinationNodeId;
+    private final int coordinationLeaseSeconds;
+    private final boolean metricsEnabled;
+    private final String metricsBind;
+    private final int metricsPort;
     private final boolean logScan;
     private final boolean logMatches;
     private final boolean logSummary;
@@ -35,38 +101,160 @@ public final class DockBridgeConfig {
     private final boolean logRegistered;
     private final boolean logUpdated;
     private final boolean logUnregistered;
+    private final Map<String, String> settings;
 
     private DockBridgeConfig(
-            String dockerEndpoint,
+            List<String> dockerEndpoints,
             int dockerPollIntervalSeconds,
+            int dockerPollFloorSeconds,
+            int dockerPollCeilingSeconds,
+            int dockerPollJitterPercent,
+            int dockerScanTimeoutSeconds,
+            int dockerCallTimeoutMillis,
+            String dockerClient,
+            int dockerOperationsMaxConcurrent,
+            int dockerOperationsPerSecond,
+            String dockerAddressStrategy,
+            String dockerAddressNetwork,
+            int dockerAddressDnsTtlSeconds,
+            boolean dockerEventsEnabled,
+            int dockerEventsReconnectDelaySeconds,
+            int dockerEventsReconcileIntervalSeconds,
+            boolean dockerHealthRequired,
+            int dockerHealthStartingGraceSeconds,
             String proxyGroup,
+            boolean shardingEnabled,
+            String shardingReplicaId,
+            List<String> shardingReplicas,
+            int shardingVirtualNodes,
             boolean healthEnablePing,
             int healthPingIntervalSeconds,
             int healthMaxFailures,
+            boolean healthProbeEnabled,
+            int healthProbeTimeoutMillis,
+            int healthProbeMaxConcurrent,
             String autoRegisterLabelKey,
             String autoRegisterLabelValue,
             String autoRegisterNameLabel,
             String autoRegisterPortLabel,
+            String autoRegisterWeightLabel,
+            String autoRegisterDrainingLabel,
+            String autoRegisterHealthGraceLabel,
+            String autoRegisterProxyGroupLabel,
+            String autoRegisterIdleMinutesLabel,
+            String autoRegisterIdleActionLabel,
+            String autoRegisterScaleMinLabel,
+            String autoRegisterScaleMaxLabel,
+            String autoRegisterScaleTargetLabel,
+            String autoRegisterScaledFromLabel,
             String duplicateStrategy,
+            String balancingStrategy,
+            int balancingLatencyPenaltyMillis,
+            boolean drainEnabled,
+            int drainTimeoutSeconds,
+            int drainMaxParallelMoves,
+            boolean coldEnabled,
+            int coldStartTimeoutSeconds,
+            int coldPingIntervalMillis,
+            String coldFallbackServer,
+            int idleCheckIntervalSeconds,
+            String idleAction,
+            int idleStopTimeoutSeconds,
+            boolean autoscaleEnabled,
+            int autoscaleCheckIntervalSeconds,
+            int autoscaleHysteresisPercent,
+            int autoscaleScaleOutCooldownSeconds,
+            int autoscaleScaleInCooldownSeconds,
+            boolean autoscaleAllowMounts,
+            boolean reloadWatchFile,
+            boolean snapshotEnabled,
+            boolean coordinationEnabled,
+            String coordinationDirectory,
+            String coordinationNodeId,
+            int coordinationLeaseSeconds,
+            boolean metricsEnabled,
+            String metricsBind,
+            int metricsPort,
             boolean logScan,
             boolean logMatches,
             boolean logSummary,
             boolean logSummaryWhenUnchanged,
             boolean logRegistered,
             boolean logUpdated,
-            boolean logUnregistered
+            boolean logUnregistered,
+            Map<String, String> settings
     ) {
-        this.dockerEndpoint = Objects.requireNonNull(dockerEndpoint, "dockerEndpoint");
+        this.dockerEndpoints = List.copyOf(dockerEndpoints);
         this.dockerPollIntervalSeconds = dockerPollIntervalSeconds;
+        this.dockerPollFloorSeconds = dockerPollFloorSeconds;
+        this.dockerPollCeilingSeconds = dockerPollCeilingSeconds;
+        this.dockerPollJitterPercent = dockerPollJitterPercent;
+        this.dockerScanTimeoutSeconds = dockerScanTimeoutSeconds;
+        this.dockerCallTimeoutMillis = dockerCallTimeoutMillis;
+        this.dockerClient = Objects.requireNonNull(dockerClient, "dockerClient");
+        this.dockerOperationsMaxConcurrent = dockerOperationsMaxConcurrent;
+        this.dockerOperationsPerSecond = dockerOperationsPerSecond;
+        this.dockerAddressStrategy = Objects.requireNonNull(dockerAddressStrategy, "dockerAddressStrategy");
+        this.dockerAddressNetwork = Objects.requireNonNull(dockerAddressNetwork, "dockerAddressNetwork");
+        this.dockerAddressDnsTtlSeconds = dockerAddressDnsTtlSeconds;
+        this.dockerEventsEnabled = dockerEventsEnabled;
+        this.dockerEventsReconnectDelaySeconds = dockerEventsReconnectDelaySeconds;
+        this.dockerEventsReconcileIntervalSeconds = dockerEventsReconcileIntervalSeconds;
+        this.dockerHealthRequired = dockerHealthRequired;
+        this.dockerHealthStartingGraceSeconds = dockerHealthStartingGraceSeconds;
         this.proxyGroup = Objects.requireNonNull(proxyGroup, "proxyGroup");
+        this.shardingEnabled = shardingEnabled;
+        this.shardingReplicaId = Objects.requireNonNull(shardingReplicaId, "shardingReplicaId");
+        this.shardingReplicas = List.copyOf(shardingReplicas);
+        this.shardingVirtualNodes = shardingVirtualNodes;
         this.healthEnablePing = healthEnablePing;
         this.healthPingIntervalSeconds = healthPingIntervalSeconds;
         this.healthMaxFailures = healthMaxFailures;
+        this.healthProbeEnabled = healthProbeEnabled;
+        this.healthProbeTimeoutMillis = healthProbeTimeoutMillis;
+        this.healthProbeMaxConcurrent = healthProbeMaxConcurrent;
         this.autoRegisterLabelKey = Objects.requireNonNull(autoRegisterLabelKey, "autoRegisterLabelKey");
         this.autoRegisterLabelValue = Objects.requireNonNull(autoRegisterLabelValue, "autoRegisterLabelValue");
         this.autoRegisterNameLabel = Objects.requireNonNull(autoRegisterNameLabel, "autoRegisterNameLabel");
         this.autoRegisterPortLabel = Objects.requireNonNull(autoRegisterPortLabel, "autoRegisterPortLabel");
+        this.autoRegisterWeightLabel = Objects.requireNonNull(autoRegisterWeightLabel, "autoRegisterWeightLabel");
+        this.autoRegisterDrainingLabel = Objects.requireNonNull(autoRegisterDrainingLabel, "autoRegisterDrainingLabel");
+        this.autoRegisterHealthGraceLabel = Objects.requireNonNull(autoRegisterHealthGraceLabel, "autoRegisterHealthGraceLabel");
+        this.autoRegisterProxyGroupLabel = Objects.requireNonNull(autoRegisterProxyGroupLabel, "autoRegisterProxyGroupLabel");
+        this.autoRegisterIdleMinutesLabel = Objects.requireNonNull(autoRegisterIdleMinutesLabel, "autoRegisterIdleMinutesLabel");
+        this.autoRegisterIdleActionLabel = Objects.requireNonNull(autoRegisterIdleActionLabel, "autoRegisterIdleActionLabel");
+        this.autoRegisterScaleMinLabel = Objects.requireNonNull(autoRegisterScaleMinLabel, "autoRegisterScaleMinLabel");
+        this.autoRegisterScaleMaxLabel = Objects.requireNonNull(autoRegisterScaleMaxLabel, "autoRegisterScaleMaxLabel");
+        this.autoRegisterScaleTargetLabel = Objects.requireNonNull(autoRegisterScaleTargetLabel, "autoRegisterScaleTargetLabel");
+        this.autoRegisterScaledFromLabel = Objects.requireNonNull(autoRegisterScaledFromLabel, "autoRegisterScaledFromLabel");
         this.duplicateStrategy = Objects.requireNonNull(duplicateStrategy, "duplicateStrategy");
+        this.balancingStrategy = Objects.requireNonNull(balancingStrategy, "balancingStrategy");
+        this.balancingLatencyPenaltyMillis = balancingLatencyPenaltyMillis;
+        this.drainEnabled = drainEnabled;
+        this.drainTimeoutSeconds = drainTimeoutSeconds;
+        this.drainMaxParallelMoves = drainMaxParallelMoves;
+        this.coldEnabled = coldEnabled;
+        this.coldStartTimeoutSeconds = coldStartTimeoutSeconds;
+        this.coldPingIntervalMillis = coldPingIntervalMillis;
+        this.coldFallbackServer = Objects.requireNonNull(coldFallbackServer, "coldFallbackServer");
+        this.idleCheckIntervalSeconds = idleCheckIntervalSeconds;
+        this.idleAction = Objects.requireNonNull(idleAction, "idleAction");
+        this.idleStopTimeoutSeconds = idleStopTimeoutSeconds;
+        this.autoscaleEnabled = autoscaleEnabled;
+        this.autoscaleCheckIntervalSeconds = autoscaleCheckIntervalSeconds;
+        this.autoscaleHysteresisPercent = autoscaleHysteresisPercent;
+        this.autoscaleScaleOutCooldownSeconds = autoscaleScaleOutCooldownSeconds;
+        this.autoscaleScaleInCooldownSeconds = autoscaleScaleInCooldownSeconds;
+        this.autoscaleAllowMounts = autoscaleAllowMounts;
+        this.reloadWatchFile = reloadWatchFile;
+        this.snapshotEnabled = snapshotEnabled;
+        this.coordinationEnabled = coordinationEnabled;
+        this.coordinationDirectory = Objects.requireNonNull(coordinationDirectory, "coordinationDirectory");
+        this.coordinationNodeId = Objects.requireNonNull(coordinationNodeId, "coordinationNodeId");
+        this.coordinationLeaseSeconds = coordinationLeaseSeconds;
+        this.metricsEnabled = metricsEnabled;
+        this.metricsBind = Objects.requireNonNull(metricsBind, "metricsBind");
+        this.metricsPort = metricsPort;
         this.logScan = logScan;
         this.logMatches = logMatches;
         this.logSummary = logSummary;
@@ -74,6 +262,7 @@ public final class DockBridgeConfig {
         this.logRegistered = logRegistered;
         this.logUpdated = logUpdated;
         this.logUnregistered = logUnregistered;
+        this.settings = Map.copyOf(settings);
     }
 
     public static DockBridgeConfig load(Path dataDirectory, Logger logger) {
@@ -99,6 +288,22 @@ public final class DockBridgeConfig {
         return fromProperties(properties, logger);
     }
 
+    /**
+     * Reads the configuration file again for a reload. Unlike {@link #load}, a missing or
+     * unreadable file is an error instead of falling back to defaults.
+     */
+    public static DockBridgeConfig reload(Path dataDirectory, Logger logger) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(dataDirectory.resolve(CONFIG_FILE_NAME))) {
+            properties.load(input);
+        }
+        return fromProperties(properties, logger);
+    }
+
+    static String fileName() {
+        return CONFIG_FILE_NAME;
+    }
+
     private static void copyDefaultConfig(Path target, Logger logger) {
         try (InputStream defaultConfig = DockBridgeConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE_NAME)) {
             if (defaultConfig == null) {
@@ -112,18 +317,78 @@ public final class DockBridgeConfig {
         }
     }
 
-    private static DockBridgeConfig fromProperties(Properties properties, Logger logger) {
-        String dockerEndpoint = properties.getProperty("docker.endpoint", "unix:///var/run/docker.sock");
+    static DockBridgeConfig fromProperties(Properties properties, Logger logger) {
+        List<String> dockerEndpoints = readList(properties, "docker.endpoint", "unix:///var/run/docker.sock");
         int dockerPoll = readInt(properties, "docker.poll_interval_seconds", 30, logger);
-        String proxyGroup = properties.getProperty("filters.proxy_group", "default");
+        int pollFloor = readInt(properties, "docker.poll.floor_seconds", 5, logger);
+        int pollCeiling = readInt(properties, "docker.poll.ceiling_seconds", 120, logger);
+        int pollJitter = readInt(properties, "docker.poll.jitter_percent", 10, logger);
+        int scanTimeout = readInt(properties, "docker.scan_timeout_seconds", 10, logger);
+        int callTimeout = readInt(properties, "docker.call_timeout_millis", 5000, logger);
+        String dockerClient = properties.getProperty("docker.client", "lean").trim();
+        int operationsMaxConcurrent = readInt(properties, "docker.operations.max_concurrent", 4, logger);
+        int operationsPerSecond = readInt(properties, "docker.operations.per_second", 5, logger);
+        String addressStrategy = properties.getProperty("docker.address.strategy", "dns").trim();
+        String addressNetwork = properties.getProperty("docker.address.network", "").trim();
+        int addressDnsTtl = readInt(properties, "docker.address.dns_ttl_seconds", 30, logger);
+        boolean eventsEnabled = readBoolean(properties, "docker.events.enabled", true);
+        int eventsReconnectDelay = readInt(properties, "docker.events.reconnect_delay_seconds", 5, logger);
+        int eventsReconcileInterval = readInt(properties, "docker.events.reconcile_interval_seconds", 120, logger);
+        boolean healthRequired = readBoolean(properties, "docker.health.required", false);
+        int healthStartingGrace = readInt(properties, "docker.health.starting_grace_seconds", -1, logger);
+        String proxyGroup = properties.getProperty("filters.proxy_group", "default").trim();
+        boolean shardingEnabled = readBoolean(properties, "filters.sharding.enabled", false);
+        String shardingReplicaId = properties.getProperty("filters.sharding.replica_id", "").trim();
+        List<String> shardingReplicas = readList(properties, "filters.sharding.replicas", "");
+        int shardingVirtualNodes = readInt(properties, "filters.sharding.virtual_nodes", 128, logger);
         boolean enablePing = readBoolean(properties, "health.enable_ping", true);
         int pingInterval = readInt(properties, "health.ping_interval_seconds", 10, logger);
         int maxFailures = readInt(properties, "health.max_failures", 3, logger);
+        boolean probeEnabled = readBoolean(properties, "health.probe.enabled", true);
+        int probeTimeout = readInt(properties, "health.probe.timeout_millis", 2000, logger);
+        int probeMaxConcurrent = readInt(properties, "health.probe.max_concurrent", 32, logger);
         String autoLabelKey = properties.getProperty("docker.autoregister.label_key", "net.uebliche.dockbridge.autoregister");
         String autoLabelValue = properties.getProperty("docker.autoregister.label_value", "true");
         String autoNameLabel = properties.getProperty("docker.autoregister.name_label", "net.uebliche.dockbridge.server_name");
         String autoPortLabel = properties.getProperty("docker.autoregister.port_label", "net.uebliche.dockbridge.server_port");
+        String autoWeightLabel = properties.getProperty("docker.autoregister.weight_label", "net.uebliche.dockbridge.weight");
+        String autoDrainingLabel = properties.getProperty("docker.autoregister.draining_label", "net.uebliche.dockbridge.draining");
+        String autoHealthGraceLabel = properties.getProperty("docker.autoregister.health_grace_label", "net.uebliche.dockbridge.health_grace_seconds");
+        String autoProxyGroupLabel = properties.getProperty("docker.autoregister.proxy_group_label", "net.uebliche.dockbridge.proxy_group");
+        String autoIdleMinutesLabel = properties.getProperty("docker.autoregister.idle_minutes_label", "net.uebliche.dockbridge.idle_minutes");
+        String autoIdleActionLabel = properties.getProperty("docker.autoregister.idle_action_label", "net.uebliche.dockbridge.idle_action");
+        String autoScaleMinLabel = properties.getProperty("docker.autoregister.scale_min_label", "net.uebliche.dockbridge.scale.min");
+        String autoScaleMaxLabel = properties.getProperty("docker.autoregister.scale_max_label", "net.uebliche.dockbridge.scale.max");
+        String autoScaleTargetLabel = properties.getProperty("docker.autoregister.scale_target_label", "net.uebliche.dockbridge.scale.target_players");
+        String autoScaledFromLabel = properties.getProperty("docker.autoregister.scaled_from_label", "net.uebliche.dockbridge.scaled_from");
         String duplicateStrategy = properties.getProperty("docker.autoregister.duplicate_strategy", "suffix");
+        String balancingStrategy = properties.getProperty("balancing.strategy", "power_of_two");
+        int latencyPenalty = readInt(properties, "balancing.latency_penalty_millis", 50, logger);
+        boolean drainEnabled = readBoolean(properties, "drain.enabled", true);
+        int drainTimeout = readInt(properties, "drain.timeout_seconds", 30, logger);
+        int drainMaxParallelMoves = readInt(properties, "drain.max_parallel_moves", 8, logger);
+        boolean coldEnabled = readBoolean(properties, "cold.enabled", false);
+        int coldStartTimeout = readInt(properties, "cold.start_timeout_seconds", 60, logger);
+        int coldPingInterval = readInt(properties, "cold.ping_interval_millis", 500, logger);
+        String coldFallbackServer = properties.getProperty("cold.fallback_server", "").trim();
+        int idleCheckInterval = readInt(properties, "idle.check_interval_seconds", 30, logger);
+        String idleAction = properties.getProperty("idle.action", "pause").trim();
+        int idleStopTimeout = readInt(properties, "idle.stop_timeout_seconds", 30, logger);
+        boolean autoscaleEnabled = readBoolean(properties, "autoscale.enabled", false);
+        int autoscaleCheckInterval = readInt(properties, "autoscale.check_interval_seconds", 15, logger);
+        int autoscaleHysteresis = readInt(properties, "autoscale.hysteresis_percent", 20, logger);
+        int autoscaleOutCooldown = readInt(properties, "autoscale.scale_out_cooldown_seconds", 60, logger);
+        int autoscaleInCooldown = readInt(properties, "autoscale.scale_in_cooldown_seconds", 300, logger);
+        boolean autoscaleAllowMounts = readBoolean(properties, "autoscale.allow_mounts", false);
+        boolean reloadWatchFile = readBoolean(properties, "reload.watch_file", true);
+        boolean snapshotEnabled = readBoolean(properties, "snapshot.enabled", true);
+        boolean coordinationEnabled = readBoolean(properties, "coordination.enabled", false);
+        String coordinationDirectory = properties.getProperty("coordination.directory", "").trim();
+        String coordinationNodeId = properties.getProperty("coordination.node_id", "").trim();
+        int coordinationLease = readInt(properties, "coordination.lease_seconds", 15, logger);
+        boolean metricsEnabled = readBoolean(properties, "metrics.enabled", false);
+        String metricsBind = properties.getProperty("metrics.bind", "127.0.0.1");
+        int metricsPort = readInt(properties, "metrics.port", 9225, logger);
         boolean logScan = readBoolean(properties, "logging.scan", false);
         boolean logMatches = readBoolean(properties, "logging.matches", false);
         boolean logSummary = readBoolean(properties, "logging.summary", true);
@@ -133,27 +398,124 @@ public final class DockBridgeConfig {
         boolean logUnregistered = readBoolean(properties, "logging.unregistered", true);
 
         return new DockBridgeConfig(
-                dockerEndpoint,
+                dockerEndpoints,
                 dockerPoll,
+                pollFloor,
+                pollCeiling,
+                pollJitter,
+                scanTimeout,
+                callTimeout,
+                dockerClient,
+                operationsMaxConcurrent,
+                operationsPerSecond,
+                addressStrategy,
+                addressNetwork,
+                addressDnsTtl,
+                eventsEnabled,
+                eventsReconnectDelay,
+                eventsReconcileInterval,
+                healthRequired,
+                healthStartingGrace,
                 proxyGroup,
+                shardingEnabled,
+                shardingReplicaId,
+                shardingReplicas,
+                shardingVirtualNodes,
                 enablePing,
                 pingInterval,
                 maxFailures,
+                probeEnabled,
+                probeTimeout,
+                probeMaxConcurrent,
                 autoLabelKey,
                 autoLabelValue,
                 autoNameLabel,
                 autoPortLabel,
+                autoWeightLabel,
+                autoDrainingLabel,
+                autoHealthGraceLabel,
+                autoProxyGroupLabel,
+                autoIdleMinutesLabel,
+                autoIdleActionLabel,
+                autoScaleMinLabel,
+                autoScaleMaxLabel,
+                autoScaleTargetLabel,
+                autoScaledFromLabel,
                 duplicateStrategy,
+                balancingStrategy,
+                latencyPenalty,
+                drainEnabled,
+                drainTimeout,
+                drainMaxParallelMoves,
+                coldEnabled,
+                coldStartTimeout,
+                coldPingInterval,
+                coldFallbackServer,
+                idleCheckInterval,
+                idleAction,
+                idleStopTimeout,
+                autoscaleEnabled,
+                autoscaleCheckInterval,
+                autoscaleHysteresis,
+                autoscaleOutCooldown,
+                autoscaleInCooldown,
+                autoscaleAllowMounts,
+                reloadWatchFile,
+                snapshotEnabled,
+                coordinationEnabled,
+                coordinationDirectory,
+                coordinationNodeId,
+                coordinationLease,
+                metricsEnabled,
+                metricsBind,
+                metricsPort,
                 logScan,
                 logMatches,
                 logSummary,
                 logSummaryWhenUnchanged,
                 logRegistered,
                 logUpdated,
-                logUnregistered
+                logUnregistered,
+                settingsOf(properties)
         );
     }
 
+    private static Map<String, String> settingsOf(Properties properties) {
+        Map<String, String> settings = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            settings.put(key, properties.getProperty(key).trim());
+        }
+        return settings;
+    }
+
+    /**
+     * Keys set to a different value in the other configuration, or set in only one of them.
+     */
+    public Set<String> changedKeys(DockBridgeConfig other) {
+        Set<String> keys = new HashSet<>(settings.keySet());
+        keys.addAll(other.settings.keySet());
+        keys.removeIf(key -> Objects.equals(settings.get(key), other.settings.get(key)));
+        return keys;
+    }
+
+    /**
+     * This configuration with the given keys as {@code previous} has them, for settings that
+     * only take effect after a restart.
+     */
+    DockBridgeConfig withSettingsFrom(DockBridgeConfig previous, Set<String> keys, Logger logger) {
+        Properties properties = new Properties();
+        properties.putAll(settings);
+        for (String key : keys) {
+            String value = previous.settings.get(key);
+            if (value == null) {
+                properties.remove(key);
+            } else {
+                properties.setProperty(key, value);
+            }
+        }
+        return fromProperties(properties, logger);
+    }
+
     private static int readInt(Properties properties, String key, int defaultValue, Logger logger) {
         String raw = properties.getProperty(key);
         if (raw == null || raw.isBlank()) {
@@ -167,6 +529,24 @@ public final class DockBridgeConfig {
         }
     }
 
+    /**
+     * Reads a comma-separated list, dropping blanks and duplicates. Falls back to the default
+     * when nothing is left; a blank default gives an empty list.
+     */
+    private static List<String> readList(Properties properties, String key, String defaultValue) {
+        List<String> values = new ArrayList<>();
+        for (String raw : properties.getProperty(key, defaultValue).split(",")) {
+            String value = raw.trim();
+            if (!value.isEmpty() && !values.contains(value)) {
+                values.add(value);
+            }
+        }
+        if (values.isEmpty()) {
+            return defaultValue.isBlank() ? List.of() : List.of(defaultValue);
+        }
+        return values;
+    }
+
     private static boolean readBoolean(Properties properties, String key, boolean defaultValue) {
         String raw = properties.getProperty(key);
         if (raw == null || raw.isBlank()) {
@@ -175,18 +555,122 @@ public final class DockBridgeConfig {
         return Boolean.parseBoolean(raw.trim());
     }
 
-    public String dockerEndpoint() {
-        return dockerEndpoint;
+    public List<String> dockerEndpoints() {
+        return dockerEndpoints;
     }
 
     public int dockerPollIntervalSeconds() {
         return dockerPollIntervalSeconds;
     }
 
+    public int dockerPollFloorSeconds() {
+        return dockerPollFloorSeconds;
+    }
+
+    public int dockerPollCeilingSeconds() {
+        return dockerPollCeilingSeconds;
+    }
+
+    public int dockerPollJitterPercent() {
+        return dockerPollJitterPercent;
+    }
+
+    public int dockerScanTimeoutSeconds() {
+        return dockerScanTimeoutSeconds;
+    }
+
+    public int dockerCallTimeoutMillis() {
+        return dockerCallTimeoutMillis;
+    }
+
+    public String dockerClient() {
+        return dockerClient;
+    }
+
+    /**
+     * Docker calls that change containers (start, unpause, pause, stop) allowed in flight at once.
+     */
+    public int dockerOperationsMaxConcurrent() {
+        return dockerOperationsMaxConcurrent;
+    }
+
+    /**
+     * Docker calls that change containers started per second; 0 or less means unpaced.
+     */
+    public int dockerOperationsPerSecond() {
+        return dockerOperationsPerSecond;
+    }
+
+    public String dockerAddressStrategy() {
+        return dockerAddressStrategy;
+    }
+
+    /**
+     * Docker network whose container IP the {@code network} address strategy uses; blank
+     * means the container's only (or alphabetically first) network.
+     */
+    public String dockerAddressNetwork() {
+        return dockerAddressNetwork;
+    }
+
+    public int dockerAddressDnsTtlSeconds() {
+        return dockerAddressDnsTtlSeconds;
+    }
+
+    public boolean dockerEventsEnabled() {
+        return dockerEventsEnabled;
+    }
+
+    public int dockerEventsReconnectDelaySeconds() {
+        return dockerEventsReconnectDelaySeconds;
+    }
+
+    public int dockerEventsReconcileIntervalSeconds() {
+        return dockerEventsReconcileIntervalSeconds;
+    }
+
+    public boolean dockerHealthRequired() {
+        return dockerHealthRequired;
+    }
+
+    /**
+     * Seconds a container may report {@code health: starting} before it is registered anyway;
+     * negative means only healthy containers are registered.
+     */
+    public int dockerHealthStartingGraceSeconds() {
+        return dockerHealthStartingGraceSeconds;
+    }
+
+    /**
+     * Group this proxy serves; containers whose proxy group label names other groups only are
+     * left to the proxies serving those. {@code *} serves every group.
+     */
     public String proxyGroup() {
         return proxyGroup;
     }
 
+    public boolean shardingEnabled() {
+        return shardingEnabled;
+    }
+
+    /**
+     * This proxy's id on the sharding ring; blank means the {@code HOSTNAME} environment variable.
+     */
+    public String shardingReplicaId() {
+        return shardingReplicaId;
+    }
+
+    /**
+     * Ids of all proxy replicas sharing the containers, identical on every replica.
+     */
+    public List<String> shardingReplicas() {
+        return shardingReplicas;
+    }
+
+    public int shardingVirtualNodes() {
+        return shardingVirtualNodes;
+    }
+
     public boolean healthEnablePing() {
         return healthEnablePing;
     }
@@ -199,6 +683,18 @@ public final class DockBridgeConfig {
         return healthMaxFailures;
     }
 
+    public boolean healthProbeEnabled() {
+        return healthProbeEnabled;
+    }
+
+    public int healthProbeTimeoutMillis() {
+        return healthProbeTimeoutMillis;
+    }
+
+    public int healthProbeMaxConcurrent() {
+        return healthProbeMaxConcurrent;
+    }
+
     public String autoRegisterLabelKey() {
         return autoRegisterLabelKey;
     }
@@ -215,10 +711,198 @@ public final class DockBridgeConfig {
         return autoRegisterPortLabel;
     }
 
+    public String autoRegisterWeightLabel() {
+        return autoRegisterWeightLabel;
+    }
+
+    public String autoRegisterDrainingLabel() {
+        return autoRegisterDrainingLabel;
+    }
+
+    public String autoRegisterHealthGraceLabel() {
+        return autoRegisterHealthGraceLabel;
+    }
+
+    public String autoRegisterProxyGroupLabel() {
+        return autoRegisterProxyGroupLabel;
+    }
+
+    public String autoRegisterIdleMinutesLabel() {
+        return autoRegisterIdleMinutesLabel;
+    }
+
+    public String autoRegisterIdleActionLabel() {
+        return autoRegisterIdleActionLabel;
+    }
+
+    public String autoRegisterScaleMinLabel() {
+        return autoRegisterScaleMinLabel;
+    }
+
+    public String autoRegisterScaleMaxLabel() {
+        return autoRegisterScaleMaxLabel;
+    }
+
+    /**
+     * Label on a template container naming how many players each replica of its group should hold.
+     */
+    public String autoRegisterScaleTargetLabel() {
+        return autoRegisterScaleTargetLabel;
+    }
+
+    /**
+     * Label DockBridge puts on the replicas it creates, holding the template's short id.
+     */
+    public String autoRegisterScaledFromLabel() {
+        return autoRegisterScaledFromLabel;
+    }
+
     public String duplicateStrategy() {
         return duplicateStrategy;
     }
 
+    public String balancingStrategy() {
+        return balancingStrategy;
+    }
+
+    public int balancingLatencyPenaltyMillis() {
+        return balancingLatencyPenaltyMillis;
+    }
+
+    public boolean drainEnabled() {
+        return drainEnabled;
+    }
+
+    public int drainTimeoutSeconds() {
+        return drainTimeoutSeconds;
+    }
+
+    public int drainMaxParallelMoves() {
+        return drainMaxParallelMoves;
+    }
+
+    /**
+     * Whether stopped and paused labelled containers stay registered as cold servers that are
+     * started when a player connects.
+     */
+    public boolean coldEnabled() {
+        return coldEnabled;
+    }
+
+    public int coldStartTimeoutSeconds() {
+        return coldStartTimeoutSeconds;
+    }
+
+    public int coldPingIntervalMillis() {
+        return coldPingIntervalMillis;
+    }
+
+    /**
+     * Server to send a player to when a cold server does not come up in time; blank means a
+     * running replica with the same base name, if there is one.
+     */
+    public String coldFallbackServer() {
+        return coldFallbackServer;
+    }
+
+    public int idleCheckIntervalSeconds() {
+        return idleCheckIntervalSeconds;
+    }
+
+    /**
+     * What happens to an idle container without an idle action label: {@code pause} or {@code stop}.
+     */
+    public String idleAction() {
+        return idleAction;
+    }
+
+    /**
+     * Seconds Docker gives an idle container to shut down on {@code stop} before killing it.
+     */
+    public int idleStopTimeoutSeconds() {
+        return idleStopTimeoutSeconds;
+    }
+
+    /**
+     * Whether replica groups with a template container are scaled by creating and removing
+     * copies of the template.
+     */
+    public boolean autoscaleEnabled() {
+        return autoscaleEnabled;
+    }
+
+    public int autoscaleCheckIntervalSeconds() {
+        return autoscaleCheckIntervalSeconds;
+    }
+
+    /**
+     * How far below the target the players must fall, in percent, before a replica is removed.
+     */
+    public int autoscaleHysteresisPercent() {
+        return autoscaleHysteresisPercent;
+    }
+
+    public int autoscaleScaleOutCooldownSeconds() {
+        return autoscaleScaleOutCooldownSeconds;
+    }
+
+    public int autoscaleScaleInCooldownSeconds() {
+        return autoscaleScaleInCooldownSeconds;
+    }
+
+    /**
+     * Whether templates with binds, mounts or volumes from other containers are copied, so
+     * that every replica shares them.
+     */
+    public boolean autoscaleAllowMounts() {
+        return autoscaleAllowMounts;
+    }
+
+    /**
+     * Whether edits to the configuration file are reloaded without {@code /dockbridge reload}.
+     */
+    public boolean reloadWatchFile() {
+        return reloadWatchFile;
+    }
+
+    public boolean snapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    public boolean coordinationEnabled() {
+        return coordinationEnabled;
+    }
+
+    /**
+     * Directory shared by the coordinating proxies, holding the lease and the published listing.
+     */
+    public String coordinationDirectory() {
+        return coordinationDirectory;
+    }
+
+    /**
+     * This proxy's id in the lease; blank means the {@code HOSTNAME} environment variable.
+     */
+    public String coordinationNodeId() {
+        return coordinationNodeId;
+    }
+
+    public int coordinationLeaseSeconds() {
+        return coordinationLeaseSeconds;
+    }
+
+    public boolean metricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public String metricsBind() {
+        return metricsBind;
+    }
+
+    public int metricsPort() {
+        return metricsPort;
+    }
+
     public boolean logScan() {
         return logScan;
     }
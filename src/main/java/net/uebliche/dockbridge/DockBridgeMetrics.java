@@ -0,0 +1,243 @@
+package net.uebliche.dockbridge;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Discovery and registration metrics, rendered in the Prometheus text exposition format.
+ * Recording only touches adders so the scan and probe paths never contend on a lock.
+ */
+public final class DockBridgeMetrics {
+
+    private static final double[] DURATION_BUCKETS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0, 30.0
+    };
+
+    private final EnumMap<Phase, Histogram> phaseDurations = new EnumMap<>(Phase.class);
+    private final EnumMap<DockerCall, Histogram> dockerCallDurations = new EnumMap<>(DockerCall.class);
+    private final EnumMap<DockerCall, LongAdder> dockerCallErrors = new EnumMap<>(DockerCall.class);
+    private final EnumMap<RegistrationAction, LongAdder> registrationActions = new EnumMap<>(RegistrationAction.class);
+    private final List<Gauge> gauges = new CopyOnWriteArrayList<>();
+
+    public DockBridgeMetrics() {
+        for (Phase phase : Phase.values()) {
+            phaseDurations.put(phase, new Histogram());
+        }
+        for (DockerCall call : DockerCall.values()) {
+            dockerCallDurations.put(call, new Histogram());
+            dockerCallErrors.put(call, new LongAdder());
+        }
+        for (RegistrationAction action : RegistrationAction.values()) {
+            registrationActions.put(action, new LongAdder());
+        }
+    }
+
+    public void observePhase(Phase phase, long nanos) {
+        phaseDurations.get(phase).observe(nanos / 1_000_000_000.0);
+    }
+
+    public void observeDockerCall(DockerCall call, long nanos, boolean success) {
+        dockerCallDurations.get(call).observe(nanos / 1_000_000_000.0);
+        if (!success) {
+            dockerCallErrors.get(call).increment();
+        }
+    }
+
+    public void recordDockerError(DockerCall call) {
+        dockerCallErrors.get(call).increment();
+    }
+
+    public void recordRegistrations(int registered, int updated, int unregistered) {
+        registrationActions.get(RegistrationAction.REGISTERED).add(registered);
+        registrationActions.get(RegistrationAction.UPDATED).add(updated);
+        registrationActions.get(RegistrationAction.UNREGISTERED).add(unregistered);
+    }
+
+    /**
+     * Adds a gauge sampled on every scrape.
+     */
+    public void registerGauge(String name, String help, DoubleSupplier value) {
+        gauges.add(new Gauge(name, help, value));
+    }
+
+    public Histogram phase(Phase phase) {
+        return phaseDurations.get(phase);
+    }
+
+    public Histogram dockerCall(DockerCall call) {
+        return dockerCallDurations.get(call);
+    }
+
+    public long registrationCount(RegistrationAction action) {
+        return registrationActions.get(action).sum();
+    }
+
+    public long dockerErrorCount(DockerCall call) {
+        return dockerCallErrors.get(call).sum();
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        header(out, "dockbridge_scan_phase_duration_seconds", "Duration of discovery scan phases.", "histogram");
+        for (Phase phase : Phase.values()) {
+            phaseDurations.get(phase).render(out, "dockbridge_scan_phase_duration_seconds", "phase", phase.label());
+        }
+        header(out, "dockbridge_docker_api_duration_seconds", "Latency of Docker API calls.", "histogram");
+        for (DockerCall call : DockerCall.values()) {
+            dockerCallDurations.get(call).render(out, "dockbridge_docker_api_duration_seconds", "operation", call.label());
+        }
+        header(out, "dockbridge_docker_api_errors_total", "Failed Docker API calls.", "counter");
+        for (DockerCall call : DockerCall.values()) {
+            sample(out, "dockbridge_docker_api_errors_total", "operation", call.label(), dockerCallErrors.get(call).sum());
+        }
+        header(out, "dockbridge_registrations_total", "Velocity server registrations by action.", "counter");
+        for (RegistrationAction action : RegistrationAction.values()) {
+            sample(out, "dockbridge_registrations_total", "action", action.label(), registrationActions.get(action).sum());
+        }
+        for (Gauge gauge : gauges) {
+            header(out, gauge.name(), gauge.help(), "gauge");
+            out.append(gauge.name()).append(' ').append(format(gauge.value().getAsDouble())).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labelName, String labelValue, double value) {
+        out.append(name).append('{').append(labelName).append("=\"").append(labelValue).append("\"} ")
+                .append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    public enum Phase {
+        PING,
+        LIST,
+        PLAN,
+        APPLY;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum DockerCall {
+        PING,
+        LIST,
+        /**
+         * Subscribing to the event stream, until the daemon answers; a stream that breaks later
+         * counts as an error without a duration.
+         */
+        EVENTS,
+        START,
+        UNPAUSE,
+        PAUSE,
+        STOP,
+        CREATE,
+        REMOVE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum RegistrationAction {
+        REGISTERED,
+        UPDATED,
+        UNREGISTERED;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Cumulative histogram with fixed duration buckets in seconds.
+     */
+    public static final class Histogram {
+
+        private final LongAdder[] buckets = new LongAdder[DURATION_BUCKETS.length + 1];
+        private final DoubleAdder sum = new DoubleAdder();
+        private final LongAdder count = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void observe(double seconds) {
+            int index = 0;
+            while (index < DURATION_BUCKETS.length && seconds > DURATION_BUCKETS[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            sum.add(seconds);
+            count.increment();
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double sumSeconds() {
+            return sum.sum();
+        }
+
+        /**
+         * @return upper bound in seconds of the bucket holding the quantile, NaN when empty
+         * and +Inf when it falls past the largest bucket.
+         */
+        public double quantileUpperBound(double quantile) {
+            long total = count.sum();
+            if (total == 0L) {
+                return Double.NaN;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(total * quantile));
+            long seen = 0L;
+            for (int i = 0; i < DURATION_BUCKETS.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return DURATION_BUCKETS[i];
+                }
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+
+        private void render(StringBuilder out, String name, String labelName, String labelValue) {
+            long cumulative = 0L;
+            for (int i = 0; i < DURATION_BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{").append(labelName).append("=\"").append(labelValue)
+                        .append("\",le=\"").append(format(DURATION_BUCKETS[i])).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += buckets[DURATION_BUCKETS.length].sum();
+            out.append(name).append("_bucket{").append(labelName).append("=\"").append(labelValue)
+                    .append("\",le=\"+Inf\"} ").append(cumulative).append('\n');
+            sample(out, name + "_sum", labelName, labelValue, sum.sum());
+            sample(out, name + "_count", labelName, labelValue, cumulative);
+        }
+    }
+
+    private record Gauge(String name, String help, DoubleSupplier value) {
+    }
+}
@@ -4,15 +4,20 @@ import com.google.inject.Inject;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.connection.PostLoginEvent;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.kyori.adventure.text.Component;
+import net.uebliche.dockbridge.api.DockBridge;
+import net.uebliche.dockbridge.api.DockBridgeApi;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Plugin(
@@ -33,6 +38,18 @@ public final class DockBridgePlugin {
     private final AtomicReference<String> latestVersion = new AtomicReference<>();
     private DockBridgeConfig config;
     private DockerService dockerService;
+    private DockBridgeApiService api;
+    private final List<DockerEventWatcher> eventWatchers = new CopyOnWriteArrayList<>();
+    private BackendProber prober;
+    private ReplicaBalancer balancer;
+    private ServerDrainer drainer;
+    private ColdStarter coldStarter;
+    private IdleSuspender idleSuspender;
+    private Autoscaler autoscaler;
+    private MetricsHttpServer metricsServer;
+    private AdaptivePollScheduler pollScheduler;
+    private ScanCoordinator coordinator;
+    private ConfigReloader reloader;
 
     @Inject
     public DockBridgePlugin(ProxyServer server, Logger logger, @DataDirectory Path dataDirectory) {
@@ -49,19 +66,83 @@ public final class DockBridgePlugin {
         logger.info("Loaded DockBridge configuration (proxy group: {}).", config.proxyGroup());
 
         this.dockerService = new DockerService(server, logger, config);
-        dockerService.initialize();
-        try {
-            dockerService.refreshContainers();
-        } catch (Exception ex) {
-            logger.warn("Initial Docker refresh failed: {}", ex.getMessage());
+        this.api = new DockBridgeApiService(server, dockerService);
+        dockerService.addStateListener(api::onStateChanged);
+        DockBridge.register(api);
+        for (DockerEndpoint endpoint : dockerService.getEndpoints()) {
+            eventWatchers.add(new DockerEventWatcher(server, this, logger, dockerService, endpoint));
         }
+        if (config.healthProbeEnabled()) {
+            this.prober = new BackendProber(logger, config, dockerService);
+            dockerService.attachProber(prober);
+        }
+        this.balancer = new ReplicaBalancer(server, logger, config, dockerService);
+        dockerService.addRegistrationListener(balancer::onRegistrationsChanged);
+        server.getEventManager().register(this, balancer);
+        if (config.drainEnabled()) {
+            this.drainer = new ServerDrainer(logger, config, dockerService, balancer);
+            dockerService.attachDrainer(drainer);
+        }
+        if (config.coldEnabled()) {
+            this.coldStarter = new ColdStarter(server, logger, config, dockerService, balancer);
+            server.getEventManager().register(this, coldStarter);
+            logger.info("Keeping stopped and paused containers registered as cold servers; connecting to one starts it (timeout {}s).",
+                    Math.max(1, config.coldStartTimeoutSeconds()));
+            this.idleSuspender = new IdleSuspender(server, this, logger, config, dockerService, coldStarter);
+        }
+        if (config.autoscaleEnabled()) {
+            this.autoscaler = new Autoscaler(server, this, logger, config, dockerService);
+        }
+        if (config.snapshotEnabled()) {
+            dockerService.restore(new RegistrationSnapshot(dataDirectory, logger));
+        }
+        if (config.coordinationEnabled()) {
+            this.coordinator = ScanCoordinator.create(server, this, logger, config, dockerService, List.copyOf(eventWatchers));
+        }
+        if (coordinator != null) {
+            // The lease decides whether this proxy scans Docker or follows the one that does.
+            dockerService.attachCoordinator(coordinator);
+            coordinator.start();
+        } else {
+            dockerService.initialize();
+            if (config.dockerEventsEnabled()) {
+                // Subscribe before the initial scan so nothing that happens during it is missed.
+                eventWatchers.forEach(DockerEventWatcher::start);
+            }
+            try {
+                dockerService.refreshContainers();
+            } catch (Exception ex) {
+                logger.warn("Initial Docker refresh failed: {}", ex.getMessage());
+            }
+        }
+        this.pollScheduler = new AdaptivePollScheduler(server, this, logger, config, dockerService);
+        this.reloader = new ConfigReloader(server, this, logger, dataDirectory, config, dockerService, eventWatchers,
+                pollScheduler, idleSuspender, autoscaler);
         registerCommands();
-        logger.info("Scheduled Docker refresh every {}s.", config.dockerPollIntervalSeconds());
-        server.getScheduler()
-                .buildTask(this, dockerService::refreshContainers)
-                .delay(Duration.ofSeconds(config.dockerPollIntervalSeconds()))
-                .repeat(Duration.ofSeconds(config.dockerPollIntervalSeconds()))
-                .schedule();
+        if (config.metricsEnabled()) {
+            this.metricsServer = new MetricsHttpServer(logger, dockerService.getMetrics());
+            metricsServer.start(config.metricsBind(), config.metricsPort());
+        }
+        pollScheduler.start();
+        if (idleSuspender != null) {
+            idleSuspender.start();
+        }
+        if (autoscaler != null) {
+            logger.info("Autoscaling replica groups with a template container every {}s.",
+                    Math.max(1, config.autoscaleCheckIntervalSeconds()));
+            autoscaler.start();
+        }
+        if (prober != null) {
+            int probeInterval = Math.max(1, config.healthPingIntervalSeconds());
+            logger.info("Probing registered backends every {}s (at most {} concurrent status pings).",
+                    probeInterval, config.healthProbeMaxConcurrent());
+            server.getScheduler()
+                    .buildTask(this, prober::probeAll)
+                    .delay(Duration.ofSeconds(probeInterval))
+                    .repeat(Duration.ofSeconds(probeInterval))
+                    .schedule();
+        }
+        reloader.startWatching();
 
         String currentVersion = resolveCurrentVersion();
         logger.info("DockBridge starting with version {}.", currentVersion);
@@ -71,6 +152,49 @@ public final class DockBridgePlugin {
                 .schedule();
     }
 
+    @Subscribe
+    public void onProxyShutdown(ProxyShutdownEvent event) {
+        DockBridge.register(null);
+        if (reloader != null) {
+            reloader.stopWatching();
+        }
+        if (coordinator != null) {
+            coordinator.stop();
+        }
+        eventWatchers.forEach(DockerEventWatcher::stop);
+        if (pollScheduler != null) {
+            pollScheduler.stop();
+        }
+        if (prober != null) {
+            prober.shutdown();
+        }
+        if (drainer != null) {
+            drainer.shutdown();
+        }
+        if (autoscaler != null) {
+            autoscaler.stop();
+        }
+        if (idleSuspender != null) {
+            idleSuspender.stop();
+        }
+        if (coldStarter != null) {
+            coldStarter.shutdown();
+        }
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (dockerService != null) {
+            dockerService.shutdown();
+        }
+    }
+
+    /**
+     * Same instance as {@link DockBridge#api()}; null before the proxy initialized.
+     */
+    public DockBridgeApi getApi() {
+        return api;
+    }
+
     @Subscribe
     public void onPlayerLogin(PostLoginEvent event) {
         String available = latestVersion.get();
@@ -107,6 +231,6 @@ public final class DockBridgePlugin {
                 manager.metaBuilder("dockbridge")
                         .plugin(this)
                         .build(),
-                new DockBridgeCommand(server, dockerService));
+                new DockBridgeCommand(server, this, dockerService, eventWatchers, balancer, pollScheduler, reloader));
     }
 }
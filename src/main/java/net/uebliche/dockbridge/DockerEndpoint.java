@@ -0,0 +1,611 @@
+package net.uebliche.dockbridge;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.EventsCmd;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.transport.DockerHttpClient;
+import com.github.dockerjava.zerodep.ZerodepDockerHttpClient;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One Docker daemon DockBridge discovers containers from. Tracks its own availability and
+ * retry backoff, and keeps the last successful listing so registrations from a daemon that
+ * is down survive until it recovers.
+ * <p>
+ * Ping and list run under {@code docker.call_timeout_millis}: the call is cancelled once
+ * the deadline passes, and the HTTP client enforces the same connect and response timeouts
+ * so the socket is released too. The event stream uses its own client without a response
+ * timeout because it stays open indefinitely. Calls that change containers (wake, suspend,
+ * and creating and removing replicas) use a third client, so a slow stop never holds up a
+ * scan; stops get their shutdown time on top of the call timeout.
+ * <p>
+ * Scans go through {@link LeanDockerClient} or, with {@code docker.client=docker-java} and
+ * for endpoints it cannot reach (TLS, other schemes), through docker-java. The docker-java
+ * event client is only built once events are subscribed.
+ */
+final class DockerEndpoint {
+
+    private final String endpoint;
+    private final String remoteHost;
+    private final Logger logger;
+    private volatile DockBridgeConfig config;
+    private final DockBridgeMetrics metrics;
+    private final ExecutorService executor;
+    private final DiscoveryClient discovery;
+    private DockerClient eventClient;
+    private DiscoveryClient operations;
+    private final AtomicBoolean scanInFlight = new AtomicBoolean(false);
+    private final Set<String> pendingUpdates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean updating = new AtomicBoolean(false);
+    private volatile List<ContainerSummary> containers = List.of();
+    private volatile Instant lastScan = Instant.EPOCH;
+    private volatile boolean available = true;
+    private volatile String unavailableReason = null;
+    private Instant unavailableSince = null;
+    private volatile Instant nextRetryAt = Instant.EPOCH;
+
+    DockerEndpoint(String endpoint, Logger logger, DockBridgeConfig config, DockBridgeMetrics metrics, ExecutorService executor) {
+        this.endpoint = endpoint;
+        this.remoteHost = remoteHostOf(endpoint);
+        this.logger = logger;
+        this.config = config;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.discovery = buildDiscoveryClient();
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Host of a daemon on another machine, or null for a local socket or loopback address.
+     * Container names and network IPs of a remote daemon only resolve on that machine, so its
+     * containers are reached through the ports they publish on this host.
+     */
+    String remoteHost() {
+        return remoteHost;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    Optional<String> unavailableReason() {
+        return Optional.ofNullable(unavailableReason);
+    }
+
+    Instant lastScan() {
+        return lastScan;
+    }
+
+    /**
+     * Whether this endpoint has been listed successfully since the proxy started.
+     */
+    boolean hasListed() {
+        return !lastScan.equals(Instant.EPOCH);
+    }
+
+    boolean isScanInFlight() {
+        return scanInFlight.get();
+    }
+
+    /**
+     * Containers from the last successful listing of this daemon.
+     */
+    List<ContainerSummary> containers() {
+        return containers;
+    }
+
+    /**
+     * Claims this endpoint for a scan. Returns false while a previous scan is still running,
+     * so a slow daemon never has more than one listing in flight.
+     */
+    boolean tryBeginScan() {
+        return scanInFlight.compareAndSet(false, true);
+    }
+
+    void endScan() {
+        scanInFlight.set(false);
+    }
+
+    /**
+     * Queues a container a Docker event named for re-listing. Returns true if no re-list is
+     * running, so the caller has to start one.
+     */
+    boolean queueUpdate(String containerId) {
+        pendingUpdates.add(containerId);
+        return updating.compareAndSet(false, true);
+    }
+
+    /**
+     * Takes the queued containers; events arriving from now on queue for the next re-list.
+     */
+    Set<String> takeUpdates() {
+        Set<String> taken = new HashSet<>(pendingUpdates);
+        pendingUpdates.removeAll(taken);
+        return taken;
+    }
+
+    /**
+     * Ends a re-list. Returns true if containers were queued meanwhile and the caller has to
+     * go on with them.
+     */
+    boolean endUpdates() {
+        updating.set(false);
+        return !pendingUpdates.isEmpty() && updating.compareAndSet(false, true);
+    }
+
+    Closeable subscribeToEvents(String since, ResultCallback<Event> callback, String... actions) {
+        EventsCmd cmd = eventClient().eventsCmd()
+                .withEventTypeFilter(EventType.CONTAINER)
+                .withEventFilter(actions)
+                .withLabelFilter(Map.of(config.autoRegisterLabelKey(), config.autoRegisterLabelValue()));
+        if (since != null) {
+            cmd.withSince(since);
+        }
+        return cmd.exec(callback);
+    }
+
+    boolean shouldSkip(Instant now) {
+        if (available) {
+            return false;
+        }
+        Optional<String> localProblem = describeLocalEndpointProblem();
+        if (localProblem.isPresent()) {
+            markUnavailable(localProblem.get());
+            return true;
+        }
+        if (unavailableReason != null && unavailableReason.startsWith("socket ")) {
+            return false;
+        }
+        return now.isBefore(nextRetryAt);
+    }
+
+    boolean ensureReachable(boolean logSuccessfulPing) {
+        Optional<String> localProblem = describeLocalEndpointProblem();
+        if (localProblem.isPresent()) {
+            markUnavailable(localProblem.get());
+            return false;
+        }
+        if (!config.healthEnablePing()) {
+            markAvailable(false);
+            return true;
+        }
+        try {
+            withDeadline(DockBridgeMetrics.DockerCall.PING, () -> {
+                discovery.ping();
+                return null;
+            });
+            markAvailable(logSuccessfulPing);
+            if (logSuccessfulPing) {
+                logger.info("Docker ping successful for endpoint {}", endpoint);
+            }
+            return true;
+        } catch (Exception e) {
+            markUnavailable("ping failed: " + DockerService.summarizeException(e));
+            return false;
+        }
+    }
+
+    /**
+     * Lists labelled containers and remembers them as this endpoint's current set; stopped and
+     * paused ones are included with {@code cold.enabled}. Returns false if the daemon could not
+     * be listed; the previous set is kept in that case.
+     */
+    boolean listMatchingContainers(Instant scanStarted) {
+        try {
+            List<ContainerSummary> result = withDeadline(DockBridgeMetrics.DockerCall.LIST,
+                    () -> discovery.listContainers(config.autoRegisterLabelKey(), config.autoRegisterLabelValue(), config.coldEnabled()));
+            markAvailable(false);
+            if (result != null && !result.isEmpty() && config.logMatches()) {
+                for (ContainerSummary c : result) {
+                    logger.info("Matched container id={} names={} on {}",
+                            c.id() == null ? "unknown" : c.id().substring(0, Math.min(12, c.id().length())),
+                            String.join(",", c.names()),
+                            endpoint);
+                }
+            }
+            containers = result == null ? List.of() : List.copyOf(result);
+            lastScan = scanStarted;
+            return true;
+        } catch (Exception e) {
+            markUnavailable("listContainers failed: " + DockerService.summarizeException(e));
+            return false;
+        }
+    }
+
+    /**
+     * Lists only the given containers and swaps them into the last listing: replaced if still
+     * labelled, dropped if gone. The caller holds the scan claim, so a full listing cannot
+     * overwrite the result. Returns false if the daemon could not be listed; the listing is
+     * kept in that case.
+     */
+    boolean relistContainers(Set<String> containerIds) {
+        try {
+            List<ContainerSummary> result = withDeadline(DockBridgeMetrics.DockerCall.LIST,
+                    () -> discovery.listContainers(config.autoRegisterLabelKey(), config.autoRegisterLabelValue(), config.coldEnabled(),
+                            containerIds));
+            markAvailable(false);
+            List<ContainerSummary> current = containers;
+            List<ContainerSummary> updated = new ArrayList<>(current.size() + (result == null ? 0 : result.size()));
+            for (ContainerSummary container : current) {
+                if (container.id() == null || !containerIds.contains(container.id())) {
+                    updated.add(container);
+                }
+            }
+            if (result != null) {
+                updated.addAll(result);
+            }
+            containers = List.copyOf(updated);
+            return true;
+        } catch (Exception e) {
+            markUnavailable("listContainers failed: " + DockerService.summarizeException(e));
+            return false;
+        }
+    }
+
+    /**
+     * Starts a cold container, or unpauses it if it is paused. Runs under the call timeout.
+     */
+    void wake(String containerId, boolean paused) throws Exception {
+        DiscoveryClient client = operationsClient();
+        long timeoutMillis = Math.max(1, config.dockerCallTimeoutMillis());
+        if (paused) {
+            withDeadline(DockBridgeMetrics.DockerCall.UNPAUSE, timeoutMillis, () -> {
+                client.unpauseContainer(containerId);
+                return null;
+            });
+        } else {
+            withDeadline(DockBridgeMetrics.DockerCall.START, timeoutMillis, () -> {
+                client.startContainer(containerId);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Pauses an idle container, or stops it with {@code idle.stop_timeout_seconds} to shut down.
+     */
+    void suspend(String containerId, boolean stop) throws Exception {
+        DiscoveryClient client = operationsClient();
+        long timeoutMillis = Math.max(1, config.dockerCallTimeoutMillis());
+        if (stop) {
+            int grace = Math.max(0, config.idleStopTimeoutSeconds());
+            withDeadline(DockBridgeMetrics.DockerCall.STOP, timeoutMillis + grace * 1000L, () -> {
+                client.stopContainer(containerId, grace);
+                return null;
+            });
+        } else {
+            withDeadline(DockBridgeMetrics.DockerCall.PAUSE, timeoutMillis, () -> {
+                client.pauseContainer(containerId);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Creates a copy of a template container and starts it; each call runs under the call
+     * timeout. A copy that fails to start is removed again.
+     *
+     * @return the full id of the new container.
+     */
+    String createReplica(String templateId, String name, Map<String, String> labels) throws Exception {
+        DiscoveryClient client = operationsClient();
+        long timeoutMillis = Math.max(1, config.dockerCallTimeoutMillis());
+        String containerId = withDeadline(DockBridgeMetrics.DockerCall.CREATE, timeoutMillis,
+                () -> client.createFromTemplate(templateId, name, labels, config.autoscaleAllowMounts()));
+        try {
+            withDeadline(DockBridgeMetrics.DockerCall.START, timeoutMillis, () -> {
+                client.startContainer(containerId);
+                return null;
+            });
+        } catch (Exception ex) {
+            try {
+                withDeadline(DockBridgeMetrics.DockerCall.REMOVE, timeoutMillis, () -> {
+                    client.removeContainer(containerId);
+                    return null;
+                });
+            } catch (Exception removeFailed) {
+                ex.addSuppressed(removeFailed);
+            }
+            throw ex;
+        }
+        return containerId;
+    }
+
+    /**
+     * Stops a replica with {@code idle.stop_timeout_seconds} to shut down, then removes it.
+     */
+    void removeReplica(String containerId) throws Exception {
+        suspend(containerId, true);
+        DiscoveryClient client = operationsClient();
+        withDeadline(DockBridgeMetrics.DockerCall.REMOVE, Math.max(1, config.dockerCallTimeoutMillis()), () -> {
+            client.removeContainer(containerId);
+            return null;
+        });
+    }
+
+    /**
+     * Switches to a reloaded configuration that keeps this endpoint's client settings. The
+     * client for container changes is rebuilt on next use if the stop timeout it allows for
+     * changed.
+     */
+    void reconfigure(DockBridgeConfig next) {
+        DiscoveryClient stale = null;
+        synchronized (this) {
+            if (next.idleStopTimeoutSeconds() != config.idleStopTimeoutSeconds()) {
+                stale = operations;
+                operations = null;
+            }
+            config = next;
+        }
+        if (stale != null) {
+            stale.close();
+        }
+    }
+
+    /**
+     * Takes over the listing and availability of the endpoint this one replaces after a
+     * reload, so its servers stay registered until the next scan. An unavailable endpoint is
+     * retried right away with the new client.
+     */
+    synchronized void carryOver(DockerEndpoint previous) {
+        containers = previous.containers;
+        lastScan = previous.lastScan;
+        available = previous.available;
+        unavailableReason = previous.unavailableReason;
+        unavailableSince = previous.unavailableSince;
+    }
+
+    /**
+     * Takes over a listing another proxy made of this daemon, as if this proxy had listed it.
+     */
+    synchronized void adopt(List<ContainerSummary> listed, boolean listedAvailable, String reason, Instant scanStarted) {
+        if (listedAvailable != available || !Objects.equals(reason, unavailableReason)) {
+            if (listedAvailable) {
+                logger.info("Docker endpoint {} reported reachable by the scanning proxy.", endpoint);
+            } else {
+                logger.warn("Docker endpoint {} reported unavailable by the scanning proxy: {}.", endpoint, reason);
+            }
+        }
+        available = listedAvailable;
+        unavailableReason = listedAvailable ? null : reason;
+        unavailableSince = listedAvailable ? null : unavailableSince == null ? Instant.now() : unavailableSince;
+        containers = listed == null ? List.of() : List.copyOf(listed);
+        if (scanStarted.isAfter(lastScan)) {
+            lastScan = scanStarted;
+        }
+    }
+
+    void close() {
+        discovery.close();
+        DockerClient events;
+        DiscoveryClient changes;
+        synchronized (this) {
+            events = eventClient;
+            eventClient = null;
+            changes = operations;
+            operations = null;
+        }
+        if (changes != null) {
+            changes.close();
+        }
+        if (events != null) {
+            try {
+                events.close();
+            } catch (IOException ignored) {
+                // Shutting down; nothing left to report.
+            }
+        }
+    }
+
+    private DiscoveryClient buildDiscoveryClient() {
+        String client = config.dockerClient();
+        if (!"docker-java".equalsIgnoreCase(client) && !"lean".equalsIgnoreCase(client)) {
+            logger.warn("Unknown docker.client '{}', defaulting to 'lean'.", client);
+        }
+        if (leanUsable()) {
+            return new LeanDockerClient(endpoint);
+        }
+        if (!"docker-java".equalsIgnoreCase(client)) {
+            logger.info("Talking to {} through docker-java; the lean client only speaks plain unix:// and tcp://.", endpoint);
+        }
+        Duration callTimeout = Duration.ofMillis(Math.max(1, config.dockerCallTimeoutMillis()));
+        return new DockerJavaDiscoveryClient(buildClient(endpoint, callTimeout, callTimeout));
+    }
+
+    private synchronized DiscoveryClient operationsClient() {
+        if (operations == null) {
+            if (leanUsable()) {
+                operations = new LeanDockerClient(endpoint);
+            } else {
+                Duration callTimeout = Duration.ofMillis(Math.max(1, config.dockerCallTimeoutMillis()));
+                Duration stopTimeout = callTimeout.plusSeconds(Math.max(0, config.idleStopTimeoutSeconds()));
+                operations = new DockerJavaDiscoveryClient(buildClient(endpoint, callTimeout, stopTimeout));
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Whether listings and container operations go through the lean client: unless
+     * {@code docker.client=docker-java}, for endpoints it can reach without TLS.
+     */
+    private boolean leanUsable() {
+        return !"docker-java".equalsIgnoreCase(config.dockerClient()) && LeanDockerClient.supports(endpoint) && !usesTls(endpoint);
+    }
+
+    private synchronized DockerClient eventClient() {
+        if (eventClient == null) {
+            eventClient = buildClient(endpoint, Duration.ofMillis(Math.max(1, config.dockerCallTimeoutMillis())), null);
+        }
+        return eventClient;
+    }
+
+    /**
+     * Runs one Docker call on its own virtual thread and waits at most the call timeout. On
+     * timeout the call is cancelled, which interrupts its thread and closes the socket.
+     */
+    private <T> T withDeadline(DockBridgeMetrics.DockerCall call, Callable<T> action) throws Exception {
+        return withDeadline(call, Math.max(1, config.dockerCallTimeoutMillis()), action);
+    }
+
+    private <T> T withDeadline(DockBridgeMetrics.DockerCall call, long timeoutMillis, Callable<T> action) throws Exception {
+        long started = System.nanoTime();
+        Future<T> future = executor.submit(action);
+        try {
+            T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            metrics.observeDockerCall(call, System.nanoTime() - started, true);
+            return result;
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            metrics.observeDockerCall(call, System.nanoTime() - started, false);
+            throw new TimeoutException(call.label() + " timed out after " + timeoutMillis + "ms");
+        } catch (ExecutionException ex) {
+            metrics.observeDockerCall(call, System.nanoTime() - started, false);
+            throw ex.getCause() instanceof Exception cause ? cause : ex;
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw ex;
+        }
+    }
+
+    private static String remoteHostOf(String endpoint) {
+        if (!endpoint.startsWith("tcp://") && !endpoint.startsWith("http://") && !endpoint.startsWith("https://")) {
+            return null;
+        }
+        try {
+            String host = URI.create(endpoint).getHost();
+            if (host == null || host.equalsIgnoreCase("localhost")) {
+                return null;
+            }
+            String literal = host.startsWith("[") ? host.substring(1, host.length() - 1) : host;
+            if (literal.equals("::1") || literal.startsWith("127.")) {
+                return null;
+            }
+            return literal;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private Optional<String> describeLocalEndpointProblem() {
+        String prefix = "unix://";
+        if (!endpoint.startsWith(prefix)) {
+            return Optional.empty();
+        }
+        String rawPath = endpoint.substring(prefix.length()).trim();
+        if (rawPath.isEmpty()) {
+            return Optional.of("unix endpoint is missing a socket path");
+        }
+        Path socketPath = Path.of(rawPath);
+        if (Files.exists(socketPath)) {
+            return Optional.empty();
+        }
+        return Optional.of("socket " + socketPath + " does not exist; mount the Docker socket or configure docker.endpoint to a reachable daemon");
+    }
+
+    private synchronized void markUnavailable(String reason) {
+        String normalized = normalizeReason(reason);
+        boolean changed = available || !Objects.equals(unavailableReason, normalized);
+        available = false;
+        if (unavailableSince == null) {
+            unavailableSince = Instant.now();
+        }
+        unavailableReason = normalized;
+        nextRetryAt = Instant.now().plus(retryDelay());
+        if (changed) {
+            int kept = containers.size();
+            String registrationNote = kept == 0
+                    ? "No Docker-backed servers from this endpoint are currently registered."
+                    : "Keeping " + kept + " previously listed container(s) from this endpoint until it recovers.";
+            logger.warn("Docker endpoint {} unavailable: {}. {} Retrying in {}s.",
+                    endpoint,
+                    normalized,
+                    registrationNote,
+                    retryDelay().toSeconds());
+        }
+    }
+
+    private synchronized void markAvailable(boolean logSuccessfulPing) {
+        boolean wasUnavailable = !available;
+        if (wasUnavailable) {
+            long downSeconds = unavailableSince == null
+                    ? 0L
+                    : Math.max(0L, Duration.between(unavailableSince, Instant.now()).toSeconds());
+            logger.info("Docker endpoint {} reachable again after {}s.", endpoint, downSeconds);
+        } else if (!logSuccessfulPing) {
+            return;
+        }
+        available = true;
+        unavailableReason = null;
+        unavailableSince = null;
+        nextRetryAt = Instant.EPOCH;
+    }
+
+    private Duration retryDelay() {
+        long base = Math.max(config.dockerPollIntervalSeconds(), config.healthPingIntervalSeconds());
+        long multiplier = Math.max(1L, config.healthMaxFailures());
+        return Duration.ofSeconds(Math.max(10L, base * multiplier));
+    }
+
+    /**
+     * Whether docker-java would talk TLS to the endpoint, as it does for tcp:// with
+     * {@code DOCKER_TLS_VERIFY} set.
+     */
+    private static boolean usesTls(String endpoint) {
+        try {
+            return DefaultDockerClientConfig.createDefaultConfigBuilder().withDockerHost(endpoint).build().getSSLConfig() != null;
+        } catch (RuntimeException ex) {
+            return true;
+        }
+    }
+
+    private static DockerClient buildClient(String endpoint, Duration connectionTimeout, Duration responseTimeout) {
+        DefaultDockerClientConfig clientConfig = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(endpoint)
+                .build();
+        ZerodepDockerHttpClient.Builder builder = new ZerodepDockerHttpClient.Builder()
+                .dockerHost(clientConfig.getDockerHost())
+                .sslConfig(clientConfig.getSSLConfig())
+                .connectionTimeout(connectionTimeout);
+        if (responseTimeout != null) {
+            builder.responseTimeout(responseTimeout);
+        }
+        DockerHttpClient httpClient = builder.build();
+        return DockerClientImpl.getInstance(clientConfig, httpClient);
+    }
+
+    private static String normalizeReason(String reason) {
+        return reason == null ? "unknown error" : reason.trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,252 @@
+package net.uebliche.dockbridge;
+
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.velocitypowered.api.proxy.ProxyServer;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Follows the Docker event stream for labelled containers and re-lists a container as soon
+ * as it starts, dies, is destroyed or changes health, reconciling only that change; the
+ * periodic scan stays as the safety net. A stop signal starts draining the
+ * container's server before the container is gone. Reconnects resume from the last seen
+ * event. One watcher runs per configured Docker endpoint. Settings are read from the
+ * service on use, so a reload reaches running watchers.
+ */
+public final class DockerEventWatcher {
+
+    private static final String[] WATCHED_ACTIONS = {"start", "kill", "stop", "die", "destroy", "health_status"};
+    /**
+     * With cold servers, pausing and creating change what is registered too.
+     */
+    private static final String[] WATCHED_ACTIONS_COLD = {"start", "kill", "stop", "die", "destroy", "health_status",
+            "create", "pause", "unpause"};
+    /**
+     * Signals that end a container: SIGINT, SIGQUIT, SIGKILL and SIGTERM, the one docker stop sends.
+     */
+    private static final Set<String> STOP_SIGNALS = Set.of("2", "3", "9", "15", "SIGINT", "SIGQUIT", "SIGKILL", "SIGTERM");
+    private static final long MAX_RECONNECT_DELAY_SECONDS = 60L;
+
+    private final ProxyServer server;
+    private final Object plugin;
+    private final Logger logger;
+    private final DockerService dockerService;
+    private final DockerEndpoint endpoint;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<EventCallback> current = new AtomicReference<>();
+    private volatile long lastEventNanos = 0L;
+    private volatile boolean connected = false;
+    private volatile int failedAttempts = 0;
+
+    DockerEventWatcher(ProxyServer server, Object plugin, Logger logger, DockerService dockerService, DockerEndpoint endpoint) {
+        this.server = server;
+        this.plugin = plugin;
+        this.logger = logger;
+        this.dockerService = dockerService;
+        this.endpoint = endpoint;
+    }
+
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        Instant now = Instant.now();
+        lastEventNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        connect();
+    }
+
+    public void stop() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        connected = false;
+        EventCallback callback = current.getAndSet(null);
+        if (callback != null) {
+            callback.closeQuietly();
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public String endpoint() {
+        return endpoint.endpoint();
+    }
+
+    private void connect() {
+        if (!running.get()) {
+            return;
+        }
+        EventCallback callback = new EventCallback();
+        EventCallback previous = current.getAndSet(callback);
+        if (previous != null) {
+            previous.closeQuietly();
+        }
+        try {
+            endpoint.subscribeToEvents(formatSince(lastEventNanos), callback,
+                    dockerService.getConfig().coldEnabled() ? WATCHED_ACTIONS_COLD : WATCHED_ACTIONS);
+        } catch (Exception ex) {
+            callback.observeConnect(false);
+            callback.fail("subscribe failed: " + DockerService.summarizeException(ex));
+        }
+    }
+
+    private void scheduleReconnect(String reason) {
+        if (!running.get()) {
+            return;
+        }
+        int attempts = ++failedAttempts;
+        long base = Math.max(1L, dockerService.getConfig().dockerEventsReconnectDelaySeconds());
+        long delay = Math.min(MAX_RECONNECT_DELAY_SECONDS, base << Math.min(attempts - 1, 6));
+        if (attempts == 1) {
+            logger.warn("Docker event stream from {} lost ({}). Reconnecting in {}s; polling continues meanwhile.",
+                    endpoint.endpoint(), reason, delay);
+        }
+        server.getScheduler()
+                .buildTask(plugin, this::connect)
+                .delay(Duration.ofSeconds(delay))
+                .schedule();
+    }
+
+    private static String formatSince(long epochNanos) {
+        long seconds = epochNanos / 1_000_000_000L;
+        long nanos = epochNanos % 1_000_000_000L;
+        return seconds + "." + String.format("%09d", nanos);
+    }
+
+    private static String normalizeAction(Event event) {
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (action == null) {
+            return "";
+        }
+        int colon = action.indexOf(':');
+        return colon >= 0 ? action.substring(0, colon).trim() : action.trim();
+    }
+
+    private static boolean isStopping(String action, Event event) {
+        if (action.equals("stop")) {
+            return true;
+        }
+        if (!action.equals("kill") || event.getActor() == null) {
+            return false;
+        }
+        Map<String, String> attributes = event.getActor().getAttributes();
+        String signal = attributes == null ? null : attributes.get("signal");
+        return signal != null && STOP_SIGNALS.contains(signal.trim());
+    }
+
+    private final class EventCallback extends ResultCallback.Adapter<Event> {
+
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final AtomicBoolean connectObserved = new AtomicBoolean(false);
+        private final long connectStarted = System.nanoTime();
+
+        @Override
+        public void onStart(Closeable stream) {
+            super.onStart(stream);
+            if (current.get() != this) {
+                closeQuietly();
+                return;
+            }
+            observeConnect(true);
+            connected = true;
+            if (failedAttempts > 0) {
+                logger.info("Docker event stream from {} reconnected after {} attempt(s).", endpoint.endpoint(), failedAttempts);
+                failedAttempts = 0;
+            } else {
+                DockBridgeConfig config = dockerService.getConfig();
+                logger.info("Subscribed to Docker events on {} for label {}={}.",
+                        endpoint.endpoint(), config.autoRegisterLabelKey(), config.autoRegisterLabelValue());
+            }
+        }
+
+        @Override
+        public void onNext(Event event) {
+            if (event == null || current.get() != this) {
+                return;
+            }
+            Long timeNano = event.getTimeNano();
+            Long time = event.getTime();
+            if (timeNano != null && timeNano > 0) {
+                lastEventNanos = Math.max(lastEventNanos, timeNano);
+            } else if (time != null && time > 0) {
+                lastEventNanos = Math.max(lastEventNanos, time * 1_000_000_000L);
+            }
+            String action = normalizeAction(event);
+            if (dockerService.getConfig().logScan()) {
+                String id = event.getId() == null ? "unknown" : event.getId().substring(0, Math.min(12, event.getId().length()));
+                logger.info("Docker event {} for container {}.", action, id);
+            }
+            if (isStopping(action, event)) {
+                dockerService.drainContainer(event.getId(), "container " + action);
+                if (action.equals("kill")) {
+                    // The container is still running; die follows once it exits.
+                    return;
+                }
+            }
+            // Non-blocking: the re-list runs on the discovery executor.
+            dockerService.refreshContainer(endpoint, event.getId());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (current.get() == this && !observeConnect(false)) {
+                dockerService.getMetrics().recordDockerError(DockBridgeMetrics.DockerCall.EVENTS);
+            }
+            fail(DockerService.summarizeException(throwable));
+        }
+
+        /**
+         * Records how long the subscription took to be answered, once per connection attempt.
+         *
+         * @return false if it was already recorded, so the stream was up before this.
+         */
+        private boolean observeConnect(boolean success) {
+            if (!connectObserved.compareAndSet(false, true)) {
+                return false;
+            }
+            dockerService.getMetrics().observeDockerCall(DockBridgeMetrics.DockerCall.EVENTS,
+                    System.nanoTime() - connectStarted, success);
+            return true;
+        }
+
+        @Override
+        public void onComplete() {
+            fail("stream closed by daemon");
+        }
+
+        private void fail(String reason) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            closeQuietly();
+            if (!current.compareAndSet(this, null)) {
+                return;
+            }
+            connected = false;
+            scheduleReconnect(reason);
+        }
+
+        private void closeQuietly() {
+            try {
+                close();
+            } catch (IOException | RuntimeException ignored) {
+                // Stream is being replaced or torn down; nothing left to release.
+            }
+        }
+    }
+}
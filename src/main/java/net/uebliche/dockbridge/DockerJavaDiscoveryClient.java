@@ -0,0 +1,158 @@
+package net.uebliche.dockbridge;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.exception.NotModifiedException;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerConfig;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Ports;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scans through docker-java and its zerodep transport. Supports every endpoint docker-java
+ * does, including TLS.
+ */
+final class DockerJavaDiscoveryClient implements DiscoveryClient {
+
+    private final DockerClient client;
+
+    DockerJavaDiscoveryClient(DockerClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public void ping() {
+        client.pingCmd().exec();
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(String labelKey, String labelValue, boolean all) {
+        return summarize(client.listContainersCmd()
+                .withShowAll(all)
+                .withLabelFilter(Map.of(labelKey, labelValue))
+                .exec());
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(String labelKey, String labelValue, boolean all, Collection<String> ids) {
+        return summarize(client.listContainersCmd()
+                .withShowAll(all)
+                .withLabelFilter(Map.of(labelKey, labelValue))
+                .withIdFilter(ids)
+                .exec());
+    }
+
+    private static List<ContainerSummary> summarize(List<Container> containers) {
+        if (containers == null || containers.isEmpty()) {
+            return List.of();
+        }
+        List<ContainerSummary> summaries = new ArrayList<>(containers.size());
+        for (Container container : containers) {
+            summaries.add(ContainerSummary.from(container));
+        }
+        return summaries;
+    }
+
+    @Override
+    public void startContainer(String containerId) {
+        try {
+            client.startContainerCmd(containerId).exec();
+        } catch (NotModifiedException ignored) {
+            // Already running.
+        }
+    }
+
+    @Override
+    public void unpauseContainer(String containerId) {
+        client.unpauseContainerCmd(containerId).exec();
+    }
+
+    @Override
+    public void pauseContainer(String containerId) {
+        client.pauseContainerCmd(containerId).exec();
+    }
+
+    @Override
+    public void stopContainer(String containerId, int timeoutSeconds) {
+        try {
+            client.stopContainerCmd(containerId).withTimeout(timeoutSeconds).exec();
+        } catch (NotModifiedException ignored) {
+            // Already stopped.
+        }
+    }
+
+    @Override
+    public String createFromTemplate(String templateId, String name, Map<String, String> labels, boolean allowMounts) {
+        InspectContainerResponse template = client.inspectContainerCmd(templateId).exec();
+        ContainerConfig config = template.getConfig();
+        HostConfig hostConfig = template.getHostConfig() == null ? HostConfig.newHostConfig() : template.getHostConfig();
+        if (!allowMounts && (notEmpty(hostConfig.getBinds()) || notEmpty(hostConfig.getMounts())
+                || notEmpty(hostConfig.getVolumesFrom()))) {
+            throw new IllegalStateException(DiscoveryClient.mountsRefused(templateId));
+        }
+        // The image id, not the tag, so the copy runs what the template runs even if the tag moved.
+        String image = template.getImageId() != null ? template.getImageId() : config != null ? config.getImage() : null;
+        if (image == null) {
+            throw new IllegalStateException("template " + templateId + " has no image");
+        }
+        CreateContainerCmd create = client.createContainerCmd(image)
+                .withName(name)
+                .withLabels(labels)
+                .withHostConfig(hostConfig.withPortBindings(new Ports()));
+        if (config != null) {
+            // The same fields LeanDockerClient copies. The array setters reject null, so unset ones are skipped.
+            if (config.getEnv() != null) {
+                create.withEnv(config.getEnv());
+            }
+            if (config.getCmd() != null) {
+                create.withCmd(config.getCmd());
+            }
+            if (config.getEntrypoint() != null) {
+                create.withEntrypoint(config.getEntrypoint());
+            }
+            if (config.getExposedPorts() != null) {
+                create.withExposedPorts(config.getExposedPorts());
+            }
+            create.withWorkingDir(config.getWorkingDir())
+                    .withUser(config.getUser())
+                    .withTty(config.getTty())
+                    .withStdinOpen(config.getStdinOpen())
+                    .withHealthcheck(config.getHealthcheck());
+        }
+        return create.exec().getId();
+    }
+
+    private static boolean notEmpty(Object[] values) {
+        return values != null && values.length > 0;
+    }
+
+    private static boolean notEmpty(List<?> values) {
+        return values != null && !values.isEmpty();
+    }
+
+    @Override
+    public void removeContainer(String containerId) {
+        try {
+            client.removeContainerCmd(containerId).withRemoveVolumes(true).exec();
+        } catch (NotFoundException ignored) {
+            // Already removed.
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            client.close();
+        } catch (IOException ignored) {
+            // Shutting down; the transport has nothing left worth reporting.
+        }
+    }
+}
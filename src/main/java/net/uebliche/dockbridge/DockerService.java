@@ -1,34 +1,41 @@
 package net.uebliche.dockbridge;
 
-import com.github.dockerjava.api.DockerClient;
-import com.github.dockerjava.api.command.ListContainersCmd;
-import com.github.dockerjava.api.model.Container;
-import com.github.dockerjava.api.model.ContainerPort;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientImpl;
-import com.github.dockerjava.transport.DockerHttpClient;
-import com.github.dockerjava.zerodep.ZerodepDockerHttpClient;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import org.slf4j.Logger;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Duration;
 import java.net.InetSocketAddress;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Minimal Docker integration to auto-register containers exposing a matching label.
@@ -37,292 +44,1672 @@ public final class DockerService {
 
     private final ProxyServer server;
     private final Logger logger;
-    private final DockBridgeConfig config;
-    private final DockerClient dockerClient;
-    private final DuplicateStrategy duplicateStrategy;
-    private final Set<String> registeredNames = new HashSet<>();
+    private volatile DockBridgeConfig config;
+    private volatile List<DockerEndpoint> endpoints;
+    private final ExecutorService discoveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Object reconcileLock = new Object();
+    private volatile DuplicateStrategy duplicateStrategy;
+    private final ReconciliationIndex index = new ReconciliationIndex();
+    private final DockBridgeMetrics metrics = new DockBridgeMetrics();
+    private final NameAllocator names;
+    private volatile AddressResolver addresses;
+    private volatile ShardRing shard;
+    private volatile OperationLimiter operations;
+    private final Set<String> suspending = ConcurrentHashMap.newKeySet();
+    private final Set<String> retiring = ConcurrentHashMap.newKeySet();
     private final AtomicBoolean refreshRunning = new AtomicBoolean(false);
-    private List<Registration> lastRegistrations = List.of();
-    private int lastMatchedCount = 0;
-    private Instant lastScan = Instant.EPOCH;
-    private boolean dockerAvailable = true;
-    private String dockerUnavailableReason = null;
-    private Instant dockerUnavailableSince = null;
-    private Instant nextDockerRetryAt = Instant.EPOCH;
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+    private final AtomicBoolean pollPending = new AtomicBoolean(false);
+    private final AtomicLong polledChanges = new AtomicLong();
+    private final AtomicReference<List<RegistrationSnapshot.Entry>> pendingSnapshot = new AtomicReference<>();
+    private final Object snapshotWriteLock = new Object();
+    private final Object tryOrderLock = new Object();
+    private volatile BackendProber prober;
+    private volatile ServerDrainer drainer;
+    private volatile RegistrationSnapshot snapshot;
+    private volatile ScanCoordinator coordinator;
+    private volatile boolean scanning = true;
+    private final AtomicReference<List<SharedListing.Endpoint>> adoptedListing = new AtomicReference<>();
+    private final List<Consumer<List<Registration>>> registrationListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<DockerState>> stateListeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<DockerState> state = new AtomicReference<>(DockerState.EMPTY);
+    private Map<String, Long> healthStartingSince = Map.of();
+    // Written by record() under the reconcile lock, published by reconcile().
+    private int healthHeldBack = 0;
+    private int otherProxies = 0;
+    private final AtomicLong healthRecheckAt = new AtomicLong(Long.MAX_VALUE);
 
     public DockerService(ProxyServer server, Logger logger, DockBridgeConfig config) {
         this.server = server;
         this.logger = logger;
         this.config = config;
-        this.dockerClient = buildClient(config.dockerEndpoint());
+        List<DockerEndpoint> configured = new ArrayList<>();
+        for (String endpoint : config.dockerEndpoints()) {
+            configured.add(new DockerEndpoint(endpoint, logger, config, metrics, discoveryExecutor));
+        }
+        this.endpoints = List.copyOf(configured);
         this.duplicateStrategy = DuplicateStrategy.from(config.duplicateStrategy(), logger);
+        this.names = new NameAllocator(name -> server.getServer(name).isPresent());
+        this.addresses = new AddressResolver(logger, config, discoveryExecutor);
+        this.shard = ShardRing.from(config, logger);
+        this.operations = new OperationLimiter(config.dockerOperationsMaxConcurrent(), config.dockerOperationsPerSecond());
+        if (shard != null) {
+            logger.info("Sharding containers across {} proxy replicas; this proxy is {}.", shard.replicas().size(), shard.self());
+        }
+        index.attach(names);
+        metrics.registerGauge("dockbridge_matched_containers", "Containers matched by the last successful scan.",
+                () -> state.get().matchedCount());
+        metrics.registerGauge("dockbridge_registered_servers", "Docker-backed servers currently registered.",
+                () -> state.get().registrations().size());
+        if (config.coldEnabled()) {
+            metrics.registerGauge("dockbridge_cold_servers", "Registered servers whose container is stopped or paused.",
+                    () -> state.get().registrations().stream().filter(Registration::cold).count());
+        }
+        if (config.coldEnabled() || config.autoscaleEnabled()) {
+            metrics.registerGauge("dockbridge_docker_operations_waiting", "Docker calls that change containers waiting for a slot.",
+                    () -> operations.waiting());
+        }
+        metrics.registerGauge("dockbridge_docker_endpoints", "Configured Docker endpoints.",
+                () -> endpoints.size());
+        metrics.registerGauge("dockbridge_docker_endpoints_available", "Docker endpoints currently reachable.",
+                () -> endpoints.stream().filter(DockerEndpoint::isAvailable).count());
+        metrics.registerGauge("dockbridge_seconds_since_last_successful_scan", "Seconds since the last successful scan, -1 before the first one.",
+                () -> {
+                    Instant lastScan = state.get().lastScan();
+                    return lastScan.equals(Instant.EPOCH) ? -1 : Duration.between(lastScan, Instant.now()).toMillis() / 1000.0;
+                });
+    }
+
+    /**
+     * Routes new registrations through the prober instead of adding them to the
+     * attempt-connection order right away.
+     */
+    public void attachProber(BackendProber prober) {
+        this.prober = prober;
+    }
+
+    /**
+     * Drains servers with players before they are unregistered instead of dropping them.
+     */
+    public void attachDrainer(ServerDrainer drainer) {
+        this.drainer = drainer;
+        metrics.registerGauge("dockbridge_draining_servers", "Servers currently being drained.",
+                () -> drainer.drains().size());
+    }
+
+    /**
+     * Publishes every scan's listings through the coordinator while this proxy holds the
+     * scanning lease.
+     */
+    public void attachCoordinator(ScanCoordinator coordinator) {
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Turns Docker calls on or off. While off, refresh requests are ignored and registrations
+     * only change through {@link #adoptListing}.
+     */
+    void setScanning(boolean scanning) {
+        this.scanning = scanning;
+    }
+
+    boolean isScanning() {
+        return scanning;
+    }
+
+    /**
+     * Registers a callback that receives the full registration list after every scan that
+     * changed it. Called on the scan thread.
+     */
+    public void addRegistrationListener(Consumer<List<Registration>> listener) {
+        registrationListeners.add(listener);
+        listener.accept(state.get().registrations());
+    }
+
+    /**
+     * Registers a callback that receives every newly published state, on the thread that
+     * published it. States published concurrently may arrive out of order; compare
+     * {@link DockerState#version()} or read {@link #getState()} for the latest.
+     */
+    public void addStateListener(Consumer<DockerState> listener) {
+        stateListeners.add(listener);
+    }
+
+    /**
+     * Registers the servers from the last snapshot right away, marked unverified, and keeps
+     * the snapshot updated from then on. Restored entries keep their server names; an entry
+     * is dropped once its endpoint has been listed without it.
+     */
+    public void restore(RegistrationSnapshot snapshot) {
+        this.snapshot = snapshot;
+        List<RegistrationSnapshot.Entry> entries = snapshot.load();
+        if (entries.isEmpty()) {
+            return;
+        }
+        int restored = 0;
+        synchronized (reconcileLock) {
+            Set<String> restoredNames = new HashSet<>();
+            for (RegistrationSnapshot.Entry saved : entries) {
+                Registration registration = saved.registration();
+                String serverName = registration.serverName();
+                if (index.get(saved.containerKey()) != null
+                        || index.assignedNames().contains(serverName)
+                        || server.getServer(serverName).isPresent()) {
+                    continue;
+                }
+                // Unresolved so a slow resolver cannot hold up proxy startup; the first scan
+                // listing the container swaps in the resolved address.
+                InetSocketAddress address = InetSocketAddress.createUnresolved(registration.host(), registration.port());
+                try {
+                    server.registerServer(new ServerInfo(serverName, address));
+                } catch (Exception ex) {
+                    logger.warn("Failed to restore server {} at {}:{}: {}", serverName, registration.host(), registration.port(), ex.getMessage());
+                    continue;
+                }
+                ReconciliationIndex.Entry entry = index.getOrCreate(saved.containerKey());
+                entry.update(0L, registration.baseName());
+                entry.markRestored(saved.endpoint());
+                index.assign(entry, registration);
+                admit(registration);
+                restoredNames.add(serverName);
+                restored++;
+            }
+            List<Registration> registrations = index.registrations();
+            DockerState published = publish(current -> current.withRegistrations(registrations, restoredNames));
+            for (Consumer<List<Registration>> listener : registrationListeners) {
+                listener.accept(published.registrations());
+            }
+        }
+        logger.info("Restored {} Docker-backed server(s) from the last snapshot; verifying against Docker in the background.", restored);
     }
 
     public void initialize() {
-        logger.info("DockerService initialized with endpoint {}", config.dockerEndpoint());
-        ensureDockerReachable(true);
+        logger.info("DockerService initialized with endpoint(s) {}", String.join(", ", config.dockerEndpoints()));
+        for (DockerEndpoint endpoint : endpoints) {
+            discoveryExecutor.execute(() -> {
+                endpoint.ensureReachable(true);
+                publishEndpoints();
+            });
+        }
     }
 
+    /**
+     * Stops the discovery threads. Docker calls still in flight are interrupted.
+     */
+    public void shutdown() {
+        discoveryExecutor.shutdownNow();
+        writeSnapshot();
+        endpoints.forEach(DockerEndpoint::close);
+    }
+
+    /**
+     * Requests a scan and returns immediately; the scan runs on the discovery executor. A
+     * request that arrives while a scan is running marks the state dirty, and any number of
+     * such requests trigger exactly one follow-up scan, so changes reported mid-scan are not
+     * lost and callers such as scheduler ticks or event threads never block on Docker.
+     */
     public void refreshContainers() {
+        if (!scanning) {
+            return;
+        }
+        refreshPending.set(true);
         if (!refreshRunning.compareAndSet(false, true)) {
             return;
         }
         try {
-            refreshContainersLocked();
-        } finally {
+            discoveryExecutor.execute(this::drainRefreshes);
+        } catch (RejectedExecutionException ex) {
             refreshRunning.set(false);
         }
     }
 
-    private void refreshContainersLocked() {
-        Instant now = Instant.now();
-        if (shouldSkipDockerAccess(now)) {
-            return;
-        }
-        if (!ensureDockerReachable(false)) {
+    /**
+     * Requests a scan on behalf of the poll scheduler. Changes that scan finds count toward
+     * {@link #getPolledChangeCount()}; a scan a poll coalesces with counts as polled too.
+     */
+    public void pollContainers() {
+        pollPending.set(true);
+        refreshContainers();
+    }
+
+    /**
+     * Registrations, updates and unregistrations made by polled scans since startup. Unlike the
+     * registration metrics, this leaves out what event-driven scans and re-lists applied, so
+     * it measures what the poll would have missed without them.
+     */
+    public long getPolledChangeCount() {
+        return polledChanges.get();
+    }
+
+    private void drainRefreshes() {
+        do {
+            try {
+                while (refreshPending.getAndSet(false)) {
+                    refreshContainersLocked(pollPending.getAndSet(false));
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Docker refresh failed: {}", summarizeException(ex));
+            } finally {
+                refreshRunning.set(false);
+            }
+        } while (refreshPending.get() && refreshRunning.compareAndSet(false, true));
+    }
+
+    /**
+     * Scans every endpoint concurrently on its own virtual thread and reconciles their
+     * listings once, after every endpoint has answered or {@code docker.scan_timeout_seconds}
+     * has passed, so a round sees all containers it could list and names them the same way
+     * whichever daemon answered first. A scan still running after the deadline is reconciled
+     * on its own whenever it finishes, and its endpoint is skipped until then.
+     */
+    private void refreshContainersLocked(boolean polled) {
+        if (!scanning) {
             return;
         }
+        Instant now = Instant.now();
         if (config.logScan()) {
-            logger.info("Scanning Docker for auto-register containers using label {}={}.",
-                    config.autoRegisterLabelKey(), config.autoRegisterLabelValue());
+            logger.info("Scanning {} Docker endpoint(s) for auto-register containers using label {}={}.",
+                    endpoints.size(), config.autoRegisterLabelKey(), config.autoRegisterLabelValue());
         }
-        ContainerListResult listResult = listMatchingContainers();
-        if (!listResult.success()) {
-            return;
+        List<CompletableFuture<Boolean>> scans = new ArrayList<>(endpoints.size());
+        for (DockerEndpoint endpoint : endpoints) {
+            if (endpoint.shouldSkip(now)) {
+                continue;
+            }
+            if (!endpoint.tryBeginScan()) {
+                if (config.logScan()) {
+                    logger.info("Skipping Docker endpoint {}; its previous scan is still running.", endpoint.endpoint());
+                }
+                continue;
+            }
+            scans.add(CompletableFuture.supplyAsync(() -> scanEndpoint(endpoint, now), discoveryExecutor));
+        }
+        if (awaitScans(scans, now, polled)) {
+            reconcileListings(now, polled);
+        } else {
+            publishListings();
         }
-        lastScan = now;
-        List<Container> containers = listResult.containers();
-        if (containers.isEmpty()) {
-            // Unregister anything we had before.
-            int unregisteredCount = unregisterMissing(Set.of());
-            registeredNames.clear();
-            lastRegistrations = List.of();
-            lastMatchedCount = 0;
-            if (config.logSummary() && (unregisteredCount > 0 || config.logSummaryWhenUnchanged())) {
-                logger.info("Docker refresh complete: matched=0, registered=0, updated=0, unchanged=0, unregistered={}.",
-                        unregisteredCount);
+    }
+
+    /**
+     * Pings and lists one endpoint. Returns whether a new listing arrived.
+     */
+    private boolean scanEndpoint(DockerEndpoint endpoint, Instant now) {
+        try {
+            long phaseStart = System.nanoTime();
+            boolean reachable = endpoint.ensureReachable(false);
+            metrics.observePhase(DockBridgeMetrics.Phase.PING, System.nanoTime() - phaseStart);
+            if (!reachable) {
+                return false;
             }
+            phaseStart = System.nanoTime();
+            boolean listed = endpoint.listMatchingContainers(now);
+            metrics.observePhase(DockBridgeMetrics.Phase.LIST, System.nanoTime() - phaseStart);
+            return listed;
+        } finally {
+            endpoint.endScan();
+        }
+    }
+
+    /**
+     * Reconciles the last listing of every endpoint and publishes the endpoints' state.
+     */
+    private void reconcileListings(Instant scan, boolean polled) {
+        int changes = reconcile(this::mergedContainers, scan);
+        if (polled) {
+            polledChanges.addAndGet(changes);
+        }
+        shareListing();
+    }
+
+    private void publishListings() {
+        publishEndpoints();
+        shareListing();
+    }
+
+    private void shareListing() {
+        ScanCoordinator current = coordinator;
+        if (current != null) {
+            current.publishListing();
+        }
+    }
+
+    /**
+     * Re-lists just the container a Docker event named and reconciles that change, instead of
+     * listing every container of every endpoint again; the periodic scan stays as the safety
+     * net. Returns immediately. Events arriving while a re-list runs are batched into the
+     * next one; while a full scan holds the endpoint, its follow-up scan picks them up.
+     */
+    void refreshContainer(DockerEndpoint endpoint, String containerId) {
+        if (!scanning) {
+            return;
+        }
+        if (containerId == null || containerId.isBlank()) {
+            refreshContainers();
             return;
         }
+        if (!endpoint.queueUpdate(containerId)) {
+            return;
+        }
+        try {
+            discoveryExecutor.execute(() -> drainUpdates(endpoint));
+        } catch (RejectedExecutionException ex) {
+            // Shutting down.
+        }
+    }
 
-        containers = new ArrayList<>(containers);
-        containers.sort(Comparator.comparing(Container::getId, Comparator.nullsLast(String::compareTo)));
-
-        Map<String, Registration> previousByName = lastRegistrations.stream()
-                .collect(Collectors.toMap(Registration::serverName, registration -> registration, (a, b) -> a));
-        Map<String, Registration> previousByContainer = lastRegistrations.stream()
-                .collect(Collectors.toMap(Registration::containerId, registration -> registration, (a, b) -> a));
-        Map<String, List<Container>> nameGroups = containers.stream()
-                .collect(Collectors.groupingBy(this::resolveServerName));
-
-        Set<String> seenNames = new HashSet<>();
-        Map<String, Registration> newRegistrations = new HashMap<>();
-        int registeredCount = 0;
-        int updatedCount = 0;
-        int unchangedCount = 0;
-        for (Container container : containers) {
-            String baseName = resolveServerName(container);
-            String serverName = chooseServerName(container, baseName, nameGroups, previousByName, previousByContainer, seenNames);
-            RegistrationOutcome outcome = registerContainer(container, baseName, serverName);
-            if (outcome == null) {
+    private void drainUpdates(DockerEndpoint endpoint) {
+        do {
+            Set<String> containerIds = endpoint.takeUpdates();
+            if (containerIds.isEmpty() || !scanning) {
+                continue;
+            }
+            if (!endpoint.tryBeginScan()) {
+                refreshContainers();
                 continue;
             }
-            Registration registration = outcome.registration();
-            seenNames.add(registration.serverName());
-            newRegistrations.put(registration.serverName(), registration);
-            switch (outcome.status()) {
-                case REGISTERED -> registeredCount++;
-                case UPDATED -> updatedCount++;
-                case UNCHANGED -> unchangedCount++;
+            try {
+                long phaseStart = System.nanoTime();
+                boolean listed = endpoint.relistContainers(containerIds);
+                metrics.observePhase(DockBridgeMetrics.Phase.LIST, System.nanoTime() - phaseStart);
+                if (listed) {
+                    reconcile(this::mergedContainers, null);
+                }
+            } catch (RuntimeException ex) {
+                logger.warn("Docker container update failed: {}", summarizeException(ex));
+            } finally {
+                endpoint.endScan();
+                // Folded into the reconcile's state when it listed; then this publishes nothing.
+                publishListings();
             }
+        } while (endpoint.endUpdates());
+    }
+
+    /**
+     * Reconciles listings published by the proxy holding the scanning lease, as if this proxy
+     * had listed the daemons itself. Returns immediately; when several listings arrive before
+     * the discovery executor gets to them, only the latest is applied.
+     */
+    void adoptListing(List<SharedListing.Endpoint> published) {
+        adoptedListing.set(published);
+        try {
+            discoveryExecutor.execute(this::applyAdoptedListing);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down.
         }
+    }
 
-        int unregisteredCount = unregisterMissing(seenNames);
-        registeredNames.clear();
-        registeredNames.addAll(seenNames);
-        lastRegistrations = new ArrayList<>(newRegistrations.values());
-        lastMatchedCount = containers.size();
+    private void applyAdoptedListing() {
+        Instant newest = Instant.EPOCH;
+        synchronized (reconcileLock) {
+            List<SharedListing.Endpoint> published = adoptedListing.getAndSet(null);
+            if (published == null) {
+                return;
+            }
+            for (SharedListing.Endpoint listed : published) {
+                DockerEndpoint endpoint = getEndpoint(listed.endpoint());
+                if (endpoint == null) {
+                    continue;
+                }
+                Instant scan = Instant.ofEpochMilli(listed.lastScan());
+                endpoint.adopt(listed.containers(), listed.available(), listed.unavailableReason(), scan);
+                if (scan.isAfter(newest)) {
+                    newest = scan;
+                }
+            }
+        }
+        reconcile(this::mergedContainers, newest);
+    }
+
+    /**
+     * Last known containers of all endpoints, in endpoint order. Container ids are unique
+     * across daemons. Naming orders each base name's replicas by endpoint and then by id, so
+     * a round that lists every endpoint names them the same way on every proxy. An endpoint
+     * that misses the round's deadline is reconciled when it answers, against names the
+     * others already hold, so its replicas can end up with suffixes they would not have had
+     * if it had answered in time.
+     */
+    private List<ContainerSummary> mergedContainers() {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0).containers();
+        }
+        List<ContainerSummary> merged = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (DockerEndpoint endpoint : endpoints) {
+            for (ContainerSummary container : endpoint.containers()) {
+                if (seen.add(containerKey(container))) {
+                    merged.add(container);
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Waits for the scans of a round until {@code docker.scan_timeout_seconds} has passed and
+     * returns whether any of them listed. A scan finishing later reconciles on its own.
+     */
+    private boolean awaitScans(List<CompletableFuture<Boolean>> scans, Instant now, boolean polled) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(1, config.dockerScanTimeoutSeconds()));
+        boolean listed = false;
+        for (CompletableFuture<Boolean> scan : scans) {
+            try {
+                listed |= scan.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                scan.whenComplete((late, failure) -> {
+                    if (failure != null) {
+                        logger.warn("Docker endpoint scan failed: {}", summarizeException(failure));
+                    }
+                    if (Boolean.TRUE.equals(late) && scanning) {
+                        reconcileListings(now, polled);
+                    } else {
+                        publishListings();
+                    }
+                });
+            } catch (ExecutionException ex) {
+                logger.warn("Docker endpoint scan failed: {}", summarizeException(ex));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return listed;
+            }
+        }
+        return listed;
+    }
+
+    /**
+     * Plans a container listing against the reconciliation index and applies the plan.
+     * Containers whose fingerprint matches the previous scan are skipped; only added, changed
+     * and removed containers go through naming and Velocity registration. Returns how many
+     * servers were registered, updated or unregistered.
+     */
+    int reconcile(List<ContainerSummary> containers) {
+        return reconcile(() -> containers, null);
+    }
+
+    /**
+     * Reconciles the listing the supplier returns under the reconcile lock. If the plan needs
+     * DNS lookups, they run after the lock is released, since a virtual thread blocking inside
+     * {@code synchronized} pins its carrier and would hold up every other reconcile; the
+     * listing is then read and planned again, so a newer listing that was reconciled in the
+     * meantime is never overwritten with an older one.
+     *
+     * @param scan when the listing was taken, or null if it does not count as a scan.
+     */
+    private int reconcile(Supplier<List<ContainerSummary>> listing, Instant scan) {
+        ReconcilePlan first;
+        synchronized (reconcileLock) {
+            long planStart = System.nanoTime();
+            List<ContainerSummary> containers = listing.get();
+            Admission admission = admissible(containers);
+            first = plan(admission);
+            if (!addresses.needsLookup(first.lookups())) {
+                return applyPlanned(containers, admission, first, planStart, scan);
+            }
+        }
+        addresses.prefetch(first.lookups());
+        synchronized (reconcileLock) {
+            long planStart = System.nanoTime();
+            List<ContainerSummary> containers = listing.get();
+            Admission admission = admissible(containers);
+            return applyPlanned(containers, admission, plan(admission), planStart, scan);
+        }
+    }
+
+    /**
+     * Applies a plan and publishes everything the reconcile changed as one new state.
+     */
+    private int applyPlanned(List<ContainerSummary> containers, Admission admission, ReconcilePlan plan, long planStart, Instant scan) {
+        long applyStart = System.nanoTime();
+        metrics.observePhase(DockBridgeMetrics.Phase.PLAN, applyStart - planStart);
+        record(admission);
+        plan.warnings().forEach(logger::warn);
+        boolean applied = false;
+        List<Registration> registrations = null;
+        Set<String> unverified = null;
+        DockerState.Changes changes = null;
+        if (plan.isEmpty()) {
+            if (!plan.confirmed().isEmpty()) {
+                plan.confirmed().forEach(ReconciliationIndex.Entry::confirm);
+                unverified = unverifiedNames();
+            }
+        } else if (apply(plan)) {
+            applied = true;
+            registrations = index.registrations();
+            unverified = unverifiedNames();
+            changes = new DockerState.Changes(plan.count(ReconcilePlan.Action.REGISTER), plan.count(ReconcilePlan.Action.UPDATE),
+                    plan.count(ReconcilePlan.Action.UNREGISTER), Instant.now());
+        }
+        List<Registration> nextRegistrations = registrations;
+        Set<String> nextUnverified = unverified;
+        DockerState.Changes nextChanges = changes;
+        List<DockerState.EndpointStatus> statuses = endpointStatuses();
+        DockerState published = publish(current -> current.afterScan(scan, containers.size(), admission.heldBack(), admission.elsewhere(),
+                nextRegistrations, nextUnverified, nextChanges, statuses));
+        if (plan.isEmpty()) {
+            if (config.logSummary() && config.logSummaryWhenUnchanged()) {
+                logger.info("Docker refresh complete: matched={}, registered=0, updated=0, unchanged={}, unregistered=0.",
+                        containers.size(), containers.size());
+            }
+            return 0;
+        }
+        if (!applied) {
+            return 0;
+        }
+
+        int registeredCount = changes.registered();
+        int updatedCount = changes.updated();
+        int unregisteredCount = changes.unregistered();
+        int unchangedCount = Math.max(0, containers.size() - registeredCount - updatedCount);
+        persistSnapshot();
+        metrics.recordRegistrations(registeredCount, updatedCount, unregisteredCount);
+        metrics.observePhase(DockBridgeMetrics.Phase.APPLY, System.nanoTime() - applyStart);
+        for (Consumer<List<Registration>> listener : registrationListeners) {
+            listener.accept(published.registrations());
+        }
         if (config.logSummary() && (registeredCount > 0 || updatedCount > 0 || unregisteredCount > 0 || config.logSummaryWhenUnchanged())) {
             logger.info("Docker refresh complete: matched={}, registered={}, updated={}, unchanged={}, unregistered={}.",
                     containers.size(), registeredCount, updatedCount, unchangedCount, unregisteredCount);
         }
+        return registeredCount + updatedCount + unregisteredCount;
     }
 
-    private ContainerListResult listMatchingContainers() {
-        try {
-            ListContainersCmd cmd = dockerClient.listContainersCmd()
-                    .withShowAll(false)
-                    .withLabelFilter(Map.of(config.autoRegisterLabelKey(), config.autoRegisterLabelValue()));
-            List<Container> result = cmd.exec();
-            markDockerAvailable(false);
-            if (result != null && !result.isEmpty() && config.logMatches()) {
-                for (Container c : result) {
-                    logger.info("Matched container id={} names={}",
-                            shortContainerId(c),
-                            c.getNames() == null ? "[]" : String.join(",", c.getNames()));
+    /**
+     * Plans a reconcile against the last listing of every endpoint without applying it, and
+     * without any of a reconcile's bookkeeping or DNS lookups; addresses come from the cache.
+     * Runs on the discovery executor so the caller never waits for a scan holding the lock.
+     */
+    CompletableFuture<ReconcilePlan> planDryRun() {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (reconcileLock) {
+                return plan(admissible(mergedContainers()));
+            }
+        }, discoveryExecutor);
+    }
+
+    /**
+     * Computes the diff between the admitted containers and the current registrations. Reads
+     * the index, the DNS cache and Velocity but changes nothing; names are chosen against the
+     * claims the plan itself makes, so the result is exactly what {@link #apply} would do.
+     */
+    private ReconcilePlan plan(Admission admission) {
+        Origins origins = origins();
+        List<ContainerSummary> containers = admission.kept();
+        List<Candidate> changed = null;
+        List<ReconciliationIndex.Entry> confirmed = List.of();
+        int listedEntries = 0;
+        for (ContainerSummary container : containers) {
+            String key = containerKey(container);
+            long fingerprint = ContainerFingerprint.of(container, config, addresses.fingerprintPart(container));
+            ReconciliationIndex.Entry entry = index.get(key);
+            if (entry != null) {
+                listedEntries++;
+                if (entry.restoredFrom() != null) {
+                    if (confirmed.isEmpty()) {
+                        confirmed = new ArrayList<>();
+                    }
+                    confirmed.add(entry);
+                }
+                if (entry.fingerprint() == fingerprint && entry.registration() != null) {
+                    continue;
                 }
             }
-            return ContainerListResult.success(result == null ? List.of() : result);
-        } catch (Exception e) {
-            markDockerUnavailable("listContainers failed: " + summarizeException(e));
-            return ContainerListResult.failure();
+            if (changed == null) {
+                changed = new ArrayList<>();
+            }
+            changed.add(new Candidate(container, key, fingerprint, resolveServerName(container), entry == null ? null : entry.registration()));
+        }
+
+        List<ReconciliationIndex.Entry> removed = List.of();
+        if (listedEntries < index.size()) {
+            Set<String> listed = new HashSet<>();
+            for (ContainerSummary container : containers) {
+                listed.add(containerKey(container));
+            }
+            removed = index.unseen(listed::contains, this::retainUnverified);
+        }
+        if (changed == null && removed.isEmpty()) {
+            return ReconcilePlan.unchanged(containers.size(), confirmed);
+        }
+
+        // Names released by removed or changed containers; they are unregistered unless a
+        // container claims them again in this plan.
+        Map<String, Registration> releasedByName = new HashMap<>();
+        Set<String> detached = new HashSet<>();
+        for (ReconciliationIndex.Entry entry : removed) {
+            release(entry, releasedByName, detached);
+        }
+        if (changed == null) {
+            changed = new ArrayList<>();
+        }
+        for (Candidate candidate : changed) {
+            ReconciliationIndex.Entry entry = index.get(candidate.key());
+            if (entry != null) {
+                release(entry, releasedByName, detached);
+            }
+        }
+        if (duplicateStrategy == DuplicateStrategy.OVERWRITE && !releasedByName.isEmpty()) {
+            adoptOverwrittenNames(containers, changed, releasedByName);
+        }
+        changed.sort(Comparator.comparingInt((Candidate candidate) -> origins.rank(candidate.key()))
+                .thenComparing(candidate -> candidate.container().id(), Comparator.nullsLast(String::compareTo)));
+        Map<String, Candidate> changedByKey = new HashMap<>();
+        for (Candidate candidate : changed) {
+            changedByKey.put(candidate.key(), candidate);
         }
+        Map<String, List<String>> nameGroups = buildNameGroups(containers, changedByKey, origins);
+
+        // Desired state per server name; with the overwrite strategy the last writer wins.
+        Map<String, ServerInfo> desired = new LinkedHashMap<>();
+        Map<String, Registration> desiredRegistrations = new LinkedHashMap<>();
+        Predicate<String> claimed = name -> desired.containsKey(name)
+                || (index.assignedNames().contains(name) && !detached.contains(name));
+        List<ReconcilePlan.Assignment> assignments = new ArrayList<>(changed.size());
+        List<ReconcilePlan.Skipped> skipped = List.of();
+        List<String> lookups = new ArrayList<>(changed.size());
+        List<String> warnings = List.of();
+        for (Candidate candidate : changed) {
+            ContainerSummary container = candidate.container();
+            String serverName = chooseServerName(container, candidate.baseName(), nameGroups, releasedByName, candidate.previous(), claimed);
+            DockerEndpoint endpoint = origins.of(candidate.key());
+            Target target = resolveTarget(container, endpoint);
+            String host = target.host();
+            int port = target.port();
+            // A stopped container's name does not resolve; it is looked up once it runs.
+            if (!isCold(container)) {
+                lookups.add(host);
+                if (!target.published() && endpoint != null && endpoint.remoteHost() != null) {
+                    if (warnings.isEmpty()) {
+                        warnings = new ArrayList<>();
+                    }
+                    warnings.add("Container " + shortContainerId(container) + " on " + endpoint.endpoint()
+                            + " publishes no host port for " + port + "; registering it by name, which only resolves on that host's networks.");
+                }
+            }
+            InetSocketAddress address;
+            try {
+                address = addresses.address(host, port);
+            } catch (IllegalArgumentException ex) {
+                if (skipped.isEmpty()) {
+                    skipped = new ArrayList<>();
+                }
+                skipped.add(new ReconcilePlan.Skipped(serverName, host, port, ex.getMessage()));
+                assignments.add(new ReconcilePlan.Assignment(candidate.key(), candidate.fingerprint(), candidate.baseName(), null));
+                continue;
+            }
+            Registration registration = new Registration(serverName, host, port, shortContainerId(container), candidate.baseName(),
+                    resolveWeight(container), Map.copyOf(container.labels()), isCold(container));
+            assignments.add(new ReconcilePlan.Assignment(candidate.key(), candidate.fingerprint(), candidate.baseName(), registration));
+            desired.put(serverName, new ServerInfo(serverName, address));
+            desiredRegistrations.put(serverName, registration);
+        }
+
+        List<ReconcilePlan.Step> registers = new ArrayList<>();
+        List<ReconcilePlan.Step> updates = new ArrayList<>();
+        for (Map.Entry<String, ServerInfo> wanted : desired.entrySet()) {
+            Optional<RegisteredServer> existing = server.getServer(wanted.getKey());
+            if (existing.isEmpty()) {
+                registers.add(new ReconcilePlan.Step(ReconcilePlan.Action.REGISTER, wanted.getKey(), null, wanted.getValue()));
+            } else if (!addressesMatch(existing.get().getServerInfo().getAddress(), wanted.getValue().getAddress())) {
+                updates.add(new ReconcilePlan.Step(ReconcilePlan.Action.UPDATE, wanted.getKey(), existing.get().getServerInfo(), wanted.getValue()));
+            }
+        }
+        List<ReconcilePlan.Step> unregisters = new ArrayList<>();
+        List<String> tryRemovals = new ArrayList<>();
+        List<String> order = server.getConfiguration().getAttemptConnectionOrder();
+        for (String name : releasedByName.keySet()) {
+            if (claimed.test(name)) {
+                continue;
+            }
+            Optional<RegisteredServer> existing = server.getServer(name);
+            if (existing.isPresent()) {
+                unregisters.add(new ReconcilePlan.Step(ReconcilePlan.Action.UNREGISTER, name, existing.get().getServerInfo(), null));
+                if (order.contains(name)) {
+                    tryRemovals.add(name);
+                }
+            }
+        }
+        unregisters.sort(Comparator.comparing(ReconcilePlan.Step::serverName));
+
+        List<ReconcilePlan.Step> steps = new ArrayList<>(registers.size() + updates.size() + unregisters.size());
+        steps.addAll(registers);
+        steps.addAll(updates);
+        steps.addAll(unregisters);
+        return new ReconcilePlan(
+                containers.size(),
+                steps,
+                List.copyOf(desiredRegistrations.values()),
+                tryRemovals,
+                skipped,
+                assignments,
+                removed,
+                confirmed,
+                lookups,
+                warnings);
     }
 
-    private RegistrationOutcome registerContainer(Container container, String baseName, String serverName) {
-        int port = resolvePort(container);
-        String host = resolveHost(container);
+    /**
+     * Drops containers that must not be registered here: those carrying the draining label,
+     * those belonging to another proxy group or another replica's shard, with
+     * {@code cold.enabled} those that are neither running nor cold (restarting, dead, being
+     * removed) and, with {@code docker.health.required}, running containers whose Docker
+     * health check has not passed.
+     * Dropped containers are planned like removed ones, so a server whose container turns
+     * unhealthy leaves the try list on the scan its health_status event triggers. Health is
+     * read from the listing's status text; only containers still starting are tracked.
+     * Changes nothing; {@link #record} keeps what it found when a reconcile applies it.
+     */
+    private Admission admissible(List<ContainerSummary> containers) {
+        String drainingLabel = config.autoRegisterDrainingLabel();
+        boolean gated = config.dockerHealthRequired();
+        long now = System.nanoTime();
+        long recheckIn = Long.MAX_VALUE;
+        Map<String, Long> starting = null;
+        List<Registration> unhealthy = List.of();
+        int heldBack = 0;
+        int elsewhere = 0;
+        List<ContainerSummary> kept = null;
+        for (int i = 0; i < containers.size(); i++) {
+            ContainerSummary container = containers.get(i);
+            boolean cold = isCold(container);
+            boolean admit = !"true".equalsIgnoreCase(container.label(drainingLabel));
+            if (admit && config.coldEnabled() && !cold && !"running".equals(container.state())) {
+                admit = false;
+            }
+            if (admit && !servedHere(container)) {
+                admit = false;
+                elsewhere++;
+            }
+            if (admit && gated && !cold) {
+                ContainerHealth health = ContainerHealth.of(container);
+                if (health == ContainerHealth.STARTING) {
+                    String key = containerKey(container);
+                    long since = healthStartingSince.getOrDefault(key, now);
+                    if (starting == null) {
+                        starting = new HashMap<>();
+                    }
+                    starting.put(key, since);
+                    int grace = resolveHealthGrace(container);
+                    long ready = since + TimeUnit.SECONDS.toNanos(Math.max(0, grace));
+                    admit = grace >= 0 && now - ready >= 0;
+                    if (!admit && grace >= 0) {
+                        recheckIn = Math.min(recheckIn, ready - now);
+                    }
+                } else if (health == ContainerHealth.UNHEALTHY) {
+                    admit = false;
+                    ReconciliationIndex.Entry entry = index.get(containerKey(container));
+                    if (entry != null && entry.registration() != null) {
+                        if (unhealthy.isEmpty()) {
+                            unhealthy = new ArrayList<>();
+                        }
+                        unhealthy.add(entry.registration());
+                    }
+                }
+                if (!admit) {
+                    heldBack++;
+                }
+            }
+            if (admit) {
+                if (kept != null) {
+                    kept.add(container);
+                }
+                continue;
+            }
+            if (kept == null) {
+                kept = new ArrayList<>(containers.subList(0, i));
+            }
+        }
+        return new Admission(kept == null ? containers : kept, starting == null ? Map.of() : starting, heldBack, elsewhere,
+                recheckIn == Long.MAX_VALUE ? Long.MAX_VALUE : now + recheckIn, unhealthy);
+    }
+
+    /**
+     * Keeps what a reconcile's admission found for the next scan: when starting containers
+     * were first seen, the counts {@code /dockbridge} shows, and a rescan for when the earliest
+     * grace runs out.
+     */
+    private void record(Admission admission) {
+        healthStartingSince = admission.starting();
+        healthHeldBack = admission.heldBack();
+        otherProxies = admission.elsewhere();
+        if (admission.recheckAt() != Long.MAX_VALUE) {
+            scheduleHealthRecheck(admission.recheckAt());
+        }
+        for (Registration registration : admission.unhealthy()) {
+            logger.info("Container {} reports unhealthy; taking server {} out of rotation.",
+                    registration.containerId(), registration.serverName());
+        }
+    }
+
+    /**
+     * The containers {@link #admissible} keeps, and what it found along the way. A recheck
+     * time of {@link Long#MAX_VALUE} means none is needed.
+     */
+    private record Admission(List<ContainerSummary> kept, Map<String, Long> starting, int heldBack, int elsewhere,
+                             long recheckAt, List<Registration> unhealthy) {
+    }
 
-        InetSocketAddress address = new InetSocketAddress(host, port);
-        ServerInfo info = new ServerInfo(serverName, address);
+    /**
+     * Whether the container backs a cold server: with {@code cold.enabled}, one that is
+     * created, exited or paused. Cold servers stay registered but out of rotation until a
+     * player's connection wakes them.
+     */
+    private boolean isCold(ContainerSummary container) {
+        if (!config.coldEnabled() || container.state() == null) {
+            return false;
+        }
+        return switch (container.state()) {
+            case "created", "exited", "paused" -> true;
+            default -> false;
+        };
+    }
 
-        Optional<RegisteredServer> existing = server.getServer(serverName);
-        if (existing.isPresent()) {
-            InetSocketAddress existingAddress = existing.get().getServerInfo().getAddress();
-            if (addressesMatch(existingAddress, address)) {
-                ensureTryIncludes(serverName);
-                return new RegistrationOutcome(
-                        new Registration(serverName, host, port, shortContainerId(container), baseName),
-                        RegistrationStatus.UNCHANGED);
+    /**
+     * Whether this proxy registers the container: its proxy group label is missing or names
+     * {@code filters.proxy_group} (or {@code *}), and with sharding the ring assigns its id to
+     * this replica.
+     */
+    private boolean servedHere(ContainerSummary container) {
+        String group = config.proxyGroup();
+        String labelled = container.label(config.autoRegisterProxyGroupLabel());
+        if (!group.equals("*") && labelled != null && !labelled.isBlank()) {
+            boolean member = false;
+            for (String candidate : labelled.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals(group) || trimmed.equals("*")) {
+                    member = true;
+                    break;
+                }
+            }
+            if (!member) {
+                return false;
             }
-            server.unregisterServer(existing.get().getServerInfo());
+        }
+        return shard == null || shard.owns(containerKey(container));
+    }
+
+    /**
+     * Grace in seconds for a container whose health check is still starting: the health grace
+     * label if set, otherwise {@code docker.health.starting_grace_seconds}.
+     */
+    private int resolveHealthGrace(ContainerSummary container) {
+        String raw = container.label(config.autoRegisterHealthGraceLabel());
+        if (raw == null || raw.isBlank()) {
+            return config.dockerHealthStartingGraceSeconds();
+        }
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (NumberFormatException ex) {
+            logger.warn("Invalid health grace label {}={} on container {}. Using {}.",
+                    config.autoRegisterHealthGraceLabel(), raw, container.id(), config.dockerHealthStartingGraceSeconds());
+            return config.dockerHealthStartingGraceSeconds();
+        }
+    }
+
+    /**
+     * Rescans once the earliest starting grace runs out; Docker sends no event for that.
+     */
+    private void scheduleHealthRecheck(long atNanos) {
+        long pending = healthRecheckAt.get();
+        if (pending - System.nanoTime() > 0 && pending - atNanos <= 0) {
+            return;
+        }
+        healthRecheckAt.set(atNanos);
+        long delay = Math.max(0L, atNanos - System.nanoTime()) + TimeUnit.MILLISECONDS.toNanos(100);
+        try {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, discoveryExecutor).execute(() -> {
+                healthRecheckAt.compareAndSet(atNanos, Long.MAX_VALUE);
+                refreshContainers();
+            });
+        } catch (RejectedExecutionException ex) {
+            healthRecheckAt.set(Long.MAX_VALUE);
+        }
+    }
+
+    private void release(ReconciliationIndex.Entry entry, Map<String, Registration> releasedByName, Set<String> detached) {
+        Registration registration = entry.registration();
+        if (registration == null) {
+            return;
+        }
+        releasedByName.put(registration.serverName(), registration);
+        if (index.isAssigned(entry)) {
+            detached.add(registration.serverName());
+        }
+    }
+
+    /**
+     * Applies a plan in the least disruptive order: new servers are registered first, changed
+     * addresses are swapped next, and removed servers leave the try list before they are
+     * unregistered. A failing step undoes every step before it and leaves the index untouched,
+     * so the next scan plans the same changes again. The index, prober and try list are only
+     * updated once Velocity holds the new state.
+     */
+    private boolean apply(ReconcilePlan plan) {
+        Deque<Runnable> undo = new ArrayDeque<>();
+        for (ReconcilePlan.Step step : plan.steps()) {
             try {
-                server.registerServer(info);
-            } catch (Exception ex) {
-                logger.warn("Failed to update server {} at {}:{}: {}", serverName, address.getHostString(), address.getPort(), ex.getMessage());
-                return null;
+                applyStep(step, undo);
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to {} server {}: {}. Rolling back {} earlier change(s) from this scan.",
+                        step.action().name().toLowerCase(), step.serverName(), summarizeException(ex), undo.size());
+                rollback(undo);
+                return false;
             }
-            ensureTryIncludes(serverName);
-            if (config.logUpdated()) {
-                logger.info("Updated server {} -> {}:{}.", serverName, address.getHostString(), address.getPort());
+        }
+
+        for (ReconciliationIndex.Entry entry : plan.removed()) {
+            index.remove(entry);
+        }
+        for (ReconcilePlan.Assignment assignment : plan.assignments()) {
+            ReconciliationIndex.Entry entry = index.get(assignment.containerKey());
+            if (entry != null) {
+                index.detach(entry);
+            }
+        }
+        for (ReconcilePlan.Assignment assignment : plan.assignments()) {
+            ReconciliationIndex.Entry entry = index.getOrCreate(assignment.containerKey());
+            entry.update(assignment.fingerprint(), assignment.baseName());
+            if (assignment.registration() == null) {
+                entry.clearRegistration();
+            } else {
+                index.assign(entry, assignment.registration());
+            }
+        }
+        plan.confirmed().forEach(ReconciliationIndex.Entry::confirm);
+
+        BackendProber current = prober;
+        for (ReconcilePlan.Step step : plan.steps()) {
+            if (step.action() == ReconcilePlan.Action.UNREGISTER) {
+                suspending.remove(step.serverName());
+                retiring.remove(step.serverName());
+                if (current != null) {
+                    current.forget(step.serverName());
+                }
             }
-            return new RegistrationOutcome(
-                    new Registration(serverName, host, port, shortContainerId(container), baseName),
-                    RegistrationStatus.UPDATED);
+            logStep(step);
+        }
+        for (Registration registration : plan.admissions()) {
+            admit(registration);
+        }
+        for (ReconcilePlan.Skipped skip : plan.skipped()) {
+            logger.warn("Failed to register server {} at {}:{}: {}", skip.serverName(), skip.host(), skip.port(), skip.reason());
+        }
+        return true;
+    }
+
+    private void applyStep(ReconcilePlan.Step step, Deque<Runnable> undo) {
+        switch (step.action()) {
+            case REGISTER -> {
+                server.registerServer(step.next());
+                undo.push(() -> unregisterIfCurrent(step.next()));
+            }
+            case UPDATE -> {
+                // Velocity has no replace, so the name is missing between these two calls. The
+                // new address was resolved while planning, which keeps that window to two map
+                // operations; a failed register puts the old server back before rethrowing.
+                ServerInfo previous = currentInfo(step.serverName());
+                if (previous != null) {
+                    server.unregisterServer(previous);
+                }
+                try {
+                    server.registerServer(step.next());
+                } catch (RuntimeException ex) {
+                    if (previous != null) {
+                        server.registerServer(previous);
+                    }
+                    throw ex;
+                }
+                undo.push(() -> {
+                    unregisterIfCurrent(step.next());
+                    if (previous != null) {
+                        server.registerServer(previous);
+                    }
+                });
+            }
+            case UNREGISTER -> {
+                if (ensureTryExcludes(step.serverName())) {
+                    undo.push(() -> ensureTryIncludes(step.serverName()));
+                }
+                Optional<RegisteredServer> registered = server.getServer(step.serverName());
+                if (registered.isEmpty()) {
+                    return;
+                }
+                ServerInfo previous = registered.get().getServerInfo();
+                ServerDrainer currentDrainer = drainer;
+                if (currentDrainer != null
+                        && currentDrainer.drainBeforeUnregister(registered.get(), baseNameOf(step.serverName()), () -> unregisterIfCurrent(previous))) {
+                    undo.push(() -> currentDrainer.keepRegistered(step.serverName()));
+                    return;
+                }
+                server.unregisterServer(previous);
+                undo.push(() -> server.registerServer(previous));
+            }
+        }
+    }
+
+    private void rollback(Deque<Runnable> undo) {
+        while (!undo.isEmpty()) {
+            try {
+                undo.pop().run();
+            } catch (RuntimeException ex) {
+                logger.warn("Rollback step failed: {}", summarizeException(ex));
+            }
+        }
+    }
+
+    /**
+     * Base name of a currently registered server, or the server name if it is not known.
+     */
+    private String baseNameOf(String serverName) {
+        return state.get().registration(serverName).map(Registration::baseName).orElse(serverName);
+    }
+
+    /**
+     * Drains the server of a container Docker reports as stopping, ahead of the scan that finds
+     * it gone. Stops DockBridge sends itself, idle suspensions and autoscaler scale-ins, are
+     * skipped: their servers are marked before the call goes out and only stop once they are
+     * empty. Returns immediately; the lookup runs on the discovery executor.
+     */
+    void drainContainer(String containerId, String reason) {
+        ServerDrainer current = drainer;
+        if (current == null || containerId == null) {
+            return;
         }
         try {
-            server.registerServer(info);
-        } catch (Exception ex) {
-            logger.warn("Failed to register server {} at {}:{}: {}", serverName, address.getHostString(), address.getPort(), ex.getMessage());
-            return null;
+            discoveryExecutor.execute(() -> {
+                Registration registration;
+                synchronized (reconcileLock) {
+                    ReconciliationIndex.Entry entry = index.get(containerId);
+                    if (entry == null || !index.isAssigned(entry)) {
+                        return;
+                    }
+                    registration = entry.registration();
+                }
+                if (suspending.contains(registration.serverName()) || retiring.contains(registration.serverName())) {
+                    return;
+                }
+                server.getServer(registration.serverName())
+                        .ifPresent(registered -> current.drain(registered, registration.baseName(), reason));
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Shutting down.
+        }
+    }
+
+    /**
+     * Puts a server whose drain was lifted back into rotation, if it is still registered.
+     */
+    void readmit(String serverName) {
+        state.get().registration(serverName).ifPresent(this::admit);
+    }
+
+    public boolean isDraining(String serverName) {
+        ServerDrainer current = drainer;
+        return current != null && current.isDraining(serverName);
+    }
+
+    public Optional<ServerDrainer> getDrainer() {
+        return Optional.ofNullable(drainer);
+    }
+
+    private ServerInfo currentInfo(String serverName) {
+        return server.getServer(serverName).map(RegisteredServer::getServerInfo).orElse(null);
+    }
+
+    private void unregisterIfCurrent(ServerInfo info) {
+        if (info.equals(currentInfo(info.getName()))) {
+            server.unregisterServer(info);
+        }
+    }
+
+    private void logStep(ReconcilePlan.Step step) {
+        switch (step.action()) {
+            case REGISTER -> {
+                if (config.logRegistered()) {
+                    logger.info("Registered server {} -> {}:{}.", step.serverName(), step.next().getAddress().getHostString(), step.next().getAddress().getPort());
+                }
+            }
+            case UPDATE -> {
+                if (config.logUpdated()) {
+                    logger.info("Updated server {} -> {}:{}.", step.serverName(), step.next().getAddress().getHostString(), step.next().getAddress().getPort());
+                }
+            }
+            case UNREGISTER -> {
+                if (config.logUnregistered() && !isDraining(step.serverName())) {
+                    logger.info("Unregistered server {} (no matching container).", step.serverName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps restored entries whose endpoint has not answered yet; they cannot be told apart
+     * from removed containers until that endpoint is listed.
+     */
+    private boolean retainUnverified(ReconciliationIndex.Entry entry) {
+        String restoredFrom = entry.restoredFrom();
+        if (restoredFrom == null) {
+            return false;
+        }
+        for (DockerEndpoint endpoint : endpoints) {
+            if (endpoint.endpoint().equals(restoredFrom)) {
+                return !endpoint.hasListed();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Servers still waiting for a scan to confirm their restored registration.
+     */
+    private Set<String> unverifiedNames() {
+        if (!state.get().hasUnverifiedNames()) {
+            return Set.of();
+        }
+        Set<String> remaining = new HashSet<>();
+        for (ReconciliationIndex.Entry entry : index.assignedEntries()) {
+            if (entry.restoredFrom() != null) {
+                remaining.add(entry.registration().serverName());
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Applies a change to the published state and tells the state listeners if it produced a
+     * new one. The change must be free of side effects; it is retried if another thread
+     * published in between.
+     */
+    private DockerState publish(UnaryOperator<DockerState> change) {
+        while (true) {
+            DockerState current = state.get();
+            DockerState next = change.apply(current);
+            if (next == current) {
+                return current;
+            }
+            if (state.compareAndSet(current, next)) {
+                for (Consumer<DockerState> listener : stateListeners) {
+                    try {
+                        listener.accept(next);
+                    } catch (RuntimeException ex) {
+                        logger.warn("DockBridge state listener failed: {}", summarizeException(ex));
+                    }
+                }
+                return next;
+            }
+        }
+    }
+
+    private void publishEndpoints() {
+        List<DockerState.EndpointStatus> statuses = endpointStatuses();
+        publish(current -> current.withEndpoints(statuses));
+    }
+
+    private List<DockerState.EndpointStatus> endpointStatuses() {
+        List<DockerState.EndpointStatus> statuses = new ArrayList<>(endpoints.size());
+        for (DockerEndpoint endpoint : endpoints) {
+            statuses.add(new DockerState.EndpointStatus(endpoint.endpoint(), endpoint.isAvailable(),
+                    endpoint.unavailableReason().orElse(null), endpoint.containers().size(), endpoint.lastScan()));
+        }
+        return statuses;
+    }
+
+    /**
+     * Collects the current registrations for the snapshot and leaves writing the file to the
+     * discovery executor, so a slow disk never holds the reconcile lock.
+     */
+    private void persistSnapshot() {
+        RegistrationSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Map<String, String> endpointByContainer = new HashMap<>();
+        for (DockerEndpoint endpoint : endpoints) {
+            for (ContainerSummary container : endpoint.containers()) {
+                endpointByContainer.putIfAbsent(containerKey(container), endpoint.endpoint());
+            }
+        }
+        List<RegistrationSnapshot.Entry> entries = new ArrayList<>(index.assignedCount());
+        for (ReconciliationIndex.Entry entry : index.assignedEntries()) {
+            String endpoint = entry.restoredFrom() != null
+                    ? entry.restoredFrom()
+                    : endpointByContainer.get(entry.containerId());
+            if (endpoint != null) {
+                entries.add(new RegistrationSnapshot.Entry(endpoint, entry.containerId(), entry.registration()));
+            }
+        }
+        entries.sort(Comparator.comparing(saved -> saved.registration().serverName()));
+        if (pendingSnapshot.getAndSet(entries) != null) {
+            return;
+        }
+        try {
+            discoveryExecutor.execute(this::writeSnapshot);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down; shutdown() writes it.
+        }
+    }
+
+    /**
+     * Writes the latest snapshot handed over by {@link #persistSnapshot()}, off the reconcile
+     * lock. Snapshots queued while a write runs collapse into one write of the newest.
+     */
+    private void writeSnapshot() {
+        RegistrationSnapshot current = snapshot;
+        synchronized (snapshotWriteLock) {
+            List<RegistrationSnapshot.Entry> entries = pendingSnapshot.getAndSet(null);
+            if (current != null && entries != null) {
+                current.save(entries);
+            }
+        }
+    }
+
+    /**
+     * With the overwrite strategy several containers share one name and only the last one
+     * holds it. When the holder goes away, the remaining containers are re-registered.
+     */
+    private void adoptOverwrittenNames(List<ContainerSummary> containers, List<Candidate> changed, Map<String, Registration> releasedByName) {
+        Set<String> changedKeys = new HashSet<>();
+        for (Candidate candidate : changed) {
+            changedKeys.add(candidate.key());
         }
-        ensureTryIncludes(serverName);
-        if (config.logRegistered()) {
-            logger.info("Registered server {} -> {}:{}.", serverName, address.getHostString(), address.getPort());
+        for (ContainerSummary container : containers) {
+            String key = containerKey(container);
+            ReconciliationIndex.Entry entry = index.get(key);
+            Registration registration = entry == null ? null : entry.registration();
+            if (registration != null
+                    && !changedKeys.contains(key)
+                    && !index.isAssigned(entry)
+                    && releasedByName.containsKey(registration.serverName())) {
+                changed.add(new Candidate(container, key, entry.fingerprint(), entry.baseName(), registration));
+                changedKeys.add(key);
+            }
+        }
+    }
+
+    /**
+     * Groups container ids by base name, sorted by endpoint and then id, for the base names
+     * touched by this scan.
+     */
+    private Map<String, List<String>> buildNameGroups(List<ContainerSummary> containers, Map<String, Candidate> changedByKey, Origins origins) {
+        Map<String, List<String>> nameGroups = new HashMap<>();
+        for (Candidate candidate : changedByKey.values()) {
+            nameGroups.computeIfAbsent(candidate.baseName(), ignored -> new ArrayList<>());
+        }
+        for (ContainerSummary container : containers) {
+            String key = containerKey(container);
+            Candidate candidate = changedByKey.get(key);
+            String baseName = candidate != null ? candidate.baseName() : index.get(key).baseName();
+            List<String> group = nameGroups.get(baseName);
+            if (group != null) {
+                group.add(key);
+            }
+        }
+        Comparator<String> order = Comparator.comparingInt(origins::rank).thenComparing(Comparator.naturalOrder());
+        for (List<String> group : nameGroups.values()) {
+            group.sort(order);
+        }
+        return nameGroups;
+    }
+
+    private void admit(Registration registration) {
+        BackendProber current = prober;
+        if (registration.cold()) {
+            suspending.remove(registration.serverName());
+            if (current != null) {
+                current.forget(registration.serverName());
+            }
+            setRoutable(registration.serverName(), false);
+            return;
+        }
+        if (current == null) {
+            setRoutable(registration.serverName(), true);
+            return;
         }
-        return new RegistrationOutcome(
-                new Registration(serverName, host, port, shortContainerId(container), baseName),
-                RegistrationStatus.REGISTERED);
+        current.track(registration);
     }
 
     private String chooseServerName(
-            Container container,
+            ContainerSummary container,
             String baseName,
-            Map<String, List<Container>> nameGroups,
-            Map<String, Registration> previousByName,
-            Map<String, Registration> previousByContainer,
-            Set<String> seenNames
+            Map<String, List<String>> nameGroups,
+            Map<String, Registration> releasedByName,
+            Registration previous,
+            Predicate<String> claimed
     ) {
         if (duplicateStrategy == DuplicateStrategy.OVERWRITE) {
             return baseName;
         }
 
-        String containerKey = shortContainerId(container);
-        Registration previous = previousByContainer.get(containerKey);
-        if (previous != null && !seenNames.contains(previous.serverName())) {
+        if (previous != null && !claimed.test(previous.serverName())) {
             return previous.serverName();
         }
 
-        List<Container> group = nameGroups.getOrDefault(baseName, List.of());
+        String containerKey = shortContainerId(container);
+        List<String> group = nameGroups.getOrDefault(baseName, List.of());
         int groupSize = group.size();
         String suffix = shortContainerSuffix(container, 6);
-        boolean isPrimary = groupSize > 0 && group.get(0) == container;
+        boolean isPrimary = groupSize > 0 && group.get(0).equals(containerKey(container));
         String candidate = groupSize > 1
                 ? (isPrimary ? baseName : baseName + "-" + suffix)
                 : baseName;
 
-        candidate = ensureUniqueName(candidate, baseName, suffix, previousByName, seenNames, containerKey);
-        return candidate;
+        return names.allocate(candidate, baseName, suffix, releasedByName, containerKey, claimed);
+    }
+
+    private String containerKey(ContainerSummary container) {
+        return container.id() == null ? "unknown" : container.id();
     }
 
-    private String shortContainerId(Container container) {
-        if (container.getId() == null) {
+    private String shortContainerId(ContainerSummary container) {
+        if (container.id() == null) {
             return "unknown";
         }
-        return container.getId().substring(0, Math.min(12, container.getId().length()));
+        return container.id().substring(0, Math.min(12, container.id().length()));
     }
 
-    private String shortContainerSuffix(Container container, int length) {
+    private String shortContainerSuffix(ContainerSummary container, int length) {
         String id = shortContainerId(container);
         return id.substring(0, Math.min(length, id.length()));
     }
 
-    private String ensureUniqueName(
-            String candidate,
-            String baseName,
-            String suffix,
-            Map<String, Registration> previousByName,
-            Set<String> seenNames,
-            String containerKey
-    ) {
-        String current = candidate;
-        if (nameConflicts(current, previousByName, seenNames, containerKey)) {
-            String withSuffix = baseName + "-" + suffix;
-            if (!nameConflicts(withSuffix, previousByName, seenNames, containerKey)) {
-                return withSuffix;
+    /**
+     * The latest published state. Read it once and use that instance for everything that has
+     * to be consistent; the getters below each read the latest state on their own.
+     */
+    public DockerState getState() {
+        return state.get();
+    }
+
+    /**
+     * Registered servers of the latest state. Unmodifiable and not copied.
+     */
+    public List<Registration> getCurrentRegistrations() {
+        return state.get().registrations();
+    }
+
+    public boolean isUnverified(String serverName) {
+        return state.get().isUnverified(serverName);
+    }
+
+    public int getLastMatchedCount() {
+        return state.get().matchedCount();
+    }
+
+    public int getHealthHeldBackCount() {
+        return state.get().healthHeldBackCount();
+    }
+
+    public String getAddressStrategy() {
+        return addresses.strategy().name().toLowerCase();
+    }
+
+    public Optional<BackendProber> getProber() {
+        return Optional.ofNullable(prober);
+    }
+
+    /**
+     * The sharding ring, or empty when every container is served by this proxy.
+     */
+    Optional<ShardRing> getShard() {
+        return Optional.ofNullable(shard);
+    }
+
+    public DockBridgeMetrics getMetrics() {
+        return metrics;
+    }
+
+    public DockBridgeConfig getConfig() {
+        return config;
+    }
+
+    public Instant getLastScan() {
+        return state.get().lastScan();
+    }
+
+    List<DockerEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    DockerEndpoint getEndpoint(String name) {
+        for (DockerEndpoint endpoint : endpoints) {
+            if (endpoint.endpoint().equals(name)) {
+                return endpoint;
             }
-            current = withSuffix;
         }
+        return null;
+    }
 
-        int counter = 1;
-        while (nameConflicts(current, previousByName, seenNames, containerKey)) {
-            current = baseName + "-" + suffix + "-" + counter;
-            counter++;
+    /**
+     * Switches to a reloaded configuration. Settings read per scan or per call apply from the
+     * next one. Endpoints whose address, client or call timeout changed are rebuilt and keep
+     * the last listing of the endpoint they replace, so their servers stay registered; the
+     * name, address, shard and operation helpers are rebuilt if their settings changed. If
+     * anything that decides whether or under which name a container is registered changed,
+     * the next scan plans every container again instead of skipping unchanged ones, and only
+     * servers whose name or address comes out different are re-registered. The caller starts
+     * that scan once the event watchers follow the new endpoints.
+     *
+     * @param changed keys that differ from the running configuration.
+     * @return whether the endpoints were rebuilt, so their event watchers have to be too.
+     */
+    boolean reconfigure(DockBridgeConfig next, Set<String> changed) {
+        List<DockerEndpoint> replaced = new ArrayList<>();
+        boolean rebuildEndpoints = changed.contains("docker.endpoint") || changed.contains("docker.client")
+                || changed.contains("docker.call_timeout_millis");
+        synchronized (reconcileLock) {
+            config = next;
+            if (rebuildEndpoints) {
+                boolean newClients = changed.contains("docker.client") || changed.contains("docker.call_timeout_millis");
+                List<DockerEndpoint> rebuilt = new ArrayList<>();
+                for (String address : next.dockerEndpoints()) {
+                    DockerEndpoint existing = getEndpoint(address);
+                    if (existing != null && !newClients) {
+                        existing.reconfigure(next);
+                        rebuilt.add(existing);
+                        continue;
+                    }
+                    DockerEndpoint fresh = new DockerEndpoint(address, logger, next, metrics, discoveryExecutor);
+                    if (existing != null) {
+                        fresh.carryOver(existing);
+                    }
+                    rebuilt.add(fresh);
+                }
+                for (DockerEndpoint endpoint : endpoints) {
+                    if (!rebuilt.contains(endpoint)) {
+                        replaced.add(endpoint);
+                    }
+                }
+                endpoints = List.copyOf(rebuilt);
+                logger.info("Docker endpoint(s) now {}.", String.join(", ", next.dockerEndpoints()));
+            } else {
+                endpoints.forEach(endpoint -> endpoint.reconfigure(next));
+            }
+            if (changed.contains("docker.autoregister.duplicate_strategy")) {
+                duplicateStrategy = DuplicateStrategy.from(next.duplicateStrategy(), logger);
+            }
+            if (changed.stream().anyMatch(key -> key.startsWith("docker.address.")) || changed.contains("docker.call_timeout_millis")) {
+                addresses = new AddressResolver(logger, next, discoveryExecutor);
+            }
+            if (changed.stream().anyMatch(key -> key.startsWith("filters.sharding."))) {
+                shard = ShardRing.from(next, logger);
+            }
+            if (changed.stream().anyMatch(key -> key.startsWith("docker.operations."))) {
+                operations = new OperationLimiter(next.dockerOperationsMaxConcurrent(), next.dockerOperationsPerSecond());
+            }
+            if (changed.stream().anyMatch(DockerService::affectsRegistration)) {
+                index.invalidateFingerprints();
+            }
         }
-        return current;
+        // Closed outside the lock; a scan still running on one fails and is not retried.
+        replaced.forEach(DockerEndpoint::close);
+        return rebuildEndpoints;
     }
 
-    private boolean nameConflicts(
-            String name,
-            Map<String, Registration> previousByName,
-            Set<String> seenNames,
-            String containerKey
-    ) {
-        if (seenNames.contains(name)) {
-            return true;
+    /**
+     * Whether a setting changes which containers are registered, or under which name, port,
+     * address or weight.
+     */
+    private static boolean affectsRegistration(String key) {
+        return key.startsWith("docker.autoregister.") || key.startsWith("docker.address.") || key.startsWith("docker.health.")
+                || key.startsWith("filters.");
+    }
+
+    public Optional<ScanCoordinator> getCoordinator() {
+        return Optional.ofNullable(coordinator);
+    }
+
+    public boolean isDockerAvailable() {
+        return state.get().isDockerAvailable();
+    }
+
+    /**
+     * Starts or unpauses the container behind a cold server on the endpoint that listed it,
+     * then asks for a scan so the server is registered as running. Blocks for the Docker call.
+     *
+     * @throws IllegalStateException if no endpoint lists the container any more.
+     */
+    void wake(Registration registration) throws Exception {
+        DockerEndpoint endpoint = endpointOf(registration);
+        ContainerSummary container = listedContainer(endpoint, registration);
+        operations.run(false, () -> {
+            endpoint.wake(container.id(), "paused".equals(container.state()));
+            return null;
+        });
+        refreshContainers();
+    }
+
+    /**
+     * Pauses or stops the container behind an idle server. The server leaves the try list
+     * before the call waits for its turn and stays out, marked as suspending, until the scan
+     * after the call registers it as cold. If {@code stillIdle} turns false before Docker is
+     * called, or the call fails, the server goes back into rotation. Blocks until done.
+     *
+     * @return whether the container was suspended.
+     */
+    boolean suspend(Registration registration, boolean stop, BooleanSupplier stillIdle) throws Exception {
+        String serverName = registration.serverName();
+        if (!suspending.add(serverName)) {
+            return false;
         }
-        Registration previous = previousByName.get(name);
-        if (server.getServer(name).isPresent()) {
-            return previous == null || !previous.containerId().equals(containerKey);
+        boolean suspended = false;
+        try {
+            setRoutable(serverName, false);
+            DockerEndpoint endpoint = endpointOf(registration);
+            ContainerSummary container = listedContainer(endpoint, registration);
+            suspended = operations.run(true, () -> {
+                if (!stillIdle.getAsBoolean()) {
+                    return false;
+                }
+                endpoint.suspend(container.id(), stop);
+                return true;
+            });
+        } finally {
+            if (!suspended) {
+                suspending.remove(serverName);
+                readmit(serverName);
+            }
         }
-        return false;
+        if (suspended) {
+            refreshContainers();
+        }
+        return suspended;
     }
 
-    public List<Registration> getCurrentRegistrations() {
-        return List.copyOf(lastRegistrations);
+    /**
+     * Whether an idle server is being paused or stopped and not yet registered as cold.
+     */
+    public boolean isSuspending(String serverName) {
+        return suspending.contains(serverName);
     }
 
-    public int getLastMatchedCount() {
-        return lastMatchedCount;
+    /**
+     * Creates and starts a copy of a template container on the endpoint that listed it, then
+     * asks for a scan, which registers the copy like any other labelled container. Blocks for
+     * the Docker calls.
+     *
+     * @return the short id of the new container.
+     */
+    String scaleOut(Registration template, String containerName, Map<String, String> labels) throws Exception {
+        DockerEndpoint endpoint = endpointOf(template);
+        ContainerSummary container = listedContainer(endpoint, template);
+        String containerId = operations.run(false, () -> endpoint.createReplica(container.id(), containerName, labels));
+        refreshContainers();
+        return containerId.substring(0, Math.min(12, containerId.length()));
     }
 
-    public DockBridgeConfig getConfig() {
-        return config;
+    /**
+     * Stops and removes the container behind a replica. The server leaves the try list before
+     * the call waits for its turn and stays out, marked as retiring, until a scan finds the
+     * container gone. If {@code stillEmpty} turns false before Docker is called, or the call
+     * fails, the server goes back into rotation. Blocks until done.
+     *
+     * @return whether the container was removed.
+     */
+    boolean scaleIn(Registration replica, BooleanSupplier stillEmpty) throws Exception {
+        String serverName = replica.serverName();
+        if (!retiring.add(serverName)) {
+            return false;
+        }
+        boolean removed = false;
+        try {
+            setRoutable(serverName, false);
+            DockerEndpoint endpoint = endpointOf(replica);
+            ContainerSummary container = listedContainer(endpoint, replica);
+            removed = operations.run(true, () -> {
+                if (!stillEmpty.getAsBoolean()) {
+                    return false;
+                }
+                endpoint.removeReplica(container.id());
+                return true;
+            });
+        } finally {
+            if (!removed) {
+                retiring.remove(serverName);
+                readmit(serverName);
+            }
+        }
+        if (removed) {
+            refreshContainers();
+        }
+        return removed;
     }
 
-    public Instant getLastScan() {
-        return lastScan;
+    /**
+     * Whether a replica is being stopped and removed by the autoscaler.
+     */
+    public boolean isRetiring(String serverName) {
+        return retiring.contains(serverName);
     }
 
-    public boolean isDockerAvailable() {
-        return dockerAvailable;
+    private DockerEndpoint endpointOf(Registration registration) {
+        for (DockerEndpoint endpoint : endpoints) {
+            if (listedContainer(endpoint, registration) != null) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("container " + registration.containerId() + " is no longer listed");
     }
 
-    public Optional<String> getDockerUnavailableReason() {
-        return Optional.ofNullable(dockerUnavailableReason);
+    private static ContainerSummary listedContainer(DockerEndpoint endpoint, Registration registration) {
+        for (ContainerSummary container : endpoint.containers()) {
+            if (container.id() != null && container.id().startsWith(registration.containerId())) {
+                return container;
+            }
+        }
+        return null;
     }
 
-    public record Registration(String serverName, String host, int port, String containerId, String baseName) {
+    /**
+     * @param labels Docker labels of the container; empty for snapshots written before labels
+     *               were recorded.
+     * @param cold   whether the container is stopped or paused; the server is registered but
+     *               not routed to until it is woken.
+     */
+    public record Registration(String serverName, String host, int port, String containerId, String baseName, int weight,
+                               Map<String, String> labels, boolean cold) {
+
+        public Registration {
+            labels = labels == null ? Map.of() : labels;
+        }
     }
 
     private enum DuplicateStrategy {
@@ -344,34 +1731,30 @@ public final class DockerService {
         }
     }
 
-    private String resolveServerName(Container container) {
-        Map<String, String> labels = container.getLabels();
-        String labelName = labels.get(config.autoRegisterNameLabel());
+    private String resolveServerName(ContainerSummary container) {
+        String labelName = container.label(config.autoRegisterNameLabel());
         if (labelName != null && !labelName.isBlank()) {
             return labelName.trim();
         }
-        String[] names = container.getNames();
-        if (names != null && names.length > 0) {
-            String raw = names[0];
+        if (!container.names().isEmpty()) {
+            String raw = container.names().get(0);
             return raw.startsWith("/") ? raw.substring(1) : raw;
         }
-        return container.getId().substring(0, 12);
+        return container.id().substring(0, 12);
     }
 
-    private int resolvePort(Container container) {
-        Map<String, String> labels = container.getLabels();
-        String portLabel = labels.get(config.autoRegisterPortLabel());
+    private int resolvePort(ContainerSummary container) {
+        String portLabel = container.label(config.autoRegisterPortLabel());
         if (portLabel != null && !portLabel.isBlank()) {
             try {
                 return Integer.parseInt(portLabel.trim());
             } catch (NumberFormatException ex) {
                 logger.warn("Invalid port label {}={} on container {}. Falling back to exposed ports.",
-                        config.autoRegisterPortLabel(), portLabel, container.getId());
+                        config.autoRegisterPortLabel(), portLabel, container.id());
             }
         }
-        ContainerPort[] ports = container.getPorts();
-        if (ports != null && ports.length > 0) {
-            int privatePort = ports[0].getPrivatePort();
+        if (!container.ports().isEmpty()) {
+            int privatePort = container.ports().get(0).privatePort();
             if (privatePort > 0) {
                 return privatePort;
             }
@@ -379,194 +1762,165 @@ public final class DockerService {
         return 25565;
     }
 
-    private String resolveHost(Container container) {
-        String[] names = container.getNames();
-        if (names != null && names.length > 0) {
-            String raw = names[0];
-            return raw.startsWith("/") ? raw.substring(1) : raw;
+    private int resolveWeight(ContainerSummary container) {
+        String raw = container.label(config.autoRegisterWeightLabel());
+        if (raw == null || raw.isBlank()) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(raw.trim()));
+        } catch (NumberFormatException ex) {
+            logger.warn("Invalid weight label {}={} on container {}. Using weight 1.",
+                    config.autoRegisterWeightLabel(), raw, container.id());
+            return 1;
         }
-        return "localhost";
     }
 
-    private void unregisterServer(String serverName) {
-        Optional<RegisteredServer> existing = server.getServer(serverName);
-        if (existing.isEmpty()) {
-            registeredNames.remove(serverName);
-            return;
+    /**
+     * Host and port a container's server is registered with. A container of a remote
+     * endpoint is reached through the host port it publishes for its server port, on the
+     * address it is bound to or else the endpoint's host; without one it falls back to its
+     * name, which only resolves on that daemon's networks.
+     */
+    private Target resolveTarget(ContainerSummary container, DockerEndpoint endpoint) {
+        int port = resolvePort(container);
+        String remoteHost = endpoint == null ? null : endpoint.remoteHost();
+        if (remoteHost != null) {
+            for (ContainerSummary.Port published : container.ports()) {
+                if (published.privatePort() == port && published.publicPort() > 0 && !"udp".equals(published.type())) {
+                    return new Target(boundHost(published.ip(), remoteHost), published.publicPort(), true);
+                }
+            }
         }
-        server.unregisterServer(existing.get().getServerInfo());
-        registeredNames.remove(serverName);
-        if (config.logUnregistered()) {
-            logger.info("Unregistered server {} (no matching container).", serverName);
+        return new Target(resolveHost(container), port, false);
+    }
+
+    private static String boundHost(String ip, String remoteHost) {
+        if (ip == null || ip.isBlank() || ip.equals("0.0.0.0") || ip.equals("::") || ip.equals("::1") || ip.startsWith("127.")) {
+            return remoteHost;
         }
+        return ip;
     }
 
-    private int unregisterMissing(Set<String> seenNames) {
-        int removed = 0;
-        Set<String> currentNames = new HashSet<>(registeredNames);
-        for (String name : currentNames) {
-            if (!seenNames.contains(name)) {
-                unregisterServer(name);
-                removed++;
-            }
+    private String resolveHost(ContainerSummary container) {
+        String name = "localhost";
+        if (!container.names().isEmpty()) {
+            String raw = container.names().get(0);
+            name = raw.startsWith("/") ? raw.substring(1) : raw;
         }
-        return removed;
+        return addresses.host(container, name);
     }
 
-    private void ensureTryIncludes(String serverName) {
-        var order = server.getConfiguration().getAttemptConnectionOrder();
-        if (order.contains(serverName)) {
+    /**
+     * Adds or removes a server from Velocity's attempt-connection order. Called from the scan
+     * thread and from probe threads, so edits are serialized. Draining, suspending and retiring
+     * servers stay out.
+     */
+    void setRoutable(String serverName, boolean routable) {
+        if (routable && (isDraining(serverName) || suspending.contains(serverName) || retiring.contains(serverName))) {
             return;
         }
-        try {
-            order.add(serverName);
-            if (config.logRegistered() || config.logUpdated()) {
-                logger.info("Added {} to connection order list.", serverName);
+        if (routable) {
+            ensureTryIncludes(serverName);
+        } else {
+            ensureTryExcludes(serverName);
+        }
+    }
+
+    private void ensureTryIncludes(String serverName) {
+        synchronized (tryOrderLock) {
+            var order = server.getConfiguration().getAttemptConnectionOrder();
+            if (order.contains(serverName)) {
+                return;
+            }
+            try {
+                order.add(serverName);
+                if (config.logRegistered() || config.logUpdated()) {
+                    logger.info("Added {} to connection order list.", serverName);
+                }
+            } catch (UnsupportedOperationException ex) {
+                logger.warn("Could not update connection order at runtime. Please ensure '{}' is present in the 'try' list of velocity.toml.", serverName);
             }
-        } catch (UnsupportedOperationException ex) {
-            logger.warn("Could not update connection order at runtime. Please ensure '{}' is present in the 'try' list of velocity.toml.", serverName);
         }
     }
 
-    private DockerClient buildClient(String endpoint) {
-        DefaultDockerClientConfig clientConfig = DefaultDockerClientConfig.createDefaultConfigBuilder()
-                .withDockerHost(endpoint)
-                .build();
-        DockerHttpClient httpClient = new ZerodepDockerHttpClient.Builder()
-                .dockerHost(clientConfig.getDockerHost())
-                .sslConfig(clientConfig.getSSLConfig())
-                .build();
-        return DockerClientImpl.getInstance(clientConfig, httpClient);
+    /**
+     * @return whether the server was in the list and has been removed.
+     */
+    private boolean ensureTryExcludes(String serverName) {
+        synchronized (tryOrderLock) {
+            var order = server.getConfiguration().getAttemptConnectionOrder();
+            try {
+                boolean removed = order.remove(serverName);
+                if (removed && (config.logUpdated() || config.logUnregistered())) {
+                    logger.info("Removed {} from connection order list.", serverName);
+                }
+                return removed;
+            } catch (UnsupportedOperationException ex) {
+                logger.warn("Could not update connection order at runtime; '{}' stays in the 'try' list.", serverName);
+                return false;
+            }
+        }
     }
 
+    /**
+     * Same host and port. An unresolved address does not match a resolved one, so servers
+     * restored unresolved from the snapshot are re-registered once their name resolves.
+     */
     private boolean addressesMatch(InetSocketAddress existing, InetSocketAddress desired) {
         if (existing == null || desired == null) {
             return false;
         }
+        if (existing.isUnresolved() && !desired.isUnresolved()) {
+            return false;
+        }
         return existing.getPort() == desired.getPort()
                 && existing.getHostString().equalsIgnoreCase(desired.getHostString());
     }
 
-    private enum RegistrationStatus {
-        REGISTERED,
-        UPDATED,
-        UNCHANGED
-    }
-
-    private record RegistrationOutcome(Registration registration, RegistrationStatus status) {
-    }
-
-    private record ContainerListResult(List<Container> containers, boolean success) {
-        private static ContainerListResult success(List<Container> containers) {
-            return new ContainerListResult(containers, true);
+    /**
+     * Endpoint each listed container came from, by container key, and that endpoint's
+     * position in {@code docker.endpoint}. Only collected when there is more than one endpoint
+     * or a remote one; otherwise every container ranks the same and is addressed locally.
+     */
+    private Origins origins() {
+        List<DockerEndpoint> current = endpoints;
+        if (current.size() == 1 && current.get(0).remoteHost() == null) {
+            return Origins.NONE;
         }
-
-        private static ContainerListResult failure() {
-            return new ContainerListResult(List.of(), false);
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < current.size(); i++) {
+            for (ContainerSummary container : current.get(i).containers()) {
+                ranks.putIfAbsent(containerKey(container), i);
+            }
         }
+        return new Origins(current, ranks);
     }
 
-    private boolean shouldSkipDockerAccess(Instant now) {
-        if (dockerAvailable) {
-            return false;
-        }
-        Optional<String> localProblem = describeLocalEndpointProblem();
-        if (localProblem.isPresent()) {
-            markDockerUnavailable(localProblem.get());
-            return true;
-        }
-        if (dockerUnavailableReason != null && dockerUnavailableReason.startsWith("socket ")) {
-            return false;
-        }
-        return now.isBefore(nextDockerRetryAt);
-    }
+    private record Origins(List<DockerEndpoint> endpoints, Map<String, Integer> ranks) {
 
-    private boolean ensureDockerReachable(boolean logSuccessfulPing) {
-        Optional<String> localProblem = describeLocalEndpointProblem();
-        if (localProblem.isPresent()) {
-            markDockerUnavailable(localProblem.get());
-            return false;
-        }
-        if (!config.healthEnablePing()) {
-            markDockerAvailable(false);
-            return true;
-        }
-        try {
-            dockerClient.pingCmd().exec();
-            markDockerAvailable(logSuccessfulPing);
-            if (logSuccessfulPing) {
-                logger.info("Docker ping successful for endpoint {}", config.dockerEndpoint());
-            }
-            return true;
-        } catch (Exception e) {
-            markDockerUnavailable("ping failed: " + summarizeException(e));
-            return false;
-        }
-    }
+        static final Origins NONE = new Origins(List.of(), Map.of());
 
-    private Optional<String> describeLocalEndpointProblem() {
-        String endpoint = config.dockerEndpoint();
-        String prefix = "unix://";
-        if (!endpoint.startsWith(prefix)) {
-            return Optional.empty();
-        }
-        String rawPath = endpoint.substring(prefix.length()).trim();
-        if (rawPath.isEmpty()) {
-            return Optional.of("unix endpoint is missing a socket path");
-        }
-        Path socketPath = Path.of(rawPath);
-        if (Files.exists(socketPath)) {
-            return Optional.empty();
+        int rank(String key) {
+            return ranks.getOrDefault(key, Integer.MAX_VALUE);
         }
-        return Optional.of("socket " + socketPath + " does not exist; mount the Docker socket or configure docker.endpoint to a reachable daemon");
-    }
 
-    private void markDockerUnavailable(String reason) {
-        String normalized = normalizeReason(reason);
-        boolean changed = dockerAvailable || !Objects.equals(dockerUnavailableReason, normalized);
-        dockerAvailable = false;
-        if (dockerUnavailableSince == null) {
-            dockerUnavailableSince = Instant.now();
-        }
-        dockerUnavailableReason = normalized;
-        nextDockerRetryAt = Instant.now().plus(retryDelay());
-        if (changed) {
-            String registrationNote = registeredNames.isEmpty()
-                    ? "No Docker-backed servers are currently registered."
-                    : "Keeping " + registeredNames.size() + " previously registered Docker-backed server(s) until the endpoint recovers.";
-            logger.warn("Docker endpoint {} unavailable: {}. {} Retrying in {}s.",
-                    config.dockerEndpoint(),
-                    normalized,
-                    registrationNote,
-                    retryDelay().toSeconds());
+        DockerEndpoint of(String key) {
+            Integer rank = ranks.get(key);
+            return rank == null ? null : endpoints.get(rank);
         }
     }
 
-    private void markDockerAvailable(boolean logSuccessfulPing) {
-        boolean wasUnavailable = !dockerAvailable;
-        if (wasUnavailable) {
-            long downSeconds = dockerUnavailableSince == null
-                    ? 0L
-                    : Math.max(0L, Duration.between(dockerUnavailableSince, Instant.now()).toSeconds());
-            logger.info("Docker endpoint {} reachable again after {}s.",
-                    config.dockerEndpoint(),
-                    downSeconds);
-        } else if (!logSuccessfulPing) {
-            return;
-        }
-        dockerAvailable = true;
-        dockerUnavailableReason = null;
-        dockerUnavailableSince = null;
-        nextDockerRetryAt = Instant.EPOCH;
+    private record Target(String host, int port, boolean published) {
     }
 
-    private Duration retryDelay() {
-        long base = Math.max(config.dockerPollIntervalSeconds(), config.healthPingIntervalSeconds());
-        long multiplier = Math.max(1L, config.healthMaxFailures());
-        return Duration.ofSeconds(Math.max(10L, base * multiplier));
+    /**
+     * A container that needs naming and registration in the scan being planned.
+     */
+    private record Candidate(ContainerSummary container, String key, long fingerprint, String baseName, Registration previous) {
     }
 
-    private String summarizeException(Exception exception) {
+    static String summarizeException(Throwable exception) {
         Throwable current = exception;
         while (current.getCause() != null && current.getCause() != current) {
             current = current.getCause();
@@ -577,8 +1931,4 @@ public final class DockerService {
         }
         return current.getClass().getSimpleName();
     }
-
-    private String normalizeReason(String reason) {
-        return reason == null ? "unknown error" : reason.trim().replaceAll("\\s+", " ");
-    }
 }
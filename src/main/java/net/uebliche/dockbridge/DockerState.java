@@ -0,0 +1,185 @@
+package net.uebliche.dockbridge;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable view of what DockBridge knows after a scan: registrations, scan counters and
+ * timings, and Docker availability per endpoint. {@link DockerService} publishes a new
+ * instance through an atomic reference whenever any of it changes, so readers on any thread
+ * see one consistent state without locking or copying. Unchanged parts are shared between
+ * consecutive instances.
+ */
+public final class DockerState {
+
+    static final DockerState EMPTY = new DockerState(0L, ServerIndex.EMPTY, Set.of(), 0, 0, 0,
+            Instant.EPOCH, Changes.NONE, List.of());
+
+    private final long version;
+    private final ServerIndex index;
+    private final Set<String> unverifiedNames;
+    private final int matchedCount;
+    private final int healthHeldBackCount;
+    private final int otherProxiesCount;
+    private final Instant lastScan;
+    private final Changes lastChanges;
+    private final List<EndpointStatus> endpoints;
+
+    private DockerState(
+            long version,
+            ServerIndex index,
+            Set<String> unverifiedNames,
+            int matchedCount,
+            int healthHeldBackCount,
+            int otherProxiesCount,
+            Instant lastScan,
+            Changes lastChanges,
+            List<EndpointStatus> endpoints
+    ) {
+        this.version = version;
+        this.index = index;
+        this.unverifiedNames = unverifiedNames;
+        this.matchedCount = matchedCount;
+        this.healthHeldBackCount = healthHeldBackCount;
+        this.otherProxiesCount = otherProxiesCount;
+        this.lastScan = lastScan;
+        this.lastChanges = lastChanges;
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Increases with every published state.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Registered Docker-backed servers, in no particular order. Unmodifiable.
+     */
+    public List<DockerService.Registration> registrations() {
+        return index.registrations();
+    }
+
+    public Optional<DockerService.Registration> registration(String serverName) {
+        return Optional.ofNullable(index.registration(serverName));
+    }
+
+    /**
+     * Lookup tables over the registrations, shared by every reader of this state.
+     */
+    ServerIndex index() {
+        return index;
+    }
+
+    /**
+     * Whether the server was restored from the snapshot and not yet confirmed by a scan.
+     */
+    public boolean isUnverified(String serverName) {
+        return unverifiedNames.contains(serverName);
+    }
+
+    boolean hasUnverifiedNames() {
+        return !unverifiedNames.isEmpty();
+    }
+
+    /**
+     * Containers matched by the last reconciled listing.
+     */
+    public int matchedCount() {
+        return matchedCount;
+    }
+
+    /**
+     * Containers the last reconcile held back because their Docker health check has not passed.
+     */
+    public int healthHeldBackCount() {
+        return healthHeldBackCount;
+    }
+
+    /**
+     * Containers the last reconcile left to other proxies: another proxy group's, or another
+     * replica's shard.
+     */
+    public int otherProxiesCount() {
+        return otherProxiesCount;
+    }
+
+    /**
+     * Start of the last successful listing, {@link Instant#EPOCH} before the first one.
+     */
+    public Instant lastScan() {
+        return lastScan;
+    }
+
+    /**
+     * What the last reconcile that changed anything registered, updated and unregistered.
+     */
+    public Changes lastChanges() {
+        return lastChanges;
+    }
+
+    public List<EndpointStatus> endpoints() {
+        return endpoints;
+    }
+
+    public boolean isDockerAvailable() {
+        for (EndpointStatus endpoint : endpoints) {
+            if (!endpoint.available()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    DockerState withRegistrations(List<DockerService.Registration> registrations, Set<String> unverifiedNames) {
+        return new DockerState(version + 1, new ServerIndex(registrations),
+                Set.copyOf(unverifiedNames), matchedCount, healthHeldBackCount, otherProxiesCount, lastScan, lastChanges, endpoints);
+    }
+
+    /**
+     * The state after one reconcile, built in a single step so listeners see a scan's results
+     * together. Null arguments keep the current value, and so does a scan time that is not
+     * newer than the current one.
+     */
+    DockerState afterScan(Instant scan, int matchedCount, int healthHeldBackCount, int otherProxiesCount,
+                          List<DockerService.Registration> registrations, Set<String> unverifiedNames, Changes changes,
+                          List<EndpointStatus> endpoints) {
+        boolean newerScan = scan != null && scan.isAfter(lastScan);
+        boolean newEndpoints = endpoints != null && !endpoints.equals(this.endpoints);
+        if (!newerScan && !newEndpoints && registrations == null && unverifiedNames == null && changes == null
+                && matchedCount == this.matchedCount && healthHeldBackCount == this.healthHeldBackCount
+                && otherProxiesCount == this.otherProxiesCount) {
+            return this;
+        }
+        return new DockerState(version + 1,
+                registrations == null ? index : new ServerIndex(registrations),
+                unverifiedNames == null ? this.unverifiedNames : Set.copyOf(unverifiedNames),
+                matchedCount, healthHeldBackCount, otherProxiesCount,
+                newerScan ? scan : lastScan,
+                changes == null ? lastChanges : changes,
+                newEndpoints ? List.copyOf(endpoints) : this.endpoints);
+    }
+
+    DockerState withEndpoints(List<EndpointStatus> endpoints) {
+        if (endpoints.equals(this.endpoints)) {
+            return this;
+        }
+        return new DockerState(version + 1, index, unverifiedNames,
+                matchedCount, healthHeldBackCount, otherProxiesCount, lastScan, lastChanges, List.copyOf(endpoints));
+    }
+
+    /**
+     * @param unavailableReason null while the endpoint is available.
+     * @param containers        containers from its last successful listing.
+     */
+    public record EndpointStatus(String endpoint, boolean available, String unavailableReason, int containers, Instant lastScan) {
+    }
+
+    public record Changes(int registered, int updated, int unregistered, Instant at) {
+
+        static final Changes NONE = new Changes(0, 0, 0, Instant.EPOCH);
+    }
+}
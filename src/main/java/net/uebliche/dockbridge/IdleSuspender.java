@@ -0,0 +1,191 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses or stops containers whose server has had no players for as many minutes as their
+ * idle label asks, so idle backends stop burning CPU on empty tick loops. The container stays
+ * registered as a cold server and {@link ColdStarter} wakes it when a player connects. The
+ * idle action label picks {@code pause} (fast to resume, keeps memory) or {@code stop}
+ * (frees memory, restarts the server); {@code idle.action} is the default.
+ * <p>
+ * Only players on this proxy are counted, so a container several proxies register should be
+ * limited to one of them with a proxy group or sharding. Suspensions are background calls in
+ * the {@link OperationLimiter}.
+ */
+public final class IdleSuspender {
+
+    private final ProxyServer server;
+    private final Object plugin;
+    private final Logger logger;
+    private volatile DockBridgeConfig config;
+    private final DockerService dockerService;
+    private final ColdStarter coldStarter;
+    private volatile boolean stopByDefault;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Long> emptySince = new ConcurrentHashMap<>();
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<String> warned = ConcurrentHashMap.newKeySet();
+    private ScheduledTask task;
+
+    public IdleSuspender(ProxyServer server, Object plugin, Logger logger, DockBridgeConfig config, DockerService dockerService,
+                         ColdStarter coldStarter) {
+        this.server = server;
+        this.plugin = plugin;
+        this.logger = logger;
+        this.config = config;
+        this.dockerService = dockerService;
+        this.coldStarter = coldStarter;
+        this.stopByDefault = parseAction(config);
+    }
+
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        int interval = Math.max(1, config.idleCheckIntervalSeconds());
+        task = server.getScheduler()
+                .buildTask(plugin, this::check)
+                .delay(Duration.ofSeconds(interval))
+                .repeat(Duration.ofSeconds(interval))
+                .schedule();
+    }
+
+    /**
+     * Switches to a reloaded configuration, rescheduling the check if its interval changed.
+     */
+    public synchronized void reconfigure(DockBridgeConfig next) {
+        DockBridgeConfig previous = config;
+        config = next;
+        stopByDefault = parseAction(next);
+        if (task != null && previous.idleCheckIntervalSeconds() != next.idleCheckIntervalSeconds()) {
+            task.cancel();
+            task = null;
+            start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        executor.shutdownNow();
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        Set<String> tracked = new HashSet<>();
+        for (DockerService.Registration registration : dockerService.getState().registrations()) {
+            String name = registration.serverName();
+            if (registration.cold() || dockerService.isUnverified(name)) {
+                continue;
+            }
+            int minutes = idleMinutes(registration);
+            if (minutes <= 0) {
+                continue;
+            }
+            tracked.add(name);
+            if (!isIdle(name)) {
+                emptySince.remove(name);
+                continue;
+            }
+            long since = emptySince.computeIfAbsent(name, ignored -> now);
+            if (now - since >= TimeUnit.MINUTES.toNanos(minutes) && inFlight.add(name)) {
+                submit(registration, minutes);
+            }
+        }
+        emptySince.keySet().retainAll(tracked);
+    }
+
+    private void submit(DockerService.Registration registration, int minutes) {
+        String name = registration.serverName();
+        boolean stop = stopsWhenIdle(registration);
+        try {
+            executor.execute(() -> {
+                try {
+                    if (dockerService.suspend(registration, stop, () -> isIdle(name))) {
+                        logger.info("Server {} had no players for {} minute(s); {} container {}.",
+                                name, minutes, stop ? "stopped" : "paused", registration.containerId());
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ex) {
+                    logger.warn("Could not {} idle server {}: {}", stop ? "stop" : "pause", name, DockerService.summarizeException(ex));
+                } finally {
+                    emptySince.remove(name);
+                    inFlight.remove(name);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(name);
+        }
+    }
+
+    /**
+     * No players on the server, none waiting for it to wake, and it is not being drained or
+     * removed by the autoscaler.
+     */
+    private boolean isIdle(String serverName) {
+        int players = server.getServer(serverName)
+                .map(registered -> registered.getPlayersConnected().size())
+                .orElse(0);
+        return players == 0 && !coldStarter.isWaking(serverName) && !dockerService.isDraining(serverName)
+                && !dockerService.isRetiring(serverName);
+    }
+
+    private int idleMinutes(DockerService.Registration registration) {
+        String raw = registration.labels().get(config.autoRegisterIdleMinutesLabel());
+        if (raw == null || raw.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (NumberFormatException ex) {
+            if (warned.add(registration.containerId() + " " + raw)) {
+                logger.warn("Invalid idle label {}={} on container {}. Not suspending it.",
+                        config.autoRegisterIdleMinutesLabel(), raw, registration.containerId());
+            }
+            return 0;
+        }
+    }
+
+    private boolean stopsWhenIdle(DockerService.Registration registration) {
+        String raw = registration.labels().get(config.autoRegisterIdleActionLabel());
+        if (raw == null || raw.isBlank()) {
+            return stopByDefault;
+        }
+        return switch (raw.trim().toLowerCase(Locale.ROOT)) {
+            case "stop" -> true;
+            case "pause" -> false;
+            default -> {
+                if (warned.add(registration.containerId() + " " + raw)) {
+                    logger.warn("Unknown idle action {}={} on container {}. Using {}.",
+                            config.autoRegisterIdleActionLabel(), raw, registration.containerId(), stopByDefault ? "stop" : "pause");
+                }
+                yield stopByDefault;
+            }
+        };
+    }
+
+    private boolean parseAction(DockBridgeConfig config) {
+        String action = config.idleAction().toLowerCase(Locale.ROOT);
+        if (!action.equals("pause") && !action.equals("stop")) {
+            logger.warn("Unknown idle.action '{}', defaulting to 'pause'.", config.idleAction());
+        }
+        return action.equals("stop");
+    }
+}
@@ -0,0 +1,152 @@
+package net.uebliche.dockbridge;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Time-bound leadership over a file in a directory the proxies share. The file holds the
+ * holder's id, a term that grows with every change of leader (including a restart of the same
+ * proxy), and the wall-clock time the lease expires. It is only read and rewritten under an
+ * exclusive file lock held for the duration of one {@link #renew()}, so the proxies must
+ * share a local filesystem (a volume on one host) and a clock. A proxy that stops renewing
+ * loses the lease once it expires; one shutting down cleanly gives it up at once.
+ */
+final class LeaderLease {
+
+    private static final String FILE_NAME = "leader.lease";
+
+    private final Path file;
+    private final String self;
+    private final long leaseMillis;
+    private final Logger logger;
+    private volatile String holder = "";
+    private volatile long term;
+    private volatile long expiresAt;
+
+    LeaderLease(Path directory, String self, long leaseMillis, Logger logger) {
+        this.file = directory.resolve(FILE_NAME);
+        this.self = self;
+        this.leaseMillis = leaseMillis;
+        this.logger = logger;
+    }
+
+    /**
+     * Renews the lease if this proxy holds it, or takes it over if it is free or expired.
+     * Returns whether this proxy holds the lease afterwards. If another proxy is updating the
+     * file right now, nothing changes and the last known answer is returned.
+     */
+    boolean renew() {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return isHeld();
+            }
+            try {
+                Record current = read(channel);
+                long now = System.currentTimeMillis();
+                if (current.holder().equals(self) || current.expiresAt() <= now) {
+                    // Only a renewal by the process that took the term keeps it. A proxy
+                    // restarted with the same id starts its listing sequence over, so it needs a
+                    // new term for followers to accept its listings.
+                    boolean renewing = holder.equals(self) && term == current.term() && current.expiresAt() > now;
+                    long nextTerm = renewing ? current.term() : current.term() + 1;
+                    write(channel, new Record(self, nextTerm, now + leaseMillis));
+                    remember(self, nextTerm, now + leaseMillis);
+                } else {
+                    remember(current.holder(), current.term(), current.expiresAt());
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not renew the leader lease {}: {}", file, ex.getMessage());
+        }
+        return isHeld();
+    }
+
+    /**
+     * Expires the lease right away if this proxy holds it, so another one can take over
+     * without waiting.
+     */
+    void release() {
+        if (!isHeld()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                Record current = read(channel);
+                if (current.holder().equals(self) && current.term() == term) {
+                    write(channel, new Record(self, term, 0L));
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not release the leader lease {}: {}", file, ex.getMessage());
+        }
+        expiresAt = 0L;
+    }
+
+    /**
+     * Whether this proxy held the lease at its last renewal and it has not expired since.
+     */
+    boolean isHeld() {
+        return holder.equals(self) && System.currentTimeMillis() < expiresAt;
+    }
+
+    String self() {
+        return self;
+    }
+
+    /**
+     * Holder seen at the last renewal; blank before the first one.
+     */
+    String holder() {
+        return holder;
+    }
+
+    long term() {
+        return term;
+    }
+
+    private void remember(String holder, long term, long expiresAt) {
+        this.holder = holder;
+        this.term = term;
+        this.expiresAt = expiresAt;
+    }
+
+    private static Record read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(4096L, channel.size()));
+        channel.read(buffer, 0L);
+        String[] parts = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim().split(" ");
+        if (parts.length != 3) {
+            return Record.NONE;
+        }
+        try {
+            return new Record(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException ex) {
+            return Record.NONE;
+        }
+    }
+
+    private static void write(FileChannel channel, Record record) throws IOException {
+        byte[] bytes = (record.holder() + " " + record.term() + " " + record.expiresAt() + "\n").getBytes(StandardCharsets.UTF_8);
+        channel.truncate(0L);
+        channel.write(ByteBuffer.wrap(bytes), 0L);
+        channel.force(false);
+    }
+
+    private record Record(String holder, long term, long expiresAt) {
+
+        static final Record NONE = new Record("", 0L, 0L);
+    }
+}
@@ -0,0 +1,487 @@
+package net.uebliche.dockbridge;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Minimal Docker Engine API client for scans: {@code GET /_ping} and
+ * {@code GET /containers/json} (for all labelled containers or a few by id), plus the calls
+ * that start, unpause, pause, stop, create and remove containers, over HTTP/1.1 on a JDK
+ * {@link SocketChannel}. GETs and DELETEs share one keep-alive connection; the POSTs that
+ * start, stop or create each open a fresh one. Speaks to {@code unix://} sockets through
+ * {@link UnixDomainSocketAddress} and to plain {@code tcp://} endpoints; TLS endpoints stay
+ * on docker-java. Response bodies land in a reused buffer and are read by
+ * {@link ContainerListParser}, so a scan only allocates the fields DockBridge keeps.
+ * <p>
+ * The channel is interruptible: cancelling a call closes the connection, and the next call
+ * reconnects.
+ */
+final class LeanDockerClient implements DiscoveryClient {
+
+    private static final int MAX_BODY_BYTES = 64 * 1024 * 1024;
+    /**
+     * The parts of a template's configuration a copy takes over, the same ones
+     * DockerJavaDiscoveryClient sets.
+     */
+    private static final List<String> TEMPLATE_CONFIG_FIELDS = List.of("Env", "Cmd", "Entrypoint", "ExposedPorts", "WorkingDir",
+            "User", "Tty", "OpenStdin", "Healthcheck");
+
+    private final String endpoint;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ContainerListParser parser = new ContainerListParser();
+    private final ByteBuffer in = ByteBuffer.allocate(16 * 1024);
+    private byte[] body = new byte[64 * 1024];
+    private int bodyLength;
+    private SocketChannel channel;
+    private String listPath;
+    private String listFilter;
+    private boolean listAll;
+
+    LeanDockerClient(String endpoint) {
+        this.endpoint = endpoint;
+        in.flip();
+    }
+
+    /**
+     * Whether the endpoint is a scheme this client can talk to.
+     */
+    static boolean supports(String endpoint) {
+        return endpoint.startsWith("unix://") || endpoint.startsWith("tcp://");
+    }
+
+    @Override
+    public void ping() throws IOException {
+        lock.lock();
+        try {
+            int status = exchange("GET", "/_ping", null);
+            if (status != 200) {
+                throw httpError(status);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(String labelKey, String labelValue, boolean all) throws IOException {
+        lock.lock();
+        try {
+            String filter = labelKey + "=" + labelValue;
+            if (!filter.equals(listFilter) || all != listAll) {
+                String json = "{\"label\":[\"" + jsonEscape(filter) + "\"]}";
+                listPath = "/containers/json?" + (all ? "all=1&" : "") + "filters=" + URLEncoder.encode(json, StandardCharsets.UTF_8);
+                listFilter = filter;
+                listAll = all;
+            }
+            return list(listPath);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<ContainerSummary> listContainers(String labelKey, String labelValue, boolean all, Collection<String> ids) throws IOException {
+        StringBuilder json = new StringBuilder("{\"label\":[\"").append(jsonEscape(labelKey + "=" + labelValue)).append("\"],\"id\":[");
+        boolean first = true;
+        for (String id : ids) {
+            json.append(first ? "\"" : ",\"").append(jsonEscape(id)).append('"');
+            first = false;
+        }
+        json.append("]}");
+        lock.lock();
+        try {
+            return list("/containers/json?" + (all ? "all=1&" : "") + "filters=" + URLEncoder.encode(json.toString(), StandardCharsets.UTF_8));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<ContainerSummary> list(String path) throws IOException {
+        int status = exchange("GET", path, null);
+        if (status != 200) {
+            throw httpError(status);
+        }
+        return parser.parse(body, bodyLength);
+    }
+
+    @Override
+    public void startContainer(String containerId) throws IOException {
+        post("/containers/" + URLEncoder.encode(containerId, StandardCharsets.UTF_8) + "/start");
+    }
+
+    @Override
+    public void unpauseContainer(String containerId) throws IOException {
+        post("/containers/" + URLEncoder.encode(containerId, StandardCharsets.UTF_8) + "/unpause");
+    }
+
+    @Override
+    public void pauseContainer(String containerId) throws IOException {
+        post("/containers/" + URLEncoder.encode(containerId, StandardCharsets.UTF_8) + "/pause");
+    }
+
+    @Override
+    public void stopContainer(String containerId, int timeoutSeconds) throws IOException {
+        post("/containers/" + URLEncoder.encode(containerId, StandardCharsets.UTF_8) + "/stop?t=" + Math.max(0, timeoutSeconds));
+    }
+
+    @Override
+    public String createFromTemplate(String templateId, String name, Map<String, String> labels, boolean allowMounts)
+            throws IOException {
+        lock.lock();
+        try {
+            int status = exchange("GET", "/containers/" + URLEncoder.encode(templateId, StandardCharsets.UTF_8) + "/json", null);
+            if (status != 200) {
+                throw httpError(status);
+            }
+            JsonObject template = readJson();
+            if (!allowMounts && mounts(template)) {
+                throw new IOException(DiscoveryClient.mountsRefused(templateId));
+            }
+            JsonObject request = createRequest(template, labels);
+            status = exchange("POST", "/containers/create?name=" + URLEncoder.encode(name, StandardCharsets.UTF_8),
+                    request.toString().getBytes(StandardCharsets.UTF_8));
+            if (status != 201) {
+                throw httpError(status);
+            }
+            JsonObject created = readJson();
+            if (!created.has("Id")) {
+                throw new IOException("create response has no container id");
+            }
+            return created.get("Id").getAsString();
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException ex) {
+            throw new IOException("unexpected response: " + ex.getMessage(), ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeContainer(String containerId) throws IOException {
+        lock.lock();
+        try {
+            int status = exchange("DELETE", "/containers/" + URLEncoder.encode(containerId, StandardCharsets.UTF_8) + "?v=1", null);
+            if (status != 204 && status != 404) {
+                throw httpError(status);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The create request for a copy of an inspected container: the template's image id, the
+     * {@link #TEMPLATE_CONFIG_FIELDS} of its configuration, the given labels, and its host
+     * configuration without published ports.
+     */
+    private static JsonObject createRequest(JsonObject template, Map<String, String> labels) {
+        JsonObject request = new JsonObject();
+        JsonObject config = object(template, "Config");
+        for (String field : TEMPLATE_CONFIG_FIELDS) {
+            if (config.has(field) && !config.get(field).isJsonNull()) {
+                request.add(field, config.get(field).deepCopy());
+            }
+        }
+        if (template.has("Image")) {
+            request.add("Image", template.get("Image"));
+        }
+        JsonObject labelObject = new JsonObject();
+        labels.forEach(labelObject::addProperty);
+        request.add("Labels", labelObject);
+        JsonObject hostConfig = object(template, "HostConfig").deepCopy();
+        hostConfig.remove("PortBindings");
+        request.add("HostConfig", hostConfig);
+        return request;
+    }
+
+    private static boolean mounts(JsonObject template) {
+        JsonObject hostConfig = object(template, "HostConfig");
+        for (String field : List.of("Binds", "Mounts", "VolumesFrom")) {
+            if (hostConfig.has(field) && hostConfig.get(field).isJsonArray() && !hostConfig.getAsJsonArray(field).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JsonObject object(JsonObject parent, String field) {
+        return parent.has(field) && parent.get(field).isJsonObject() ? parent.getAsJsonObject(field) : new JsonObject();
+    }
+
+    private JsonObject readJson() {
+        return JsonParser.parseString(new String(body, 0, bodyLength, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    /**
+     * Sends a body-less POST; 304 means the container was already in the requested state.
+     */
+    private void post(String path) throws IOException {
+        lock.lock();
+        try {
+            int status = exchange("POST", path, null);
+            if (status != 204 && status != 304) {
+                throw httpError(status);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends one request and reads the full response body. A GET or DELETE that fails on a
+     * reused connection is retried once on a fresh one, since the daemon may have closed an
+     * idle keep-alive. Other requests are never resent, as the daemon may have carried out a
+     * create or start whose response was lost; they get a fresh connection instead.
+     */
+    private int exchange(String method, String path, byte[] payload) throws IOException {
+        if (!"GET".equals(method) && !"DELETE".equals(method)) {
+            closeChannel();
+        }
+        boolean reused = channel != null && channel.isOpen();
+        try {
+            return exchangeOnce(method, path, payload);
+        } catch (ClosedByInterruptException ex) {
+            closeChannel();
+            throw ex;
+        } catch (IOException ex) {
+            closeChannel();
+            if (!reused || Thread.currentThread().isInterrupted()) {
+                throw ex;
+            }
+            return exchangeOnce(method, path, payload);
+        }
+    }
+
+    private int exchangeOnce(String method, String path, byte[] payload) throws IOException {
+        SocketChannel current = connect();
+        String request = method + " " + path + " HTTP/1.1\r\n"
+                + "Host: docker\r\n"
+                + "User-Agent: DockBridge\r\n"
+                + "Accept: application/json\r\n"
+                + (payload != null ? "Content-Type: application/json\r\nContent-Length: " + payload.length + "\r\n"
+                        : "GET".equals(method) ? "" : "Content-Length: 0\r\n")
+                + "\r\n";
+        ByteBuffer out = ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII));
+        while (out.hasRemaining()) {
+            current.write(out);
+        }
+        if (payload != null) {
+            ByteBuffer content = ByteBuffer.wrap(payload);
+            while (content.hasRemaining()) {
+                current.write(content);
+            }
+        }
+
+        String statusLine = readLine();
+        int status = parseStatus(statusLine);
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean close = statusLine.startsWith("HTTP/1.0");
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            switch (name) {
+                case "content-length" -> contentLength = Long.parseLong(value);
+                case "transfer-encoding" -> chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                case "connection" -> close = value.equalsIgnoreCase("close");
+                default -> {
+                }
+            }
+        }
+
+        bodyLength = 0;
+        if (status == 204 || status == 304) {
+            // No body by definition, whatever the headers say.
+        } else if (chunked) {
+            readChunkedBody();
+        } else if (contentLength >= 0) {
+            readBody(contentLength);
+        } else {
+            readUntilEof();
+            close = true;
+        }
+        if (close) {
+            closeChannel();
+        }
+        return status;
+    }
+
+    private SocketChannel connect() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            return channel;
+        }
+        in.clear().flip();
+        SocketAddress address = address();
+        SocketChannel opened = SocketChannel.open(address);
+        if (address instanceof InetSocketAddress) {
+            opened.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        channel = opened;
+        return opened;
+    }
+
+    private SocketAddress address() throws IOException {
+        if (endpoint.startsWith("unix://")) {
+            return UnixDomainSocketAddress.of(endpoint.substring("unix://".length()));
+        }
+        URI uri = URI.create(endpoint);
+        if (uri.getHost() == null) {
+            throw new IOException("endpoint " + endpoint + " has no host");
+        }
+        return new InetSocketAddress(uri.getHost(), uri.getPort() < 0 ? 2375 : uri.getPort());
+    }
+
+    private void readChunkedBody() throws IOException {
+        while (true) {
+            String sizeLine = readLine();
+            int extension = sizeLine.indexOf(';');
+            String hex = (extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim();
+            long size = Long.parseLong(hex, 16);
+            if (size == 0) {
+                while (!readLine().isEmpty()) {
+                    // Trailers carry nothing DockBridge reads.
+                }
+                return;
+            }
+            readBody(size);
+            readLine();
+        }
+    }
+
+    private void readBody(long length) throws IOException {
+        ensureBodyCapacity(bodyLength + length);
+        long remaining = length;
+        while (remaining > 0) {
+            if (!in.hasRemaining() && !fill()) {
+                throw new EOFException("connection closed mid-body");
+            }
+            int n = (int) Math.min(remaining, in.remaining());
+            in.get(body, bodyLength, n);
+            bodyLength += n;
+            remaining -= n;
+        }
+    }
+
+    private void readUntilEof() throws IOException {
+        while (in.hasRemaining() || fill()) {
+            ensureBodyCapacity(bodyLength + in.remaining());
+            int n = in.remaining();
+            in.get(body, bodyLength, n);
+            bodyLength += n;
+        }
+    }
+
+    private void ensureBodyCapacity(long needed) throws IOException {
+        if (needed > MAX_BODY_BYTES) {
+            throw new IOException("response larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        if (needed > body.length) {
+            int size = body.length;
+            while (size < needed) {
+                size *= 2;
+            }
+            byte[] grown = new byte[Math.min(size, MAX_BODY_BYTES)];
+            System.arraycopy(body, 0, grown, 0, bodyLength);
+            body = grown;
+        }
+    }
+
+    /**
+     * Reads one CRLF-terminated ASCII line from the connection, without the terminator.
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        while (true) {
+            if (!in.hasRemaining() && !fill()) {
+                throw new EOFException("connection closed while reading response head");
+            }
+            byte b = in.get();
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) (b & 0xff));
+            if (line.length() > 8192) {
+                throw new IOException("response header line too long");
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        in.compact();
+        try {
+            return channel.read(in) > 0;
+        } finally {
+            in.flip();
+        }
+    }
+
+    private static int parseStatus(String statusLine) throws IOException {
+        int first = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || first < 0 || statusLine.length() < first + 4) {
+            throw new IOException("unexpected response: " + statusLine);
+        }
+        try {
+            return Integer.parseInt(statusLine.substring(first + 1, first + 4));
+        } catch (NumberFormatException ex) {
+            throw new IOException("unexpected response: " + statusLine);
+        }
+    }
+
+    private IOException httpError(int status) {
+        String message = new String(body, 0, Math.min(bodyLength, 512), StandardCharsets.UTF_8).trim();
+        return new IOException("HTTP " + status + (message.isEmpty() ? "" : ": " + message));
+    }
+
+    private void closeChannel() {
+        SocketChannel current = channel;
+        channel = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // Already broken; a new connection is opened on the next call.
+            }
+        }
+    }
+
+    private static String jsonEscape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
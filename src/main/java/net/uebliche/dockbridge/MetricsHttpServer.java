@@ -0,0 +1,73 @@
+package net.uebliche.dockbridge;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves {@link DockBridgeMetrics} on {@code /metrics} with the JDK's built-in HTTP server.
+ */
+public final class MetricsHttpServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Logger logger;
+    private final DockBridgeMetrics metrics;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    public MetricsHttpServer(Logger logger, DockBridgeMetrics metrics) {
+        this.logger = logger;
+        this.metrics = metrics;
+    }
+
+    public void start(String bindAddress, int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        } catch (IOException ex) {
+            logger.warn("Could not start metrics endpoint on {}:{}: {}", bindAddress, port, ex.getMessage());
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/metrics", this::handle);
+        httpServer.start();
+        logger.info("Serving Prometheus metrics on http://{}:{}/metrics", bindAddress, port);
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdownNow();
+            httpServer = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(method)) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package net.uebliche.dockbridge;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal Server List Ping: sends a handshake with next state "status" plus a status
+ * request and waits for the status response packet. Blocking by design; callers run it on
+ * virtual threads.
+ */
+final class MinecraftStatusPing {
+
+    private static final int UNKNOWN_PROTOCOL_VERSION = -1;
+    private static final int MAX_RESPONSE_BYTES = 1 << 20;
+
+    private MinecraftStatusPing() {
+    }
+
+    /**
+     * @return round trip in microseconds from connect until the status response arrived.
+     * @throws IOException when the backend does not answer with a valid status response.
+     */
+    static long ping(String host, int port, int timeoutMillis) throws IOException {
+        long started = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeoutMillis);
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+
+            OutputStream output = socket.getOutputStream();
+            output.write(handshake(host, port));
+            output.write(new byte[]{0x01, 0x00});
+            output.flush();
+
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            int length = readVarInt(input);
+            if (length <= 0 || length > MAX_RESPONSE_BYTES) {
+                throw new IOException("invalid status packet length " + length);
+            }
+            int packetId = readVarInt(input);
+            if (packetId != 0x00) {
+                throw new IOException("unexpected packet id " + packetId);
+            }
+            int jsonLength = readVarInt(input);
+            if (jsonLength <= 0 || jsonLength > MAX_RESPONSE_BYTES) {
+                throw new IOException("invalid status payload length " + jsonLength);
+            }
+            input.skipNBytes(jsonLength);
+            return (System.nanoTime() - started) / 1_000L;
+        }
+    }
+
+    private static byte[] handshake(String host, int port) {
+        byte[] hostBytes = host.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(16 + hostBytes.length);
+        writeVarInt(body, 0x00);
+        writeVarInt(body, UNKNOWN_PROTOCOL_VERSION);
+        writeVarInt(body, hostBytes.length);
+        body.writeBytes(hostBytes);
+        body.write((port >>> 8) & 0xFF);
+        body.write(port & 0xFF);
+        writeVarInt(body, 1);
+
+        ByteArrayOutputStream packet = new ByteArrayOutputStream(body.size() + 5);
+        writeVarInt(packet, body.size());
+        packet.writeBytes(body.toByteArray());
+        return packet.toByteArray();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int position = 0; position < 35; position += 7) {
+            int read = in.read();
+            if (read < 0) {
+                throw new EOFException("connection closed before status response");
+            }
+            value |= (read & 0x7F) << position;
+            if ((read & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too long");
+    }
+}
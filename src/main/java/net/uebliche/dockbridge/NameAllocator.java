@@ -0,0 +1,118 @@
+package net.uebliche.dockbridge;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Resolves collision-free server names for the {@code suffix} duplicate strategy.
+ * <p>
+ * Candidates follow the historic order: the requested name, then {@code base-suffix}, then
+ * {@code base-suffix-1}, {@code base-suffix-2}, ... A per-stem bit set of counters that are
+ * currently claimed lets the counter probe jump straight to the lowest free slot instead of
+ * testing every taken one, so replica groups of any size allocate in amortized O(1). A name's
+ * slot is read back from its registration when it is claimed or released, so nothing is kept
+ * per name and allocating has no side effects.
+ */
+final class NameAllocator {
+
+    private final Predicate<String> registeredInProxy;
+    private final Map<String, BitSet> countersByStem = new HashMap<>();
+
+    /**
+     * @param registeredInProxy whether Velocity already has a server with that name.
+     */
+    NameAllocator(Predicate<String> registeredInProxy) {
+        this.registeredInProxy = registeredInProxy;
+    }
+
+    /**
+     * @param released     names given up during this scan, mapped to their former registration;
+     *                     a container may take back a name it owned itself.
+     * @param containerKey short id of the container asking for a name.
+     * @param claimed      whether a name is held by a container once the scan being planned
+     *                     is applied.
+     */
+    String allocate(
+            String candidate,
+            String baseName,
+            String suffix,
+            Map<String, DockerService.Registration> released,
+            String containerKey,
+            Predicate<String> claimed
+    ) {
+        if (!conflicts(candidate, released, containerKey, claimed)) {
+            return candidate;
+        }
+        String stem = baseName + "-" + suffix;
+        if (!candidate.equals(stem) && !conflicts(stem, released, containerKey, claimed)) {
+            return stem;
+        }
+        BitSet taken = countersByStem.get(stem);
+        int counter = taken == null ? 1 : taken.nextClearBit(1);
+        while (true) {
+            String name = stem + "-" + counter;
+            if (!conflicts(name, released, containerKey, claimed)) {
+                return name;
+            }
+            counter = taken == null ? counter + 1 : taken.nextClearBit(counter + 1);
+        }
+    }
+
+    void onClaimed(DockerService.Registration registration) {
+        Slot slot = slotOf(registration);
+        if (slot != null) {
+            countersByStem.computeIfAbsent(slot.stem(), ignored -> new BitSet()).set(slot.counter());
+        }
+    }
+
+    void onReleased(DockerService.Registration registration) {
+        Slot slot = slotOf(registration);
+        if (slot == null) {
+            return;
+        }
+        BitSet taken = countersByStem.get(slot.stem());
+        if (taken == null) {
+            return;
+        }
+        taken.clear(slot.counter());
+        if (taken.isEmpty()) {
+            countersByStem.remove(slot.stem());
+        }
+    }
+
+    /**
+     * The counter slot a registration's name takes, or null if it is not a
+     * {@code base-suffix-N} name of its own container.
+     */
+    private static Slot slotOf(DockerService.Registration registration) {
+        String containerId = registration.containerId();
+        String stem = registration.baseName() + "-" + containerId.substring(0, Math.min(6, containerId.length()));
+        String name = registration.serverName();
+        if (name.length() <= stem.length() + 1 || !name.startsWith(stem) || name.charAt(stem.length()) != '-') {
+            return null;
+        }
+        String digits = name.substring(stem.length() + 1);
+        try {
+            int counter = Integer.parseInt(digits);
+            return counter > 0 && digits.equals(Integer.toString(counter)) ? new Slot(stem, counter) : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private boolean conflicts(String name, Map<String, DockerService.Registration> released, String containerKey, Predicate<String> claimed) {
+        if (claimed.test(name)) {
+            return true;
+        }
+        if (registeredInProxy.test(name)) {
+            DockerService.Registration previous = released.get(name);
+            return previous == null || !previous.containerId().equals(containerKey);
+        }
+        return false;
+    }
+
+    private record Slot(String stem, int counter) {
+    }
+}
@@ -0,0 +1,83 @@
+package net.uebliche.dockbridge;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Paces the Docker calls that change containers (start, unpause, pause, stop, and creating and
+ * removing replicas) across all endpoints, so a crowd waking cold servers or a fleet going
+ * idle at once reaches the daemons as a steady trickle: at most
+ * {@code docker.operations.max_concurrent} calls in flight and
+ * {@code docker.operations.per_second} started per second. Background calls (idle suspensions
+ * and scale-in) only get half of the slots, so a player waking a server never queues behind a
+ * batch of slow stops. Callers block, so they run on virtual threads.
+ */
+final class OperationLimiter {
+
+    private final Semaphore permits;
+    private final Semaphore background;
+    private final long intervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    OperationLimiter(int maxConcurrent, int perSecond) {
+        int slots = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(slots, true);
+        this.background = new Semaphore(Math.max(1, slots / 2), true);
+        this.intervalNanos = perSecond <= 0 ? 0L : TimeUnit.SECONDS.toNanos(1) / perSecond;
+    }
+
+    /**
+     * Runs the call once a slot is free and its turn in the rate has come.
+     */
+    <T> T run(boolean backgroundCall, Callable<T> call) throws Exception {
+        waiting.incrementAndGet();
+        boolean queued = true;
+        try {
+            if (backgroundCall) {
+                background.acquire();
+            }
+            try {
+                permits.acquire();
+                try {
+                    pace();
+                    waiting.decrementAndGet();
+                    queued = false;
+                    return call.call();
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                if (backgroundCall) {
+                    background.release();
+                }
+            }
+        } finally {
+            if (queued) {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Calls waiting for a slot or for their turn in the rate.
+     */
+    int waiting() {
+        return waiting.get();
+    }
+
+    private void pace() throws InterruptedException {
+        if (intervalNanos == 0L) {
+            return;
+        }
+        long now = System.nanoTime();
+        long previous = nextSlot.getAndAccumulate(now, (slot, current) -> (slot - current > 0 ? slot : current) + intervalNanos);
+        long wait = previous - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
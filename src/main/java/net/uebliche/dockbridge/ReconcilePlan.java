@@ -0,0 +1,162 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.server.ServerInfo;
+
+import java.util.List;
+
+/**
+ * The changes one reconcile makes, computed from a container listing without touching
+ * Velocity or the reconciliation index. Steps are ordered the way they are applied: new
+ * servers first, then address swaps, then removals. {@code /dockbridge plan} renders a plan
+ * without applying it.
+ */
+final class ReconcilePlan {
+
+    private static final ReconcilePlan EMPTY = new ReconcilePlan(0, List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+            List.of(), List.of());
+
+    enum Action {
+        REGISTER,
+        UPDATE,
+        UNREGISTER
+    }
+
+    /**
+     * One change to Velocity's server map. {@code previous} is the server being replaced or
+     * removed and {@code next} the one taking its place; either is null where it does not apply.
+     */
+    record Step(Action action, String serverName, ServerInfo previous, ServerInfo next) {
+    }
+
+    /**
+     * What the index records for a changed container once the plan is applied. A null
+     * registration means the container matched but could not be registered.
+     */
+    record Assignment(String containerKey, long fingerprint, String baseName, DockerService.Registration registration) {
+    }
+
+    record Skipped(String serverName, String host, int port, String reason) {
+    }
+
+    private final int matched;
+    private final List<Step> steps;
+    private final List<DockerService.Registration> admissions;
+    private final List<String> tryRemovals;
+    private final List<Skipped> skipped;
+    private final List<Assignment> assignments;
+    private final List<ReconciliationIndex.Entry> removed;
+    private final List<ReconciliationIndex.Entry> confirmed;
+    private final List<String> lookups;
+    private final List<String> warnings;
+
+    ReconcilePlan(
+            int matched,
+            List<Step> steps,
+            List<DockerService.Registration> admissions,
+            List<String> tryRemovals,
+            List<Skipped> skipped,
+            List<Assignment> assignments,
+            List<ReconciliationIndex.Entry> removed,
+            List<ReconciliationIndex.Entry> confirmed,
+            List<String> lookups,
+            List<String> warnings
+    ) {
+        this.matched = matched;
+        this.steps = steps;
+        this.admissions = admissions;
+        this.tryRemovals = tryRemovals;
+        this.skipped = skipped;
+        this.assignments = assignments;
+        this.removed = removed;
+        this.confirmed = confirmed;
+        this.lookups = lookups;
+        this.warnings = warnings;
+    }
+
+    /**
+     * A plan for a listing where every container matches its previous scan.
+     */
+    static ReconcilePlan unchanged(int matched, List<ReconciliationIndex.Entry> confirmed) {
+        if (matched == 0 && confirmed.isEmpty()) {
+            return EMPTY;
+        }
+        return new ReconcilePlan(matched, List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), confirmed, List.of(), List.of());
+    }
+
+    int matched() {
+        return matched;
+    }
+
+    /**
+     * Velocity changes in apply order.
+     */
+    List<Step> steps() {
+        return steps;
+    }
+
+    /**
+     * Registrations that join the try list once applied, directly or after their first
+     * successful probe.
+     */
+    List<DockerService.Registration> admissions() {
+        return admissions;
+    }
+
+    /**
+     * Servers taken out of the try list before they are unregistered.
+     */
+    List<String> tryRemovals() {
+        return tryRemovals;
+    }
+
+    List<Skipped> skipped() {
+        return skipped;
+    }
+
+    List<Assignment> assignments() {
+        return assignments;
+    }
+
+    List<ReconciliationIndex.Entry> removed() {
+        return removed;
+    }
+
+    /**
+     * Restored entries this listing confirmed.
+     */
+    List<ReconciliationIndex.Entry> confirmed() {
+        return confirmed;
+    }
+
+    /**
+     * Host names the planned registrations use. The plan takes addresses from the DNS cache
+     * as they are; reconciling looks these up and plans again if that resolved anything.
+     */
+    List<String> lookups() {
+        return lookups;
+    }
+
+    /**
+     * Problems with planned registrations that are logged when the plan is applied.
+     */
+    List<String> warnings() {
+        return warnings;
+    }
+
+    int count(Action action) {
+        int count = 0;
+        for (Step step : steps) {
+            if (step.action() == action) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether applying the plan would change neither Velocity nor the index.
+     */
+    boolean isEmpty() {
+        return assignments.isEmpty() && removed.isEmpty();
+    }
+}
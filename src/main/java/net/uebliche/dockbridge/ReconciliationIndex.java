@@ -0,0 +1,188 @@
+package net.uebliche.dockbridge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Persistent per-container state carried between scans. Each entry remembers the last
+ * fingerprint and registration of a container so unchanged containers can be skipped.
+ * Only accessed while holding the service's reconcile lock.
+ */
+final class ReconciliationIndex {
+
+    private final Map<String, Entry> byContainer = new HashMap<>();
+    private final Map<String, Entry> byServerName = new HashMap<>();
+    private final Set<String> assignedNames = Collections.unmodifiableSet(byServerName.keySet());
+    private NameAllocator names;
+
+    /**
+     * Connects the allocator whose counter index mirrors the names claimed here.
+     */
+    void attach(NameAllocator names) {
+        this.names = names;
+    }
+
+    int size() {
+        return byContainer.size();
+    }
+
+    Entry get(String containerId) {
+        return byContainer.get(containerId);
+    }
+
+    Entry getOrCreate(String containerId) {
+        return byContainer.computeIfAbsent(containerId, Entry::new);
+    }
+
+    /**
+     * Binds the entry to its registration and claims the server name for it.
+     */
+    void assign(Entry entry, DockerService.Registration registration) {
+        entry.registration = registration;
+        byServerName.put(registration.serverName(), entry);
+        if (names != null) {
+            names.onClaimed(registration);
+        }
+    }
+
+    /**
+     * Releases the server name held by the entry, keeping the registration as history
+     * so naming can prefer the previous name.
+     */
+    void detach(Entry entry) {
+        DockerService.Registration registration = entry.registration;
+        if (registration != null && byServerName.get(registration.serverName()) == entry) {
+            byServerName.remove(registration.serverName());
+            if (names != null) {
+                names.onReleased(registration);
+            }
+        }
+    }
+
+    /**
+     * Forgets every fingerprint, so the next scan plans each container again instead of
+     * skipping unchanged ones.
+     */
+    void invalidateFingerprints() {
+        for (Entry entry : byContainer.values()) {
+            entry.fingerprint = 0L;
+        }
+    }
+
+    boolean isAssigned(Entry entry) {
+        DockerService.Registration registration = entry.registration;
+        return registration != null && byServerName.get(registration.serverName()) == entry;
+    }
+
+    /**
+     * Entries whose container is not {@code listed}, except those the {@code retain}
+     * predicate keeps. The entries stay in the index until {@link #remove} is called.
+     *
+     * @return unseen entries, or an empty list without allocating when there are none.
+     */
+    List<Entry> unseen(Predicate<String> listed, Predicate<Entry> retain) {
+        List<Entry> unseen = List.of();
+        for (Entry entry : byContainer.values()) {
+            if (listed.test(entry.containerId) || retain.test(entry)) {
+                continue;
+            }
+            if (unseen.isEmpty()) {
+                unseen = new ArrayList<>();
+            }
+            unseen.add(entry);
+        }
+        return unseen;
+    }
+
+    /**
+     * Drops the entry and releases its name.
+     */
+    void remove(Entry entry) {
+        if (byContainer.remove(entry.containerId, entry)) {
+            detach(entry);
+        }
+    }
+
+    Set<String> assignedNames() {
+        return assignedNames;
+    }
+
+    int assignedCount() {
+        return byServerName.size();
+    }
+
+    Collection<Entry> assignedEntries() {
+        return Collections.unmodifiableCollection(byServerName.values());
+    }
+
+    List<DockerService.Registration> registrations() {
+        List<DockerService.Registration> registrations = new ArrayList<>(byServerName.size());
+        for (Entry entry : byServerName.values()) {
+            registrations.add(entry.registration);
+        }
+        return Collections.unmodifiableList(registrations);
+    }
+
+    static final class Entry {
+
+        private final String containerId;
+        private long fingerprint;
+        private String baseName;
+        private DockerService.Registration registration;
+        private String restoredFrom;
+
+        private Entry(String containerId) {
+            this.containerId = containerId;
+        }
+
+        String containerId() {
+            return containerId;
+        }
+
+        long fingerprint() {
+            return fingerprint;
+        }
+
+        String baseName() {
+            return baseName;
+        }
+
+        DockerService.Registration registration() {
+            return registration;
+        }
+
+        /**
+         * Endpoint of a registration restored from the snapshot that no scan has confirmed
+         * yet, or null.
+         */
+        String restoredFrom() {
+            return restoredFrom;
+        }
+
+        void markRestored(String endpoint) {
+            this.restoredFrom = endpoint;
+        }
+
+        /**
+         * Marks a restored entry as confirmed by a scan.
+         */
+        void confirm() {
+            this.restoredFrom = null;
+        }
+
+        void update(long fingerprint, String baseName) {
+            this.fingerprint = fingerprint;
+            this.baseName = baseName;
+        }
+
+        void clearRegistration() {
+            this.registration = null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package net.uebliche.dockbridge;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Last known registration set, kept in the data directory so a restarting proxy can serve
+ * Docker backends before the daemon answers, and so suffixed names stay the same across
+ * restarts. Writes go to a temporary file that replaces the snapshot atomically.
+ */
+public final class RegistrationSnapshot {
+
+    private static final String FILE_NAME = "registrations.json";
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+
+    public RegistrationSnapshot(Path dataDirectory, Logger logger) {
+        this.file = dataDirectory.resolve(FILE_NAME);
+        this.logger = logger;
+    }
+
+    public List<Entry> load() {
+        if (Files.notExists(file)) {
+            return List.of();
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Contents contents = gson.fromJson(reader, Contents.class);
+            if (contents == null || contents.version() != VERSION || contents.entries() == null) {
+                logger.warn("Ignoring registration snapshot {} with unknown format.", file);
+                return List.of();
+            }
+            List<Entry> valid = new ArrayList<>(contents.entries().size());
+            for (Entry entry : contents.entries()) {
+                if (entry != null && entry.isComplete()) {
+                    valid.add(entry);
+                }
+            }
+            return valid;
+        } catch (IOException | JsonParseException ex) {
+            logger.warn("Could not read registration snapshot {}: {}", file, ex.getMessage());
+            return List.of();
+        }
+    }
+
+    public void save(List<Entry> entries) {
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(new Contents(VERSION, entries), writer);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not write registration snapshot {}: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * One registered container: the endpoint it was listed on, its full container id, and
+     * the registration including the chosen server name.
+     */
+    public record Entry(String endpoint, String containerKey, DockerService.Registration registration) {
+
+        private boolean isComplete() {
+            return endpoint != null
+                    && containerKey != null
+                    && registration != null
+                    && registration.serverName() != null
+                    && registration.host() != null
+                    && registration.baseName() != null
+                    && registration.port() > 0;
+        }
+    }
+
+    private record Contents(int version, List<Entry> entries) {
+    }
+}
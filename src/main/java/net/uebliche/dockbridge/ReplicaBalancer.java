@@ -0,0 +1,266 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.player.PlayerChooseInitialServerEvent;
+import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads initial connections across replicas that share a base name. Replica groups are
+ * rebuilt after each scan that changed registrations and published as immutable arrays, so
+ * the login path only reads a volatile map, atomic counters and probe results.
+ */
+public final class ReplicaBalancer {
+
+    private final ProxyServer server;
+    private final DockerService dockerService;
+    private final Strategy strategy;
+    private final boolean probing;
+    private final long latencyPenaltyMicros;
+    private final Map<String, AtomicInteger> connections = new ConcurrentHashMap<>();
+    private volatile Map<String, Replica[]> groupsByServer = Map.of();
+    private volatile Map<String, Replica[]> groupsByBaseName = Map.of();
+
+    public ReplicaBalancer(ProxyServer server, Logger logger, DockBridgeConfig config, DockerService dockerService) {
+        this.server = server;
+        this.dockerService = dockerService;
+        this.strategy = Strategy.from(config.balancingStrategy(), logger);
+        this.probing = dockerService.getProber().isPresent();
+        this.latencyPenaltyMicros = Math.max(1L, config.balancingLatencyPenaltyMillis()) * 1_000L;
+    }
+
+    public Strategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * @return players currently connected to the server as tracked by connect/disconnect events.
+     */
+    public int connectedPlayers(String serverName) {
+        AtomicInteger counter = connections.get(serverName);
+        return counter == null ? 0 : counter.get();
+    }
+
+    void onRegistrationsChanged(List<DockerService.Registration> registrations) {
+        Map<String, List<Replica>> byBaseName = new HashMap<>();
+        for (DockerService.Registration registration : registrations) {
+            Optional<RegisteredServer> registered = server.getServer(registration.serverName());
+            // Cold servers are only reached by name, which wakes them; they never take balanced logins.
+            if (registered.isEmpty() || registration.cold()) {
+                continue;
+            }
+            AtomicInteger counter = connections.computeIfAbsent(registration.serverName(), ignored -> new AtomicInteger());
+            BackendProber.BackendHealth health = dockerService.getProber()
+                    .flatMap(prober -> prober.health(registration.serverName()))
+                    .orElse(null);
+            byBaseName.computeIfAbsent(registration.baseName(), ignored -> new ArrayList<>())
+                    .add(new Replica(registration.serverName(), registered.get(), registration.weight(), counter, health));
+        }
+        Map<String, Replica[]> next = new HashMap<>();
+        Map<String, Replica[]> nextByBaseName = new HashMap<>();
+        for (Map.Entry<String, List<Replica>> group : byBaseName.entrySet()) {
+            Replica[] replicas = group.getValue().toArray(Replica[]::new);
+            nextByBaseName.put(group.getKey(), replicas);
+            for (Replica replica : replicas) {
+                next.put(replica.serverName, replicas);
+            }
+        }
+        connections.keySet().retainAll(next.keySet());
+        groupsByServer = Map.copyOf(next);
+        groupsByBaseName = Map.copyOf(nextByBaseName);
+    }
+
+    @Subscribe
+    public void onChooseInitialServer(PlayerChooseInitialServerEvent event) {
+        if (strategy == Strategy.NONE) {
+            return;
+        }
+        Optional<RegisteredServer> initial = event.getInitialServer();
+        if (initial.isEmpty()) {
+            return;
+        }
+        Replica[] group = groupsByServer.get(initial.get().getServerInfo().getName());
+        if (group == null || group.length < 2) {
+            return;
+        }
+        Replica chosen = choose(group);
+        if (chosen != null && chosen.server != initial.get()) {
+            event.setInitialServer(chosen.server);
+        }
+    }
+
+    /**
+     * Picks a routable replica with the given base name, e.g. to move players off a draining
+     * server. Uses least connections when balancing is disabled.
+     */
+    Optional<RegisteredServer> chooseReplica(String baseName) {
+        Replica[] group = groupsByBaseName.get(baseName);
+        if (group == null) {
+            return Optional.empty();
+        }
+        Replica chosen = strategy == Strategy.NONE ? leastConnections(group) : choose(group);
+        return chosen == null ? Optional.empty() : Optional.of(chosen.server);
+    }
+
+    @Subscribe
+    public void onServerConnected(ServerConnectedEvent event) {
+        AtomicInteger next = connections.get(event.getServer().getServerInfo().getName());
+        if (next != null) {
+            next.incrementAndGet();
+        }
+        Optional<RegisteredServer> previous = event.getPreviousServer();
+        if (previous.isPresent()) {
+            decrement(previous.get().getServerInfo().getName());
+        }
+    }
+
+    @Subscribe
+    public void onDisconnect(DisconnectEvent event) {
+        Optional<ServerConnection> current = event.getPlayer().getCurrentServer();
+        if (current.isPresent()) {
+            decrement(current.get().getServerInfo().getName());
+        }
+    }
+
+    private void decrement(String serverName) {
+        AtomicInteger counter = connections.get(serverName);
+        if (counter != null) {
+            counter.updateAndGet(value -> Math.max(0, value - 1));
+        }
+    }
+
+    private Replica choose(Replica[] group) {
+        return switch (strategy) {
+            case LEAST_CONNECTIONS -> leastConnections(group);
+            case WEIGHTED_RANDOM -> weightedRandom(group);
+            case POWER_OF_TWO -> powerOfTwo(group);
+            case NONE -> null;
+        };
+    }
+
+    private Replica leastConnections(Replica[] group) {
+        Replica best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (Replica replica : group) {
+            if (!isRoutable(replica)) {
+                continue;
+            }
+            double cost = cost(replica);
+            if (cost < bestCost) {
+                best = replica;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    private Replica weightedRandom(Replica[] group) {
+        int total = 0;
+        for (Replica replica : group) {
+            if (isRoutable(replica)) {
+                total += replica.weight;
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        for (Replica replica : group) {
+            if (!isRoutable(replica)) {
+                continue;
+            }
+            pick -= replica.weight;
+            if (pick < 0) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica powerOfTwo(Replica[] group) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Replica first = null;
+        Replica second = null;
+        // A few random draws usually find two routable replicas; fall back to a scan otherwise.
+        for (int attempt = 0; attempt < 4 && second == null; attempt++) {
+            Replica candidate = group[random.nextInt(group.length)];
+            if (!isRoutable(candidate) || candidate == first) {
+                continue;
+            }
+            if (first == null) {
+                first = candidate;
+            } else {
+                second = candidate;
+            }
+        }
+        if (second == null) {
+            return leastConnections(group);
+        }
+        return cost(first) <= cost(second) ? first : second;
+    }
+
+    /**
+     * Load per unit of weight, scaled up by recent probe latency: a replica whose latency
+     * equals the configured penalty counts as twice as loaded.
+     */
+    private double cost(Replica replica) {
+        double load = (replica.players.get() + 1.0) / replica.weight;
+        long latency = recentLatencyMicros(replica);
+        return latency <= 0 ? load : load * (1.0 + (double) latency / latencyPenaltyMicros);
+    }
+
+    private boolean isRoutable(Replica replica) {
+        if (dockerService.isDraining(replica.serverName) || dockerService.isSuspending(replica.serverName)
+                || dockerService.isRetiring(replica.serverName)) {
+            return false;
+        }
+        return !probing || (replica.health != null && replica.health.state() == BackendProber.ProbeState.HEALTHY);
+    }
+
+    private long recentLatencyMicros(Replica replica) {
+        return replica.health == null ? -1L : replica.health.recentMicros();
+    }
+
+    /**
+     * @param health probe state captured when the group was built; probes update it in place.
+     */
+    private record Replica(String serverName, RegisteredServer server, int weight, AtomicInteger players,
+                           BackendProber.BackendHealth health) {
+    }
+
+    public enum Strategy {
+        NONE,
+        LEAST_CONNECTIONS,
+        WEIGHTED_RANDOM,
+        POWER_OF_TWO;
+
+        static Strategy from(String raw, Logger logger) {
+            if (raw == null) {
+                return POWER_OF_TWO;
+            }
+            return switch (raw.trim().toLowerCase()) {
+                case "none" -> NONE;
+                case "least_connections" -> LEAST_CONNECTIONS;
+                case "weighted_random" -> WEIGHTED_RANDOM;
+                case "power_of_two" -> POWER_OF_TWO;
+                default -> {
+                    logger.warn("Unknown balancing strategy '{}', defaulting to 'power_of_two'.", raw);
+                    yield POWER_OF_TWO;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lets several proxies on one host share a single Docker scanner. The proxy holding the
+ * {@link LeaderLease} in {@code coordination.directory} pings and lists the daemons, follows
+ * their event streams and publishes every listing as a {@link SharedListing}; the others never
+ * call Docker and reconcile the published listings instead. When the leader stops renewing,
+ * the first follower to find the lease expired takes over and starts scanning.
+ */
+public final class ScanCoordinator {
+
+    private static final long TICK_MILLIS = 1000L;
+
+    private final ProxyServer server;
+    private final Object plugin;
+    private final Logger logger;
+    private final DockerService dockerService;
+    private final List<DockerEventWatcher> eventWatchers;
+    private final boolean eventsEnabled;
+    private final LeaderLease lease;
+    private final SharedListing listing;
+    private final long renewEveryMillis;
+    private final Set<String> unknownEndpoints = new HashSet<>();
+    private volatile boolean leader = false;
+    private boolean started = false;
+    private long nextRenewAt = 0L;
+    private long sequence = 0L;
+    private long appliedTerm = 0L;
+    private long appliedSequence = 0L;
+    private volatile long appliedPublishedAt = 0L;
+    private ScheduledTask task;
+
+    private ScanCoordinator(ProxyServer server, Object plugin, Logger logger, DockBridgeConfig config, DockerService dockerService,
+                            List<DockerEventWatcher> eventWatchers, Path directory, String self) {
+        this.server = server;
+        this.plugin = plugin;
+        this.logger = logger;
+        this.dockerService = dockerService;
+        this.eventWatchers = eventWatchers;
+        this.eventsEnabled = config.dockerEventsEnabled();
+        long leaseMillis = Math.max(3, config.coordinationLeaseSeconds()) * 1000L;
+        this.lease = new LeaderLease(directory, self, leaseMillis, logger);
+        this.listing = new SharedListing(directory, logger);
+        this.renewEveryMillis = leaseMillis / 3;
+    }
+
+    /**
+     * Builds the coordinator from {@code coordination.*}, or returns null when the shared
+     * directory is not usable; the proxy then scans Docker on its own.
+     */
+    static ScanCoordinator create(ProxyServer server, Object plugin, Logger logger, DockBridgeConfig config,
+                                  DockerService dockerService, List<DockerEventWatcher> eventWatchers) {
+        if (config.coordinationDirectory().isEmpty()) {
+            logger.warn("coordination.enabled is set but coordination.directory is blank; this proxy scans Docker on its own.");
+            return null;
+        }
+        Path directory = Path.of(config.coordinationDirectory());
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            logger.warn("Could not create coordination directory {}: {}. This proxy scans Docker on its own.", directory, ex.getMessage());
+            return null;
+        }
+        String self = config.coordinationNodeId();
+        if (self.isEmpty()) {
+            String hostname = System.getenv("HOSTNAME");
+            self = hostname == null || hostname.isBlank()
+                    ? "proxy-" + ProcessHandle.current().pid()
+                    : hostname.trim();
+        }
+        ScanCoordinator coordinator = new ScanCoordinator(server, plugin, logger, config, dockerService, eventWatchers, directory, self);
+        dockerService.getMetrics().registerGauge("dockbridge_coordination_leader", "1 while this proxy holds the Docker scanning lease.",
+                () -> coordinator.isLeader() ? 1 : 0);
+        return coordinator;
+    }
+
+    /**
+     * Decides the role right away, then renews or watches the lease every second.
+     */
+    public synchronized void start() {
+        if (task != null) {
+            return;
+        }
+        tick();
+        task = server.getScheduler()
+                .buildTask(plugin, this::tick)
+                .delay(Duration.ofMillis(TICK_MILLIS))
+                .repeat(Duration.ofMillis(TICK_MILLIS))
+                .schedule();
+    }
+
+    /**
+     * Stops renewing and hands the lease back so a follower takes over without waiting.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        leader = false;
+        lease.release();
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public String self() {
+        return lease.self();
+    }
+
+    /**
+     * Lease holder as last seen; this proxy while it leads.
+     */
+    public String leaderId() {
+        return lease.holder();
+    }
+
+    public long term() {
+        return lease.term();
+    }
+
+    /**
+     * Age of the last listing applied as a follower, or null if none has been applied yet.
+     */
+    public Duration listingAge() {
+        long published = appliedPublishedAt;
+        return published == 0L ? null : Duration.ofMillis(Math.max(0L, System.currentTimeMillis() - published));
+    }
+
+    /**
+     * Publishes the current listings of every endpoint if this proxy leads. Called after each
+     * scan, on the scan thread.
+     */
+    synchronized void publishListing() {
+        if (!leader || !lease.isHeld()) {
+            return;
+        }
+        List<SharedListing.Endpoint> endpoints = new ArrayList<>();
+        for (DockerEndpoint endpoint : dockerService.getEndpoints()) {
+            endpoints.add(new SharedListing.Endpoint(endpoint.endpoint(), endpoint.isAvailable(),
+                    endpoint.unavailableReason().orElse(null), endpoint.lastScan().toEpochMilli(), endpoint.containers()));
+        }
+        listing.write(SharedListing.Contents.of(lease.self(), lease.term(), ++sequence, endpoints));
+    }
+
+    private synchronized void tick() {
+        long now = System.currentTimeMillis();
+        if (now >= nextRenewAt) {
+            nextRenewAt = now + renewEveryMillis;
+            if (lease.renew()) {
+                becomeLeader();
+            } else {
+                becomeFollower();
+            }
+        } else if (leader && !lease.isHeld()) {
+            // Renewals failed for a whole lease; someone else may hold it by now.
+            becomeFollower();
+        }
+        if (!leader) {
+            applyPublished();
+        }
+    }
+
+    private void becomeLeader() {
+        if (leader && started) {
+            return;
+        }
+        leader = true;
+        started = true;
+        logger.info("Holding the Docker scanning lease as {} (term {}); this proxy scans Docker and publishes listings to {}.",
+                lease.self(), lease.term(), dockerService.getConfig().coordinationDirectory());
+        dockerService.setScanning(true);
+        if (eventsEnabled) {
+            eventWatchers.forEach(DockerEventWatcher::start);
+        }
+        dockerService.refreshContainers();
+    }
+
+    private void becomeFollower() {
+        if (!leader && started) {
+            return;
+        }
+        leader = false;
+        started = true;
+        dockerService.setScanning(false);
+        eventWatchers.forEach(DockerEventWatcher::stop);
+        logger.info("Following {} (term {}); applying its published container listings instead of calling Docker.",
+                lease.holder(), lease.term());
+    }
+
+    private void applyPublished() {
+        SharedListing.Contents contents = listing.readIfChanged();
+        if (contents == null) {
+            return;
+        }
+        if (!contents.isNewerThan(appliedTerm, appliedSequence)) {
+            if (contents.term() < appliedTerm && dockerService.getConfig().logScan()) {
+                logger.info("Ignoring container listing from {} (term {}); term {} is newer.", contents.leader(), contents.term(), appliedTerm);
+            }
+            return;
+        }
+        appliedTerm = contents.term();
+        appliedSequence = contents.sequence();
+        appliedPublishedAt = contents.publishedAt();
+        for (SharedListing.Endpoint endpoint : contents.endpoints()) {
+            if (dockerService.getEndpoint(endpoint.endpoint()) == null && unknownEndpoints.add(endpoint.endpoint())) {
+                logger.warn("Published listing covers Docker endpoint {}, which this proxy is not configured for; ignoring it.",
+                        endpoint.endpoint());
+            }
+        }
+        dockerService.adoptListing(contents.endpoints());
+    }
+}
@@ -0,0 +1,265 @@
+package net.uebliche.dockbridge;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves players off a backend that is going away before it is unregistered. A draining
+ * server leaves the try list and the balancer's candidates at once; its players are sent to a
+ * healthy sibling with the same base name, at most {@code drain.max_parallel_moves} at a time
+ * across all drains. The drain ends when the server is empty or after
+ * {@code drain.timeout_seconds}, whichever comes first.
+ * <p>
+ * A drain started by a stop event only hands the server over for unregistering once the scan
+ * that no longer lists the container asks for it. If the container is still listed when the
+ * timeout passes, the drain is lifted and the server returns to rotation.
+ */
+public final class ServerDrainer {
+
+    private static final long CHECK_INTERVAL_MILLIS = 250L;
+    private static final long RETRY_INTERVAL_MILLIS = 2_000L;
+
+    private final Logger logger;
+    private final DockBridgeConfig config;
+    private final DockerService dockerService;
+    private final ReplicaBalancer balancer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore moves;
+    private final Map<String, Drain> drains = new ConcurrentHashMap<>();
+
+    public ServerDrainer(Logger logger, DockBridgeConfig config, DockerService dockerService, ReplicaBalancer balancer) {
+        this.logger = logger;
+        this.config = config;
+        this.dockerService = dockerService;
+        this.balancer = balancer;
+        this.moves = new Semaphore(Math.max(1, config.drainMaxParallelMoves()));
+    }
+
+    public boolean isDraining(String serverName) {
+        return drains.containsKey(serverName);
+    }
+
+    public List<DrainStatus> drains() {
+        List<DrainStatus> statuses = new ArrayList<>(drains.size());
+        Instant now = Instant.now();
+        for (Drain drain : drains.values()) {
+            statuses.add(new DrainStatus(drain.serverName, drain.baseName, players(drain.server).size(),
+                    Math.max(0L, Duration.between(now, drain.deadline).toSeconds()), drain.unregistering()));
+        }
+        return statuses;
+    }
+
+    /**
+     * Starts draining a server that is about to go away but is still listed, e.g. after a stop
+     * signal. Does nothing if it is already draining.
+     */
+    void drain(RegisteredServer server, String baseName, String reason) {
+        start(server, baseName, reason, null);
+    }
+
+    /**
+     * Hands a server over for unregistering. If it still has players or is already draining,
+     * {@code unregister} runs once the drain ends and true is returned; otherwise the caller
+     * unregisters it right away.
+     */
+    boolean drainBeforeUnregister(RegisteredServer server, String baseName, Runnable unregister) {
+        String name = server.getServerInfo().getName();
+        Drain existing = drains.get(name);
+        if (existing != null && existing.handOver(unregister)) {
+            return true;
+        }
+        if (players(server).isEmpty()) {
+            return false;
+        }
+        return start(server, baseName, "container no longer matches", unregister);
+    }
+
+    /**
+     * Undoes {@link #drainBeforeUnregister}: the drain keeps running but no longer
+     * unregisters the server when it ends.
+     */
+    void keepRegistered(String serverName) {
+        Drain drain = drains.get(serverName);
+        if (drain != null) {
+            drain.handOver(null);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        drains.clear();
+    }
+
+    private boolean start(RegisteredServer server, String baseName, String reason, Runnable unregister) {
+        String name = server.getServerInfo().getName();
+        Drain drain = new Drain(name, baseName, server,
+                Instant.now().plusSeconds(Math.max(1, config.drainTimeoutSeconds())), unregister);
+        Drain existing = drains.putIfAbsent(name, drain);
+        if (existing != null) {
+            return unregister == null || existing.handOver(unregister);
+        }
+        dockerService.setRoutable(name, false);
+        logger.info("Draining server {} ({}): moving {} player(s) to other {} replicas for up to {}s.",
+                name, reason, players(server).size(), baseName, Math.max(1, config.drainTimeoutSeconds()));
+        try {
+            executor.execute(() -> run(drain));
+        } catch (RejectedExecutionException ex) {
+            drains.remove(name, drain);
+            return false;
+        }
+        return true;
+    }
+
+    private void run(Drain drain) {
+        long nextMove = 0L;
+        try {
+            while (drains.get(drain.serverName) == drain) {
+                Collection<Player> remaining = players(drain.server);
+                boolean expired = !Instant.now().isBefore(drain.deadline);
+                if (remaining.isEmpty() || expired) {
+                    Runnable unregister = drain.finish(expired);
+                    if (unregister != null) {
+                        drains.remove(drain.serverName, drain);
+                        unregister.run();
+                        // With the overwrite strategy a new container may hold the name by now.
+                        dockerService.readmit(drain.serverName);
+                        if (expired && !remaining.isEmpty()) {
+                            logger.warn("Drain of {} timed out with {} player(s) left; unregistered it anyway.", drain.serverName, remaining.size());
+                        } else if (dockerService.getConfig().logUnregistered()) {
+                            logger.info("Server {} drained; unregistered it.", drain.serverName);
+                        }
+                        return;
+                    }
+                    if (expired) {
+                        drains.remove(drain.serverName, drain);
+                        logger.info("Server {} was not removed within {}s of its drain; returning it to rotation.",
+                                drain.serverName, Math.max(1, config.drainTimeoutSeconds()));
+                        dockerService.readmit(drain.serverName);
+                        return;
+                    }
+                }
+                long now = System.nanoTime();
+                if (!remaining.isEmpty() && now >= nextMove) {
+                    moveAll(drain, remaining);
+                    nextMove = now + TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS);
+                }
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void moveAll(Drain drain, Collection<Player> players) throws InterruptedException {
+        for (Player player : players) {
+            if (!isOn(player, drain.serverName) || !drain.moving.add(player)) {
+                continue;
+            }
+            Optional<RegisteredServer> target = balancer.chooseReplica(drain.baseName);
+            if (target.isEmpty()) {
+                drain.moving.remove(player);
+                if (!drain.warnedNoTarget) {
+                    drain.warnedNoTarget = true;
+                    logger.warn("No healthy {} replica to move players from {} to; retrying until the drain times out.",
+                            drain.baseName, drain.serverName);
+                }
+                return;
+            }
+            moves.acquire();
+            try {
+                player.createConnectionRequest(target.get()).connect()
+                        .orTimeout(Math.max(1, config.drainTimeoutSeconds()), TimeUnit.SECONDS)
+                        .whenComplete((result, error) -> {
+                            moves.release();
+                            drain.moving.remove(player);
+                        });
+            } catch (RuntimeException ex) {
+                moves.release();
+                drain.moving.remove(player);
+                throw ex;
+            }
+        }
+    }
+
+    private static boolean isOn(Player player, String serverName) {
+        Optional<ServerConnection> current = player.getCurrentServer();
+        return current.isPresent() && current.get().getServerInfo().getName().equals(serverName);
+    }
+
+    private static Collection<Player> players(RegisteredServer server) {
+        Collection<Player> players = server.getPlayersConnected();
+        return players == null ? List.of() : players;
+    }
+
+    /**
+     * @param remainingSeconds time left before the drain gives up waiting.
+     * @param unregistering    whether the server is unregistered once the drain ends.
+     */
+    public record DrainStatus(String serverName, String baseName, int players, long remainingSeconds, boolean unregistering) {
+    }
+
+    private static final class Drain {
+
+        private final String serverName;
+        private final String baseName;
+        private final RegisteredServer server;
+        private final Instant deadline;
+        private final Set<Player> moving = ConcurrentHashMap.newKeySet();
+        private Runnable onDrained;
+        private boolean finished;
+        private volatile boolean warnedNoTarget;
+
+        private Drain(String serverName, String baseName, RegisteredServer server, Instant deadline, Runnable onDrained) {
+            this.serverName = serverName;
+            this.baseName = baseName;
+            this.server = server;
+            this.deadline = deadline;
+            this.onDrained = onDrained;
+        }
+
+        /**
+         * Sets what runs when the drain ends. Returns false once the drain has already ended
+         * without it, so the caller has to act on its own.
+         */
+        private synchronized boolean handOver(Runnable unregister) {
+            if (finished) {
+                return false;
+            }
+            onDrained = unregister;
+            return true;
+        }
+
+        /**
+         * Ends the drain if someone is waiting to unregister the server or the timeout passed.
+         *
+         * @return the unregister action, or null if there is none.
+         */
+        private synchronized Runnable finish(boolean expired) {
+            if (onDrained != null || expired) {
+                finished = true;
+            }
+            return onDrained;
+        }
+
+        private synchronized boolean unregistering() {
+            return onDrained != null;
+        }
+    }
+}
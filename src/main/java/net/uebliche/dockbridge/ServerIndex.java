@@ -0,0 +1,104 @@
+package net.uebliche.dockbridge;
+
+import net.uebliche.dockbridge.api.DockerServer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup tables over one registration set, built once when the set changes and shared by
+ * every reader of that {@link DockerState}. Label lookups are indexed per label key on first
+ * use, since most keys are never queried.
+ */
+final class ServerIndex {
+
+    static final ServerIndex EMPTY = new ServerIndex(List.of());
+
+    private final List<DockerService.Registration> registrations;
+    private final Map<String, DockerService.Registration> registrationsByName;
+    private final List<DockerServer> servers;
+    private final Map<String, DockerServer> byName;
+    private final Map<String, DockerServer> byContainerId;
+    private final Map<String, List<DockerServer>> byBaseName;
+    private final Map<String, Map<String, List<DockerServer>>> byLabel = new ConcurrentHashMap<>();
+
+    ServerIndex(List<DockerService.Registration> registrations) {
+        int capacity = Math.max(4, registrations.size() * 2);
+        Map<String, DockerService.Registration> registrationsByName = new HashMap<>(capacity);
+        List<DockerServer> servers = new ArrayList<>(registrations.size());
+        Map<String, DockerServer> byName = new HashMap<>(capacity);
+        Map<String, DockerServer> byContainerId = new HashMap<>(capacity);
+        Map<String, List<DockerServer>> byBaseName = new HashMap<>();
+        for (DockerService.Registration registration : registrations) {
+            DockerServer server = new DockerServer(registration.serverName(), registration.host(), registration.port(),
+                    registration.containerId(), registration.baseName(), registration.weight(), registration.labels(),
+                    registration.cold());
+            registrationsByName.put(registration.serverName(), registration);
+            servers.add(server);
+            byName.put(server.serverName(), server);
+            byContainerId.put(server.containerId(), server);
+            byBaseName.computeIfAbsent(server.baseName(), key -> new ArrayList<>(2)).add(server);
+        }
+        byBaseName.replaceAll((key, group) -> Collections.unmodifiableList(group));
+        this.registrations = List.copyOf(registrations);
+        this.registrationsByName = Collections.unmodifiableMap(registrationsByName);
+        this.servers = Collections.unmodifiableList(servers);
+        this.byName = Collections.unmodifiableMap(byName);
+        this.byContainerId = Collections.unmodifiableMap(byContainerId);
+        this.byBaseName = Collections.unmodifiableMap(byBaseName);
+    }
+
+    List<DockerService.Registration> registrations() {
+        return registrations;
+    }
+
+    DockerService.Registration registration(String serverName) {
+        return registrationsByName.get(serverName);
+    }
+
+    List<DockerServer> servers() {
+        return servers;
+    }
+
+    DockerServer server(String serverName) {
+        return byName.get(serverName);
+    }
+
+    /**
+     * Registrations keep the 12 character short id; longer ids are cut down to it.
+     */
+    DockerServer serverByContainerId(String containerId) {
+        if (containerId == null) {
+            return null;
+        }
+        String key = containerId.length() > 12 ? containerId.substring(0, 12) : containerId;
+        return byContainerId.get(key);
+    }
+
+    List<DockerServer> serversByBaseName(String baseName) {
+        return byBaseName.getOrDefault(baseName, List.of());
+    }
+
+    List<DockerServer> serversByLabel(String key, String value) {
+        if (key == null || value == null) {
+            return List.of();
+        }
+        return byLabel.computeIfAbsent(key, this::indexLabel).getOrDefault(value, List.of());
+    }
+
+    private Map<String, List<DockerServer>> indexLabel(String key) {
+        Map<String, List<DockerServer>> byValue = new HashMap<>();
+        for (DockerServer server : servers) {
+            String value = server.label(key);
+            if (value != null) {
+                byValue.computeIfAbsent(value, ignored -> new ArrayList<>(2)).add(server);
+            }
+        }
+        byValue.replaceAll((value, group) -> Collections.unmodifiableList(group));
+        return byValue;
+    }
+}
@@ -0,0 +1,116 @@
+package net.uebliche.dockbridge;
+
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent-hash ring over the proxy replica ids. Every replica is placed on the ring at
+ * {@code filters.sharding.virtual_nodes} points; a container belongs to the replica owning the
+ * first point at or after the hash of its id. All proxies configured with the same replica list
+ * agree on the owner of every container without talking to each other, and adding or removing
+ * one replica only moves the containers on the arcs it gains or loses, about 1/N of them.
+ */
+final class ShardRing {
+
+    private final String self;
+    private final List<String> replicas;
+    private final long[] points;
+    private final String[] owners;
+
+    private ShardRing(String self, List<String> replicas, int virtualNodes) {
+        this.self = self;
+        this.replicas = List.copyOf(replicas);
+        int vnodes = Math.max(1, virtualNodes);
+        Point[] placed = new Point[replicas.size() * vnodes];
+        int i = 0;
+        for (String replica : replicas) {
+            for (int v = 0; v < vnodes; v++) {
+                placed[i++] = new Point(hash(replica + "#" + v), replica);
+            }
+        }
+        // Ties are broken by replica id so every proxy builds the same ring.
+        Arrays.sort(placed, (a, b) -> a.hash != b.hash ? Long.compare(a.hash, b.hash) : a.owner.compareTo(b.owner));
+        this.points = new long[placed.length];
+        this.owners = new String[placed.length];
+        for (int p = 0; p < placed.length; p++) {
+            points[p] = placed[p].hash;
+            owners[p] = placed[p].owner;
+        }
+    }
+
+    /**
+     * Builds the ring from {@code filters.sharding.*}, or returns null when sharding is off or
+     * this proxy cannot place itself on the ring; every container is then kept.
+     */
+    static ShardRing from(DockBridgeConfig config, Logger logger) {
+        if (!config.shardingEnabled()) {
+            return null;
+        }
+        String self = config.shardingReplicaId();
+        if (self.isEmpty()) {
+            String hostname = System.getenv("HOSTNAME");
+            self = hostname == null ? "" : hostname.trim();
+        }
+        List<String> replicas = config.shardingReplicas();
+        if (replicas.isEmpty()) {
+            logger.warn("Sharding is enabled but filters.sharding.replicas is empty; registering every container.");
+            return null;
+        }
+        if (!replicas.contains(self)) {
+            logger.warn("Sharding is enabled but this proxy's replica id '{}' is not in filters.sharding.replicas {}; registering every container.",
+                    self, replicas);
+            return null;
+        }
+        return new ShardRing(self, replicas, config.shardingVirtualNodes());
+    }
+
+    String self() {
+        return self;
+    }
+
+    List<String> replicas() {
+        return replicas;
+    }
+
+    String owner(String key) {
+        long h = hash(key);
+        int at = Arrays.binarySearch(points, h);
+        if (at < 0) {
+            at = -at - 1;
+        } else {
+            // Several replicas may share a point; the first one owns it.
+            while (at > 0 && points[at - 1] == h) {
+                at--;
+            }
+        }
+        return owners[at == points.length ? 0 : at];
+    }
+
+    boolean owns(String key) {
+        return owner(key).equals(self);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer, which spreads the
+     * similar ids and {@code replica#n} labels evenly over the ring. Stable across JVMs.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record Point(long hash, String owner) {
+    }
+}
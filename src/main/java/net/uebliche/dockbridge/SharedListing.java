@@ -0,0 +1,109 @@
+package net.uebliche.dockbridge;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * The container listings the scanning proxy publishes for the others, one per Docker
+ * endpoint, in the coordination directory. Followers reconcile these exactly as if they had
+ * listed the daemons themselves, so their own proxy group, sharding and health settings still
+ * apply. Writes replace the file atomically; reads skip a file that has not changed.
+ */
+final class SharedListing {
+
+    private static final String FILE_NAME = "listing.json";
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+    private FileTime lastReadModified;
+    private long lastReadSize = -1L;
+
+    SharedListing(Path directory, Logger logger) {
+        this.file = directory.resolve(FILE_NAME);
+        this.logger = logger;
+    }
+
+    void write(Contents contents) {
+        // Per-writer temp file: a deposed leader still finishing a write must not clobber the new one's.
+        Path temp = file.resolveSibling(FILE_NAME + "." + contents.leader().replaceAll("[^A-Za-z0-9._-]", "_") + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(contents, writer);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not publish the container listing {}: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * The published listing if the file changed since the last call, otherwise null.
+     */
+    Contents readIfChanged() {
+        try {
+            if (Files.notExists(file)) {
+                return null;
+            }
+            FileTime modified = Files.getLastModifiedTime(file);
+            long size = Files.size(file);
+            if (modified.equals(lastReadModified) && size == lastReadSize) {
+                return null;
+            }
+            Contents contents;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                contents = gson.fromJson(reader, Contents.class);
+            }
+            lastReadModified = modified;
+            lastReadSize = size;
+            if (contents == null || contents.version() != VERSION || contents.endpoints() == null) {
+                logger.warn("Ignoring published container listing {} with unknown format.", file);
+                return null;
+            }
+            return contents;
+        } catch (IOException | JsonParseException ex) {
+            logger.warn("Could not read the published container listing {}: {}", file, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param term     lease term of the proxy that wrote it; a listing from an older term than
+     *                 one already applied comes from a deposed leader and is ignored.
+     * @param sequence increases with every listing written within a term.
+     */
+    record Contents(int version, String leader, long term, long sequence, long publishedAt, List<Endpoint> endpoints) {
+
+        static Contents of(String leader, long term, long sequence, List<Endpoint> endpoints) {
+            return new Contents(VERSION, leader, term, sequence, System.currentTimeMillis(), endpoints);
+        }
+
+        boolean isNewerThan(long term, long sequence) {
+            return this.term > term || (this.term == term && this.sequence > sequence);
+        }
+    }
+
+    /**
+     * @param unavailableReason null while the endpoint is available.
+     * @param lastScan          epoch millis of the listing's start, 0 before the first one.
+     */
+    record Endpoint(String endpoint, boolean available, String unavailableReason, long lastScan, List<ContainerSummary> containers) {
+    }
+}
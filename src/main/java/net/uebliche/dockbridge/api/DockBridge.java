@@ -0,0 +1,37 @@
+package net.uebliche.dockbridge.api;
+
+import java.util.Optional;
+
+/**
+ * Entry point for other plugins. Declare a dependency on {@code dockbridge} so the API is
+ * available once your plugin initializes.
+ */
+public final class DockBridge {
+
+    private static volatile DockBridgeApi api;
+
+    private DockBridge() {
+    }
+
+    /**
+     * @throws IllegalStateException if DockBridge is not loaded or has shut down.
+     */
+    public static DockBridgeApi api() {
+        DockBridgeApi current = api;
+        if (current == null) {
+            throw new IllegalStateException("DockBridge is not initialized.");
+        }
+        return current;
+    }
+
+    public static Optional<DockBridgeApi> find() {
+        return Optional.ofNullable(api);
+    }
+
+    /**
+     * Called by DockBridge itself on startup and shutdown.
+     */
+    public static void register(DockBridgeApi instance) {
+        api = instance;
+    }
+}
@@ -0,0 +1,48 @@
+package net.uebliche.dockbridge.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to the servers DockBridge registered. Every lookup reads the latest published
+ * registration state through prebuilt indexes: it never copies, locks or calls Docker, so it
+ * is safe on a player's join path. Returned collections are unmodifiable and belong to that
+ * state; a later call may return different instances.
+ * <p>
+ * Changes are announced through Velocity events: {@link DockerServerRegisteredEvent},
+ * {@link DockerServerUpdatedEvent}, {@link DockerServerUnregisteredEvent} and
+ * {@link DockerAvailabilityChangedEvent}.
+ */
+public interface DockBridgeApi {
+
+    /**
+     * All Docker-backed servers, in no particular order.
+     */
+    Collection<DockerServer> servers();
+
+    Optional<DockerServer> server(String serverName);
+
+    /**
+     * Looks up a server by container id, full or abbreviated to at least 12 characters.
+     */
+    Optional<DockerServer> serverByContainerId(String containerId);
+
+    /**
+     * Replicas sharing a base name, e.g. {@code lobby} and {@code lobby-abcdef}.
+     */
+    List<DockerServer> serversByBaseName(String baseName);
+
+    /**
+     * Servers whose container carries the label with exactly this value. The first lookup of
+     * a label key after a registration change indexes that key once.
+     */
+    List<DockerServer> serversByLabel(String key, String value);
+
+    boolean isDockerServer(String serverName);
+
+    /**
+     * Whether every configured Docker endpoint is currently reachable.
+     */
+    boolean isDockerAvailable();
+}
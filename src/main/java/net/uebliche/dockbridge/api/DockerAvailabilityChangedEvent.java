@@ -0,0 +1,10 @@
+package net.uebliche.dockbridge.api;
+
+/**
+ * Fired when a Docker endpoint becomes unreachable or recovers. Servers from an unreachable
+ * endpoint stay registered until it answers again.
+ *
+ * @param reason why the endpoint is unavailable; null when it became available.
+ */
+public record DockerAvailabilityChangedEvent(String endpoint, boolean available, String reason) {
+}
@@ -0,0 +1,27 @@
+package net.uebliche.dockbridge.api;
+
+import java.util.Map;
+
+/**
+ * A Velocity server DockBridge registered for a Docker container.
+ *
+ * @param serverName  name of the server in Velocity.
+ * @param host        address host the server is registered with (container name or IP).
+ * @param containerId short (12 character) container id.
+ * @param baseName    name before any duplicate suffix; replicas share it.
+ * @param weight      balancing weight from the weight label, at least 1.
+ * @param labels      all Docker labels of the container. Unmodifiable.
+ * @param cold        whether the container is stopped or paused and only started when a player
+ *                    connects; always false unless {@code cold.enabled} is set.
+ */
+public record DockerServer(String serverName, String host, int port, String containerId, String baseName, int weight,
+                           Map<String, String> labels, boolean cold) {
+
+    public DockerServer {
+        labels = labels == null ? Map.of() : labels;
+    }
+
+    public String label(String key) {
+        return labels.get(key);
+    }
+}
@@ -0,0 +1,8 @@
+package net.uebliche.dockbridge.api;
+
+/**
+ * Fired after DockBridge registered a server for a container. Velocity already knows the
+ * server; it may not be in the try list until its first status probe succeeds.
+ */
+public record DockerServerRegisteredEvent(DockerServer server) {
+}
@@ -0,0 +1,9 @@
+package net.uebliche.dockbridge.api;
+
+/**
+ * Fired when DockBridge dropped a server because its container is gone, draining or no longer
+ * healthy. If players are still on it, Velocity keeps the server until the drain has moved
+ * them.
+ */
+public record DockerServerUnregisteredEvent(DockerServer server) {
+}
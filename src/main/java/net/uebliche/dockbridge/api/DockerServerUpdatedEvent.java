@@ -0,0 +1,8 @@
+package net.uebliche.dockbridge.api;
+
+/**
+ * Fired when a registered server changed, e.g. its address, weight or backing container.
+ * The server name is the same in both.
+ */
+public record DockerServerUpdatedEvent(DockerServer previous, DockerServer current) {
+}
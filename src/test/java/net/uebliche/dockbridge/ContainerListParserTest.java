@@ -0,0 +1,167 @@
+package net.uebliche.dockbridge;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContainerListParserTest {
+
+    private final ContainerListParser parser = new ContainerListParser();
+
+    @Test
+    void readsTheFieldsDockBridgeUses() throws IOException {
+        List<ContainerSummary> containers = parse("""
+                [{"Id":"abc123","Names":["/lobby-1"],"Image":"itzg/minecraft-server",
+                  "Labels":{"net.uebliche.dockbridge.autoregister":"true","net.uebliche.dockbridge.port":"25566"},
+                  "Ports":[{"IP":"0.0.0.0","PrivatePort":25565,"PublicPort":30001,"Type":"tcp"}],
+                  "State":"running","Status":"Up 3 minutes (healthy)",
+                  "NetworkSettings":{"Networks":{"mc":{"IPAddress":"172.18.0.4","Gateway":"172.18.0.1"}}}}]
+                """);
+
+        assertEquals(1, containers.size());
+        ContainerSummary container = containers.get(0);
+        assertEquals("abc123", container.id());
+        assertEquals(List.of("/lobby-1"), container.names());
+        assertEquals("25566", container.label("net.uebliche.dockbridge.port"));
+        assertEquals(List.of(new ContainerSummary.Port(25565, 30001, "0.0.0.0", "tcp")), container.ports());
+        assertEquals("running", container.state());
+        assertEquals("Up 3 minutes (healthy)", container.status());
+        assertEquals(Map.of("mc", "172.18.0.4"), container.networks());
+    }
+
+    @Test
+    void emptyListAndEmptyCollections() throws IOException {
+        assertTrue(parse("[]").isEmpty());
+        assertTrue(parse(" [ ] ").isEmpty());
+
+        ContainerSummary container = parse("""
+                [{"Id":"a","Names":[],"Labels":{},"Ports":[],"NetworkSettings":{"Networks":{}}}]
+                """).get(0);
+        assertEquals(List.of(), container.names());
+        assertEquals(Map.of(), container.labels());
+        assertEquals(List.of(), container.ports());
+        assertEquals(Map.of(), container.networks());
+
+        assertEquals("b", parse("[{},{\"Id\":\"b\"}]").get(1).id());
+    }
+
+    @Test
+    void nullFieldsBecomeEmptyOrAbsent() throws IOException {
+        ContainerSummary container = parse("""
+                [{"Id":"a","Names":null,"Labels":null,"Ports":null,"State":null,"NetworkSettings":null}]
+                """).get(0);
+        assertEquals(List.of(), container.names());
+        assertEquals(Map.of(), container.labels());
+        assertEquals(List.of(), container.ports());
+        assertNull(container.state());
+        assertEquals(Map.of(), container.networks());
+
+        ContainerSummary port = parse("""
+                [{"Id":"b","Ports":[{"PrivatePort":25565,"PublicPort":null,"IP":null}],
+                  "NetworkSettings":{"Networks":{"mc":null,"other":{"IPAddress":""}}}}]
+                """).get(0);
+        assertEquals(List.of(new ContainerSummary.Port(25565, -1, null, null)), port.ports());
+        assertEquals(Map.of(), port.networks());
+    }
+
+    @Test
+    void leavesOutNullLabelValuesAndNullOrBlankNames() throws IOException {
+        ContainerSummary container = parse("""
+                [{"Id":"a","Names":[null,"/lobby",""],"Labels":{"kept":"yes","dropped":null}}]
+                """).get(0);
+        assertEquals(Map.of("kept", "yes"), container.labels());
+        assertEquals(List.of("/lobby"), container.names());
+        // Registrations copy the labels; a null value would fail there.
+        assertEquals(Map.of("kept", "yes"), Map.copyOf(container.labels()));
+    }
+
+    @Test
+    void decodesEscapes() throws IOException {
+        ContainerSummary container = parse("""
+                [{"Id":"a","Names":["/quote\\"slash\\\\solidus\\/"],
+                  "Labels":{"motd":"line\\nnext\\ttab\\r\\b\\f","snow":"\\u2603","clef":"\\ud834\\udd1e","plain":"caf\\u00e9"}}]
+                """).get(0);
+        assertEquals("/quote\"slash\\solidus/", container.names().get(0));
+        assertEquals("line\nnext\ttab\r\b\f", container.label("motd"));
+        assertEquals("☃", container.label("snow"));
+        assertEquals("𝄞", container.label("clef"));
+        assertEquals("café", container.label("plain"));
+    }
+
+    @Test
+    void readsUtf8Unescaped() throws IOException {
+        assertEquals("/café-☃", parse("[{\"Names\":[\"/café-☃\"]}]").get(0).names().get(0));
+    }
+
+    @Test
+    void matchesKeysWithEscapesOnlyLiterally() throws IOException {
+        // "Id" is "Id" once decoded, but keys are matched on their raw bytes.
+        ContainerSummary container = parse("[{\"I\\u0064\":\"skipped\",\"Id\":\"kept\"}]").get(0);
+        assertEquals("kept", container.id());
+    }
+
+    @Test
+    void skipsNestedValuesItDoesNotRead() throws IOException {
+        ContainerSummary container = parse("""
+                [{"Mounts":[{"Type":"bind","Source":"/data","Propagation":"rprivate","RW":true}],
+                  "HostConfig":{"NetworkMode":"default","Annotations":{"a":{"b":["}","]","{"]}}},
+                  "Command":"/start \\"with quotes\\" [and] {braces}",
+                  "Created":1712345678,"SizeRw":-1.5e3,"Nothing":null,"Yes":true,"No":false,
+                  "Ports":[{"PrivatePort":25565,"Extra":{"deep":[1,2,[3]]},"Type":"tcp"}],
+                  "NetworkSettings":{"Ports":{"x":[]},"Networks":{"mc":{"Aliases":["a"],"IPAddress":"10.0.0.2","Links":null}}},
+                  "Id":"after"}]
+                """).get(0);
+        assertEquals("after", container.id());
+        assertEquals(List.of(new ContainerSummary.Port(25565, -1, null, "tcp")), container.ports());
+        assertEquals(Map.of("mc", "10.0.0.2"), container.networks());
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        String full = """
+                [{"Id":"abc","Names":["/lobby"],"Labels":{"k":"v\\u00e9"},"Ports":[{"PrivatePort":25565}],"State":"running"}]""";
+        for (int length = 0; length < full.length(); length++) {
+            String truncated = full.substring(0, length);
+            assertThrows(IOException.class, () -> parse(truncated), () -> "accepted " + truncated);
+        }
+    }
+
+    @Test
+    void rejectsTruncatedInputInsideALargerBuffer() {
+        // The client reuses its read buffer; bytes past the body must not be read as input.
+        byte[] body = "[{\"Id\":\"abc\",\"Names\":[\"/lob".getBytes(StandardCharsets.UTF_8);
+        byte[] stale = "by\"]}]                                        ".getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = Arrays.copyOf(body, body.length + stale.length);
+        System.arraycopy(stale, 0, buffer, body.length, stale.length);
+        assertThrows(IOException.class, () -> parser.parse(buffer, body.length));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThrows(IOException.class, () -> parse("{}"));
+        assertThrows(IOException.class, () -> parse("[{\"Id\":\"a\"} {\"Id\":\"b\"}]"));
+        assertThrows(IOException.class, () -> parse("[{\"Id\":\"bad\\x\"}]"));
+        assertThrows(IOException.class, () -> parse("[{\"Id\":\"bad\\uzzzz\"}]"));
+        assertThrows(IOException.class, () -> parse("[{\"Ports\":[{\"PrivatePort\":\"25565\"}]}]"));
+    }
+
+    @Test
+    void parserIsReusable() throws IOException {
+        assertThrows(IOException.class, () -> parse("[{\"Id\":"));
+        assertEquals("b", parse("[{\"Id\":\"b\"}]").get(0).id());
+    }
+
+    private List<ContainerSummary> parse(String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes, bytes.length);
+    }
+}